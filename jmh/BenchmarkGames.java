@@ -0,0 +1,91 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Realistic game data shared by the JMH benchmarks: random legal games and mid-game board snapshots.
+ */
+final class BenchmarkGames {
+
+    private BenchmarkGames() {
+    }
+
+    /**
+     * Plays a random legal game from the starting position, red moving first.
+     *
+     * @param size The board size.
+     * @param seed The seed of the move choices.
+     * @return The moves as consecutive {x, y, token} triples.
+     */
+    static int[] randomGame(int size, long seed) {
+        Random random = new Random(seed);
+        GameModel model = newModel(size);
+        int[] moves = new int[size * size * 3];
+        int count = 0;
+        char token = 'R';
+        boolean passed = false;
+        while (true) {
+            int chosenX = -1;
+            int chosenY = -1;
+            int legal = 0;
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    if (model.isLegalMove(x, y, token) && random.nextInt(++legal) == 0) {
+                        chosenX = x;
+                        chosenY = y;
+                    }
+                }
+            }
+            if (legal == 0) {
+                if (passed) {
+                    break;
+                }
+                passed = true;
+            } else {
+                passed = false;
+                model.placeStoneAndUpdate(chosenX, chosenY, token);
+                moves[count++] = chosenX;
+                moves[count++] = chosenY;
+                moves[count++] = token;
+            }
+            token = token == 'R' ? 'B' : 'R';
+        }
+        return Arrays.copyOf(moves, count);
+    }
+
+    /**
+     * Creates a model with red as the local first player on a fresh board.
+     *
+     * @param size The board size.
+     * @return The model in the starting position.
+     */
+    static GameModel newModel(int size) {
+        GameModel model = new GameModel();
+        model.setLocalPlayer(new Player("local", 'R'));
+        model.setRemotePlayer("remote", 'B');
+        model.setBoardSize(size);
+        model.resetBoard(true);
+        return model;
+    }
+
+    /**
+     * Builds the RECONNECT board string of the position after half of a random game.
+     *
+     * @param size The board size.
+     * @param seed The seed of the game.
+     * @return The board in the {@link GameModel#updateBoard(String)} format.
+     */
+    static String midGameSnapshot(int size, long seed) {
+        int[] game = randomGame(size, seed);
+        GameModel model = newModel(size);
+        for (int i = 0; i < game.length / 2 / 3 * 3; i += 3) {
+            model.placeStoneAndUpdate(game[i], game[i + 1], (char) game[i + 2]);
+        }
+        StringBuilder snapshot = new StringBuilder(size * size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                snapshot.append(model.getCell(x, y));
+            }
+        }
+        return snapshot.toString();
+    }
+}
@@ -0,0 +1,78 @@
+import benchmarks.Workload;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+/**
+ * Plays the next move of a random legal game and shows it on {@link BoardComponent}, painting
+ * the union of the cells it asked to repaint as clip, as the repaint manager does. A new game
+ * starts after the last move.
+ */
+public class BoardComponentRenderWorkload implements Workload {
+
+    private final GameModel model;
+    private final int[] game;
+    private final ClippedBoard board = new ClippedBoard();
+    private final BufferedImage image = new BufferedImage(ButtonGridRenderWorkload.EXTENT,
+            ButtonGridRenderWorkload.EXTENT, BufferedImage.TYPE_INT_RGB);
+    private int next;
+
+    public BoardComponentRenderWorkload(int size) {
+        model = BenchmarkGames.newModel(size);
+        game = BenchmarkGames.randomGame(size, size);
+        board.reset(size);
+    }
+
+    @Override
+    public Object run() {
+        if (next == game.length) {
+            model.resetBoard(true);
+            board.reset(model.getBoardSize());
+            next = 0;
+        }
+        model.placeStoneAndUpdate(game[next], game[next + 1], (char) game[next + 2]);
+        next += 3;
+        board.update(model, true);
+        board.paintDirty(image);
+        return image;
+    }
+
+    /**
+     * The board component, collecting its repaint requests instead of posting them.
+     */
+    private static final class ClippedBoard extends BoardComponent {
+        private static final long serialVersionUID = 1L;
+
+        private final Rectangle dirty = new Rectangle();
+
+        ClippedBoard() {
+            super((x, y) -> {
+            });
+            setSize(ButtonGridRenderWorkload.EXTENT, ButtonGridRenderWorkload.EXTENT);
+        }
+
+        @Override
+        public void repaint(long tm, int x, int y, int width, int height) {
+            if (dirty.isEmpty()) {
+                dirty.setBounds(x, y, width, height);
+            } else {
+                dirty.add(new Rectangle(x, y, width, height));
+            }
+        }
+
+        /**
+         * Paints the cells requested since the last call.
+         */
+        void paintDirty(BufferedImage image) {
+            if (dirty.isEmpty()) {
+                return;
+            }
+            Graphics2D g = image.createGraphics();
+            g.setClip(dirty);
+            paint(g);
+            g.dispose();
+            dirty.setBounds(0, 0, 0, 0);
+        }
+    }
+}
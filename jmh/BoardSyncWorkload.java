@@ -0,0 +1,82 @@
+import benchmarks.Workload;
+
+import java.util.Random;
+
+/**
+ * Applies the board field of a RECONNECT message through {@link GameModel#applySync} in one of
+ * the {@link BoardCodec} forms: the plain board string, the compact snapshot, or a delta of one
+ * or four moves. The board is about half full, as in the middle of a game.
+ * <p>
+ * A delta only applies to the position it starts from, so the delta forms first restore that
+ * position from its snapshot; their time includes one snapshot decode. The wire size is the whole
+ * RECONNECT line with the same tail for every form, plus the sequence number that only compact
+ * clients receive.
+ */
+public class BoardSyncWorkload implements Workload {
+
+    /**
+     * The fields after the board, as the reference server sends them.
+     */
+    private static final String TAIL = ";alice;bob;B";
+
+    private final GameModel model;
+    private final String field;
+    private final int sequence;
+    private final String start;
+    private final int startSequence;
+
+    public BoardSyncWorkload(int size, String form) {
+        Random random = new Random(size);
+        Board board = Board.create(size);
+        int[] moveLog = new int[size * size];
+        for (int cell = 0; cell < size * size; cell++) {
+            int roll = random.nextInt(4);
+            board.set(cell % size, cell / size, roll == 0 ? 'R' : roll == 1 ? 'B' : ' ');
+            moveLog[cell] = BoardCodec.logEntry(cell, roll == 0 ? 'R' : 'B');
+        }
+        int current = size * size / 2;
+        StringBuilder out = new StringBuilder();
+        int from;
+        switch (form) {
+            case "plain":
+                BoardCodec.appendPlain(board, out);
+                sequence = -1;
+                from = -1;
+                break;
+            case "snapshot":
+                BoardCodec.appendSnapshot(board, out);
+                sequence = current;
+                from = -1;
+                break;
+            case "delta1":
+            case "delta4":
+                from = current - (form.equals("delta1") ? 1 : 4);
+                BoardCodec.appendDelta(moveLog, from, current, out);
+                sequence = current;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown board sync form " + form);
+        }
+        field = out.toString();
+        startSequence = from;
+        StringBuilder snapshot = new StringBuilder();
+        BoardCodec.appendSnapshot(board, snapshot);
+        start = snapshot.toString();
+        model = BenchmarkGames.newModel(size);
+    }
+
+    @Override
+    public Object run() {
+        if (startSequence >= 0) {
+            model.applySync(start, startSequence);
+        }
+        model.applySync(field, sequence);
+        return model;
+    }
+
+    @Override
+    public int wireBytes() {
+        int length = "RECONNECT;".length() + field.length() + TAIL.length() + 1;
+        return sequence < 0 ? length : length + 1 + Integer.toString(sequence).length();
+    }
+}
@@ -0,0 +1,74 @@
+import benchmarks.Workload;
+
+import javax.swing.JButton;
+import javax.swing.JPanel;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.GridLayout;
+import java.awt.image.BufferedImage;
+
+/**
+ * Plays the next move of a random legal game and shows it on the original view: a button per
+ * cell, recoloured, re-enabled, laid out and painted as a whole, as {@code revalidate()} and
+ * {@code repaint()} on the panel did. A new game starts after the last move.
+ */
+public class ButtonGridRenderWorkload implements Workload {
+
+    /**
+     * Side length of the rendered image in pixels, the default window size.
+     */
+    static final int EXTENT = 800;
+
+    private final GameModel model;
+    private final int[] game;
+    private final JButton[][] buttons;
+    private final JPanel panel;
+    private final BufferedImage image = new BufferedImage(EXTENT, EXTENT, BufferedImage.TYPE_INT_RGB);
+    private int next;
+
+    public ButtonGridRenderWorkload(int size) {
+        model = BenchmarkGames.newModel(size);
+        game = BenchmarkGames.randomGame(size, size);
+        buttons = new JButton[size][size];
+        panel = new JPanel(new GridLayout(size, size));
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                buttons[row][col] = new JButton();
+                buttons[row][col].setFont(new Font("Arial", Font.PLAIN, 60));
+                panel.add(buttons[row][col]);
+            }
+        }
+        panel.setSize(EXTENT, EXTENT);
+    }
+
+    @Override
+    public Object run() {
+        if (next == game.length) {
+            model.resetBoard(true);
+            next = 0;
+        }
+        model.placeStoneAndUpdate(game[next], game[next + 1], (char) game[next + 2]);
+        next += 3;
+        char localChar = model.getLocalPlayer().getPlayerToken();
+        for (int row = 0; row < buttons.length; row++) {
+            for (int col = 0; col < buttons[row].length; col++) {
+                char cell = model.getCell(col, row);
+                if (cell == 'R') {
+                    buttons[row][col].setBackground(new Color(186, 0, 0));
+                } else if (cell == 'B') {
+                    buttons[row][col].setBackground(new Color(0, 0, 220));
+                } else {
+                    buttons[row][col].setBackground(Color.GRAY);
+                }
+                buttons[row][col].setEnabled(model.isLegalMove(col, row, localChar));
+            }
+        }
+        panel.invalidate();
+        panel.validate();
+        Graphics2D g = image.createGraphics();
+        panel.paint(g);
+        g.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,64 @@
+import benchmarks.Workload;
+
+import java.util.Arrays;
+
+/**
+ * Replays the game of {@link ReplayGameWorkload} on the original char-grid flip algorithm of
+ * {@link GameModel#placeStoneAndUpdate}, kept as the baseline of the bitboard model.
+ */
+public class CharGridReplayWorkload implements Workload {
+    private final char[][] gameBoard;
+    private final int[] game;
+
+    public CharGridReplayWorkload(int size) {
+        gameBoard = new char[size][size];
+        game = BenchmarkGames.randomGame(size, 42);
+    }
+
+    @Override
+    public Object run() {
+        for (char[] row : gameBoard) {
+            Arrays.fill(row, ' ');
+        }
+        int center = gameBoard.length / 2;
+        gameBoard[center - 1][center - 1] = 'R';
+        gameBoard[center - 1][center] = 'B';
+        gameBoard[center][center - 1] = 'B';
+        gameBoard[center][center] = 'R';
+        for (int i = 0; i < game.length; i += 3) {
+            placeStoneAndUpdate(game[i], game[i + 1], (char) game[i + 2]);
+        }
+        return gameBoard;
+    }
+
+    private void placeStoneAndUpdate(int targetX, int targetY, char localChar) {
+        int[][] moves = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+        char opposingChar = (localChar == 'R') ? 'B' : 'R';
+        gameBoard[targetY][targetX] = localChar;
+        for (int[] move : moves) {
+            checkAndFlip(targetX, targetY, move[0], move[1], localChar, opposingChar);
+        }
+    }
+
+    private boolean checkAndFlip(int x, int y, int dx, int dy, char playerChar, char opponentChar) {
+        int newX = x + dx;
+        int newY = y + dy;
+        while (isWithinBounds(newX, newY) && gameBoard[newY][newX] == opponentChar) {
+            newX += dx;
+            newY += dy;
+        }
+        if (isWithinBounds(newX, newY) && gameBoard[newY][newX] == playerChar) {
+            while (newX != x || newY != y) {
+                newX -= dx;
+                newY -= dy;
+                gameBoard[newY][newX] = playerChar;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isWithinBounds(int x, int y) {
+        return x >= 0 && x < gameBoard[0].length && y >= 0 && y < gameBoard.length;
+    }
+}
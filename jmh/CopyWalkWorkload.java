@@ -0,0 +1,49 @@
+import benchmarks.Workload;
+
+/**
+ * Counts the same leaves as {@link MakeUnmakeWalkWorkload}, but creates a new board per child
+ * and copies all cells into it, as a look-ahead without undo has to.
+ */
+public class CopyWalkWorkload implements Workload {
+
+    private final Board start;
+    private final int depth;
+
+    public CopyWalkWorkload(int size) {
+        start = BenchmarkGames.newModel(size).getBoard();
+        depth = MakeUnmakeWalkWorkload.walkDepth(size);
+    }
+
+    @Override
+    public Object run() {
+        return walk(start, 'R', depth, false);
+    }
+
+    private static long walk(Board board, char token, int depth, boolean passed) {
+        if (depth == 0) {
+            return 1;
+        }
+        int size = board.getSize();
+        long[] legal = new long[board.getUndoRecordWords()];
+        int count = board.collectLegalMoves(token, legal);
+        char other = token == 'R' ? 'B' : 'R';
+        if (count == 0) {
+            return passed ? 1 : walk(board, other, depth - 1, true);
+        }
+        long leaves = 0;
+        for (int word = 0; word < legal.length; word++) {
+            for (long rest = legal[word]; rest != 0; rest &= rest - 1) {
+                int cell = word * 64 + Long.numberOfTrailingZeros(rest);
+                Board child = Board.create(size);
+                for (int y = 0; y < size; y++) {
+                    for (int x = 0; x < size; x++) {
+                        child.set(x, y, board.get(x, y));
+                    }
+                }
+                child.placeStone(cell % size, cell / size, token);
+                leaves += walk(child, other, depth - 1, false);
+            }
+        }
+        return leaves;
+    }
+}
@@ -0,0 +1,75 @@
+import benchmarks.Workload;
+
+import java.util.Random;
+
+/**
+ * Searches a fixed 8x8 midgame position to a fixed depth with a {@link SearchEngine} of the given
+ * parallelism. The transposition table is cleared before every search, so each run does the same
+ * work; the parallel search may still visit a few more nodes than the sequential one because
+ * siblings start before the bound of the first move is known.
+ */
+public class EngineSearchWorkload implements Workload {
+
+    /**
+     * Depth of every search.
+     */
+    private static final int DEPTH = 7;
+
+    /**
+     * Number of random moves played from the start position to reach the midgame.
+     */
+    private static final int OPENING_MOVES = 16;
+
+    /**
+     * Time budget large enough to never stop a search early.
+     */
+    private static final long NO_TIME_LIMIT = 3_600_000L;
+
+    private final SearchEngine engine;
+    private final long own;
+    private final long opponent;
+    private final long validMask = BitBoard.validMask(BitBoard.MAX_SIZE);
+
+    public EngineSearchWorkload(int size, String parallelism) {
+        if (size != BitBoard.MAX_SIZE) {
+            throw new IllegalArgumentException("The engine benchmark searches " + BitBoard.MAX_SIZE + "x"
+                    + BitBoard.MAX_SIZE + " positions only");
+        }
+        engine = new SearchEngine(Integer.parseInt(parallelism));
+        BitBoard board = new BitBoard(size);
+        board.set(3, 3, 'B');
+        board.set(4, 4, 'B');
+        board.set(3, 4, 'R');
+        board.set(4, 3, 'R');
+        Random random = new Random(42);
+        char token = 'R';
+        for (int i = 0; i < OPENING_MOVES; i++) {
+            char other = token == 'R' ? 'B' : 'R';
+            long moves = BitBoard.legalMoves(board.getStones(token), board.getStones(other), validMask);
+            if (moves != 0) {
+                int pick = random.nextInt(Long.bitCount(moves));
+                for (int j = 0; j < pick; j++) {
+                    moves &= moves - 1;
+                }
+                int index = Long.numberOfTrailingZeros(moves);
+                board.placeStone(index % size, index / size, token);
+            }
+            token = other;
+        }
+        own = board.getStones(token);
+        opponent = board.getStones(token == 'R' ? 'B' : 'R');
+    }
+
+    @Override
+    public Object run() {
+        TranspositionTable table = engine.getTranspositionTable();
+        table.clear();
+        table.reset();
+        return engine.search(own, opponent, validMask, DEPTH, NO_TIME_LIMIT);
+    }
+
+    @Override
+    public void close() {
+        engine.shutdown();
+    }
+}
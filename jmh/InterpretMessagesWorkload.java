@@ -0,0 +1,159 @@
+import benchmarks.Workload;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs {@link NetworkClient#interpretServerMessage} over a 19-message game transcript:
+ * START_GAME, the MOVE acknowledgements and OPP_MOVEs of a random legal game, and a PING after
+ * every second move. GAME_STATUS is left out because it ends the game.
+ * <p>
+ * Console output of the handlers is discarded so the console lock does not dominate the score,
+ * while the cost of formatting it is still measured.
+ */
+public class InterpretMessagesWorkload implements Workload {
+
+    /**
+     * Number of messages in the transcript.
+     */
+    public static final int TRANSCRIPT_LENGTH = 19;
+
+    private NetworkClient client;
+    private char[][] transcript;
+    private PrintStream originalOut;
+
+    public InterpretMessagesWorkload(int size) {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        ModelOnlyController controller = new ModelOnlyController();
+        client = new NetworkClient(controller, new DiscardingTransport());
+        feed("LOGIN;local");
+        feed("JOIN_GAME;R");
+
+        List<String> messages = new ArrayList<>();
+        messages.add("START_GAME;remote;B;1;" + size);
+        int[] game = BenchmarkGames.randomGame(size, 7);
+        for (int i = 0; i < game.length && messages.size() < TRANSCRIPT_LENGTH; i += 3) {
+            messages.add(game[i + 2] == 'R'
+                    ? "MOVE;0;" + game[i] + ";" + game[i + 1]
+                    : "OPP_MOVE;" + game[i] + ";" + game[i + 1]);
+            if (i % 2 == 0 && messages.size() < TRANSCRIPT_LENGTH) {
+                messages.add("PING");
+            }
+        }
+        while (messages.size() < TRANSCRIPT_LENGTH) {
+            messages.add("PING");
+        }
+        transcript = new char[messages.size()][];
+        for (int i = 0; i < transcript.length; i++) {
+            transcript[i] = messages.get(i).toCharArray();
+        }
+    }
+
+    @Override
+    public void close() {
+        System.setOut(originalOut);
+    }
+
+    @Override
+    public Object run() {
+        for (char[] message : transcript) {
+            client.interpretServerMessage(message, 0, message.length);
+        }
+        return client;
+    }
+
+    private void feed(String message) {
+        client.interpretServerMessage(message.toCharArray(), 0, message.length());
+    }
+
+    /**
+     * Applies the decoded events to a model without any user interface.
+     */
+    private static final class ModelOnlyController implements ClientController {
+        private final GameModel model = new GameModel();
+
+        @Override
+        public int getMoveSequence() {
+            return model.getMoveSequence();
+        }
+
+        @Override
+        public void loggedIn(String name) {
+            model.setLocalPlayer(new Player(name));
+        }
+
+        @Override
+        public void joinedGame(char token) {
+            model.getLocalPlayer().setPlayerToken(token);
+        }
+
+        @Override
+        public void gameStarted(String remoteName, char remoteToken, boolean myTurn, int boardSize) {
+            model.setRemotePlayer(remoteName, remoteToken);
+            model.setBoardSize(boardSize);
+            model.resetBoard(myTurn);
+        }
+
+        @Override
+        public void moveAccepted(int x, int y) {
+            model.placeStoneAndUpdate(x, y, model.getLocalPlayer().getPlayerToken());
+        }
+
+        @Override
+        public void moveRejected(int status) {
+        }
+
+        @Override
+        public void opponentMoved(int x, int y) {
+            model.placeStoneAndUpdate(x, y, model.getRemotePlayer().getPlayerToken());
+        }
+
+        @Override
+        public void gameEnded(String status) {
+        }
+
+        @Override
+        public void opponentDisconnected() {
+        }
+
+        @Override
+        public void boardSynced(String board, int sequence, String playerOnTurn, String remoteName, char remoteToken) {
+            model.applySync(board, sequence);
+        }
+
+        @Override
+        public void displayNotification(String message) {
+        }
+
+        @Override
+        public void notifyConnectionIssue() {
+        }
+
+        @Override
+        public void displayError(String errorMessage) {
+            throw new IllegalStateException(errorMessage);
+        }
+    }
+
+    /**
+     * A transport that drops everything sent to it.
+     */
+    private static final class DiscardingTransport implements ClientTransport {
+        @Override
+        public void send(String message) {
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,42 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The original message handling: one string per line, split by regex and a fresh handler map
+ * per message.
+ */
+public class LegacyParseWorkload extends ParseMessagesWorkload {
+
+    public LegacyParseWorkload(int size) {
+        super(size);
+    }
+
+    @Override
+    protected void parse(char[] buffer, int offset, int count) {
+        String response = new String(buffer, offset, count);
+        Map<String, Runnable> commandHandlers = new HashMap<>();
+        String[] parts = response.split(";");
+
+        commandHandlers.put("GAME_STATUS", () -> sink += parts[1].equals("DRAW") ? 1 : parts[1].length());
+        commandHandlers.put("LOGIN", () -> sink += parts[1].length());
+        commandHandlers.put("JOIN_GAME", () -> sink += parts[1].charAt(0));
+        commandHandlers.put("START_GAME", () -> sink += parts[1].length() + parts[2].charAt(0) + parts[3].charAt(0));
+        commandHandlers.put("MOVE", () -> {
+            int status = Integer.parseInt(parts[1]);
+            if (NetworkClient.UNACCEPTABLE_MOVE_CODES.contains(status)) {
+                sink += status;
+                return;
+            }
+            sink += Integer.parseInt(parts[2]) + Integer.parseInt(parts[3]);
+        });
+        commandHandlers.put("OPP_MOVE", () -> sink += Integer.parseInt(parts[1]) + Integer.parseInt(parts[2]));
+        commandHandlers.put("PING", () -> sink++);
+        commandHandlers.put("OPP_DISCONNECTED", () -> sink++);
+        commandHandlers.put("RECONNECT", () -> sink += parts[1].length() + parts[3].length() + parts[4].charAt(0));
+
+        Runnable commandHandler = commandHandlers.get(parts[0]);
+        if (commandHandler != null) {
+            commandHandler.run();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import benchmarks.Workload;
+
+/**
+ * Counts the leaves of the game tree below the start position with {@link GameModel#makeMove}
+ * and {@link GameModel#undoMove()} on one model and one legal-move buffer per ply. A pass counts
+ * as a ply. The walk must leave the position unchanged, which is checked after every walk.
+ */
+public class MakeUnmakeWalkWorkload implements Workload {
+
+    private final GameModel model;
+    private final int depth;
+    private final long hash;
+    private final long[][] legalByPly;
+
+    public MakeUnmakeWalkWorkload(int size) {
+        model = BenchmarkGames.newModel(size);
+        depth = walkDepth(size);
+        hash = model.getHash();
+        legalByPly = new long[depth + 1][model.getBoard().getUndoRecordWords()];
+    }
+
+    /**
+     * Gets the depth walked on a board size, a few milliseconds per walk.
+     */
+    static int walkDepth(int size) {
+        return size <= 8 ? 6 : 4;
+    }
+
+    @Override
+    public Object run() {
+        long leaves = walk('R', depth, false);
+        if (model.getHash() != hash || model.getUndoDepth() != 0) {
+            throw new IllegalStateException("The walk changed the position");
+        }
+        return leaves;
+    }
+
+    private long walk(char token, int depth, boolean passed) {
+        if (depth == 0) {
+            return 1;
+        }
+        int size = model.getBoardSize();
+        long[] legal = legalByPly[depth];
+        int count = model.getBoard().collectLegalMoves(token, legal);
+        char other = token == 'R' ? 'B' : 'R';
+        if (count == 0) {
+            return passed ? 1 : walk(other, depth - 1, true);
+        }
+        long leaves = 0;
+        for (int word = 0; word < legal.length; word++) {
+            for (long rest = legal[word]; rest != 0; rest &= rest - 1) {
+                int cell = word * 64 + Long.numberOfTrailingZeros(rest);
+                model.makeMove(cell % size, cell / size, token);
+                leaves += walk(other, depth - 1, false);
+                model.undoMove();
+            }
+        }
+        return leaves;
+    }
+}
@@ -0,0 +1,38 @@
+import java.io.IOException;
+
+/**
+ * Sends through the {@link ClientTransport.Mode#NIO} transport and its outbound queue.
+ */
+public class NioTransportSendWorkload extends TransportSendWorkload {
+
+    private final ClientTransport transport;
+
+    public NioTransportSendWorkload(int burst) throws IOException {
+        super(burst);
+        transport = ClientTransport.open(ClientTransport.Mode.NIO, "127.0.0.1", port(), new ClientTransport.Listener() {
+            @Override
+            public void onLine(char[] buffer, int offset, int count) {
+            }
+
+            @Override
+            public void onDisconnect(IOException cause) {
+                System.err.println("ERR: " + cause.getMessage());
+            }
+        });
+    }
+
+    @Override
+    protected void send(String message) {
+        transport.send(message);
+    }
+
+    @Override
+    protected int bytesPerMessage() {
+        return MESSAGE.length() + 1;
+    }
+
+    @Override
+    protected void closeSender() {
+        transport.close();
+    }
+}
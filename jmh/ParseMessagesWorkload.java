@@ -0,0 +1,49 @@
+import benchmarks.Workload;
+
+/**
+ * Parses a mix of {@link #MESSAGE_COUNT} framed server messages resembling a spectated game,
+ * mostly pings and moves. The parsers run the same field conversions as the real handlers and
+ * feed the results into a sink, so only parsing and dispatch are measured. Subclasses pick the
+ * parser.
+ */
+public abstract class ParseMessagesWorkload implements Workload {
+
+    /**
+     * Number of messages in the mix.
+     */
+    public static final int MESSAGE_COUNT = 16;
+
+    private final char[][] frames;
+
+    /**
+     * Accumulates parsed values so the JIT cannot discard the work.
+     */
+    protected long sink;
+
+    protected ParseMessagesWorkload(int size) {
+        String board = " ".repeat(size * size - 4) + "RBBR";
+        String[] messages = {
+                "PING", "OPP_MOVE;2;3", "MOVE;0;1;3", "PING", "OPP_MOVE;0;1", "MOVE;7;0;0",
+                "PING", "MOVE;0;3;3", "OPP_MOVE;3;2", "START_GAME;Player123;B;1;" + size,
+                "GAME_STATUS;Player123", "RECONNECT;" + board + ";Player123;Player9;R",
+                "PING", "OPP_MOVE;1;1", "MOVE;0;0;2", "JOIN_GAME;R"
+        };
+        frames = new char[messages.length][];
+        for (int i = 0; i < messages.length; i++) {
+            frames[i] = messages[i].toCharArray();
+        }
+    }
+
+    @Override
+    public Object run() {
+        for (char[] frame : frames) {
+            parse(frame, 0, frame.length);
+        }
+        return sink;
+    }
+
+    /**
+     * Parses one framed line.
+     */
+    protected abstract void parse(char[] buffer, int offset, int count);
+}
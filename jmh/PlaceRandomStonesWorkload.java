@@ -0,0 +1,38 @@
+import benchmarks.Workload;
+
+import java.util.Random;
+
+/**
+ * Places {@link #MOVES} stones on random cells of a board that is about half full, so every
+ * move walks a realistic number of cells whatever the board size. The board is restored from
+ * the same snapshot before each run.
+ */
+public class PlaceRandomStonesWorkload implements Workload {
+
+    /**
+     * Number of stones placed per run.
+     */
+    public static final int MOVES = 1024;
+
+    private final GameModel model;
+    private final String snapshot;
+    private final int[] moves = new int[2 * MOVES];
+
+    public PlaceRandomStonesWorkload(int size) {
+        model = BenchmarkGames.newModel(size);
+        snapshot = SyncRandomBoardWorkload.randomSnapshot(size);
+        Random random = new Random(~size);
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = random.nextInt(size);
+        }
+    }
+
+    @Override
+    public Object run() {
+        model.updateBoard(snapshot);
+        for (int i = 0; i < moves.length; i += 2) {
+            model.placeStoneAndUpdate(moves[i], moves[i + 1], (i & 2) == 0 ? 'R' : 'B');
+        }
+        return model;
+    }
+}
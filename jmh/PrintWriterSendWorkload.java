@@ -0,0 +1,34 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.Socket;
+
+/**
+ * The original writer: an autoflushing {@link PrintWriter} printing messages that already end
+ * in a line feed.
+ */
+public class PrintWriterSendWorkload extends TransportSendWorkload {
+
+    private final Socket socket;
+    private final PrintWriter writer;
+
+    public PrintWriterSendWorkload(int burst) throws IOException {
+        super(burst);
+        socket = new Socket("127.0.0.1", port());
+        writer = new PrintWriter(socket.getOutputStream(), true);
+    }
+
+    @Override
+    protected void send(String message) {
+        writer.println(message + "\n");
+    }
+
+    @Override
+    protected int bytesPerMessage() {
+        return MESSAGE.length() + 2;
+    }
+
+    @Override
+    protected void closeSender() throws IOException {
+        socket.close();
+    }
+}
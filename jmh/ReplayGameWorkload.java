@@ -0,0 +1,23 @@
+import benchmarks.Workload;
+
+/**
+ * Resets the board and replays one full random legal game through {@link GameModel#placeStoneAndUpdate}.
+ */
+public class ReplayGameWorkload implements Workload {
+    private final GameModel model;
+    private final int[] game;
+
+    public ReplayGameWorkload(int size) {
+        model = BenchmarkGames.newModel(size);
+        game = BenchmarkGames.randomGame(size, 42);
+    }
+
+    @Override
+    public Object run() {
+        model.resetBoard(true);
+        for (int i = 0; i < game.length; i += 3) {
+            model.placeStoneAndUpdate(game[i], game[i + 1], (char) game[i + 2]);
+        }
+        return model;
+    }
+}
@@ -0,0 +1,37 @@
+import benchmarks.Workload;
+
+import java.util.Random;
+
+/**
+ * Applies a RECONNECT board string with roughly half of the cells occupied through
+ * {@link GameModel#updateBoard(String)}. Unlike {@link UpdateBoardWorkload} the position does not
+ * come from a played game, so it is cheap to build on the largest boards.
+ */
+public class SyncRandomBoardWorkload implements Workload {
+    private final GameModel model;
+    private final String snapshot;
+
+    public SyncRandomBoardWorkload(int size) {
+        model = BenchmarkGames.newModel(size);
+        snapshot = randomSnapshot(size);
+    }
+
+    @Override
+    public Object run() {
+        model.updateBoard(snapshot);
+        return model;
+    }
+
+    /**
+     * Builds a board string with roughly half of the cells occupied.
+     */
+    static String randomSnapshot(int size) {
+        Random random = new Random(size);
+        char[] cells = new char[size * size];
+        for (int i = 0; i < cells.length; i++) {
+            int roll = random.nextInt(4);
+            cells[i] = roll == 0 ? 'R' : roll == 1 ? 'B' : ' ';
+        }
+        return new String(cells);
+    }
+}
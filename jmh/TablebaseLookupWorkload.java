@@ -0,0 +1,76 @@
+import benchmarks.Workload;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Looks up one position in the memory-mapped 4x4 {@link Tablebase} per run: the slot, the score
+ * and the best move, as a hint request does. The table is solved into a temporary file once per
+ * trial, and the runs walk every solved position in random order, so consecutive lookups do not
+ * hit neighbouring keys.
+ */
+public class TablebaseLookupWorkload implements Workload {
+
+    private final Path file;
+    private final Tablebase table;
+    private final long[] own;
+    private final long[] opponent;
+    private int next;
+
+    public TablebaseLookupWorkload(int size) {
+        if (size != Tablebase.SIZE) {
+            throw new IllegalArgumentException("The tablebase holds " + Tablebase.SIZE + "x" + Tablebase.SIZE
+                    + " positions only");
+        }
+        Map<Integer, Integer> entries = Tablebase.solve();
+        int[] keys = entries.keySet().stream().mapToInt(Integer::intValue).toArray();
+        Random random = new Random(1);
+        for (int i = keys.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = keys[i];
+            keys[i] = keys[j];
+            keys[j] = swap;
+        }
+        own = new long[keys.length];
+        opponent = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            own[i] = expand(keys[i] >>> 16);
+            opponent[i] = expand(keys[i] & 0xFFFF);
+        }
+        try {
+            file = Files.createTempFile("tablebase", ".bin");
+            Tablebase.write(entries, file);
+            table = Tablebase.open(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Object run() {
+        int n = next;
+        next = n + 1 == own.length ? 0 : n + 1;
+        int slot = table.find(own[n], opponent[n]);
+        return table.getScore(slot) << 8 | table.getBestMove(slot) & 0xFF;
+    }
+
+    @Override
+    public void close() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Spreads the 16 bits of a table key half over the rows of a {@link BitBoard} mask.
+     */
+    private static long expand(int cells) {
+        return cells & 0xFL | (cells & 0xF0L) << 4 | (cells & 0xF00L) << 8 | (cells & 0xF000L) << 12;
+    }
+}
@@ -0,0 +1,43 @@
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The current message handling of {@link NetworkClient}: a reusable {@link MessageTokenizer}
+ * and a dispatch table built once.
+ */
+public class TokenizerParseWorkload extends ParseMessagesWorkload {
+    private final MessageTokenizer tokenizer = new MessageTokenizer();
+    private final Map<ServerCommand, Runnable> handlers = new EnumMap<>(ServerCommand.class);
+
+    public TokenizerParseWorkload(int size) {
+        super(size);
+        handlers.put(ServerCommand.GAME_STATUS, () -> sink += tokenizer.nextEquals("DRAW") ? 1 : 2);
+        handlers.put(ServerCommand.LOGIN, () -> sink += tokenizer.nextString().length());
+        handlers.put(ServerCommand.JOIN_GAME, () -> sink += tokenizer.nextChar());
+        handlers.put(ServerCommand.START_GAME, () ->
+                sink += tokenizer.nextString().length() + tokenizer.nextChar() + tokenizer.nextChar());
+        handlers.put(ServerCommand.MOVE, () -> {
+            int status = tokenizer.nextInt();
+            if (NetworkClient.isUnacceptableMove(status)) {
+                sink += status;
+                return;
+            }
+            sink += tokenizer.nextInt() + tokenizer.nextInt();
+        });
+        handlers.put(ServerCommand.OPP_MOVE, () -> sink += tokenizer.nextInt() + tokenizer.nextInt());
+        handlers.put(ServerCommand.PING, () -> sink++);
+        handlers.put(ServerCommand.OPP_DISCONNECTED, () -> sink++);
+        handlers.put(ServerCommand.RECONNECT, () ->
+                sink += tokenizer.nextString().length() + tokenizer.skip().nextString().length() + tokenizer.nextChar());
+    }
+
+    @Override
+    protected void parse(char[] buffer, int offset, int count) {
+        tokenizer.reset(buffer, offset, count);
+        ServerCommand command = ServerCommand.read(tokenizer);
+        Runnable handler = command != null ? handlers.get(command) : null;
+        if (handler != null) {
+            handler.run();
+        }
+    }
+}
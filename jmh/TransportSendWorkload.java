@@ -0,0 +1,93 @@
+import benchmarks.Workload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends a burst of MOVE messages to a local sink and waits until the sink has read all of them,
+ * so the next burst starts from an empty queue, as in a real session. The sink accepts one
+ * connection and discards everything it reads. Subclasses pick the way of sending.
+ */
+public abstract class TransportSendWorkload implements Workload {
+
+    /**
+     * The message sent over and over, without a line terminator.
+     */
+    static final String MESSAGE = "MOVE;3;4";
+
+    private final ServerSocket server;
+    private final AtomicLong received = new AtomicLong();
+    private final int burst;
+    private long expected;
+
+    protected TransportSendWorkload(int burst) throws IOException {
+        this.burst = burst;
+        server = new ServerSocket(0);
+        Thread sink = new Thread(this::discard, "transport-benchmark-sink");
+        sink.setDaemon(true);
+        sink.start();
+    }
+
+    /**
+     * Gets the port of the sink to connect to.
+     */
+    protected int port() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Sends one message.
+     */
+    protected abstract void send(String message);
+
+    /**
+     * Gets the number of bytes one message takes on the wire.
+     */
+    protected abstract int bytesPerMessage();
+
+    /**
+     * Closes the sending side.
+     */
+    protected abstract void closeSender() throws IOException;
+
+    @Override
+    public Object run() {
+        for (int i = 0; i < burst; i++) {
+            send(MESSAGE);
+        }
+        expected += (long) burst * bytesPerMessage();
+        while (received.get() < expected) {
+            Thread.onSpinWait();
+        }
+        return received;
+    }
+
+    @Override
+    public void close() {
+        try {
+            closeSender();
+            server.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Accepts one connection and counts the bytes read from it.
+     */
+    private void discard() {
+        byte[] buffer = new byte[65536];
+        try (Socket socket = server.accept(); InputStream in = socket.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                received.addAndGet(read);
+            }
+        } catch (IOException e) {
+            // The sender closed the connection
+        }
+    }
+}
@@ -0,0 +1,20 @@
+import benchmarks.Workload;
+
+/**
+ * Applies a mid-game board snapshot as received in RECONNECT through {@link GameModel#updateBoard(String)}.
+ */
+public class UpdateBoardWorkload implements Workload {
+    private final GameModel model;
+    private final String snapshot;
+
+    public UpdateBoardWorkload(int size) {
+        model = BenchmarkGames.newModel(size);
+        snapshot = BenchmarkGames.midGameSnapshot(size, 42);
+    }
+
+    @Override
+    public Object run() {
+        model.updateBoard(snapshot);
+        return model;
+    }
+}
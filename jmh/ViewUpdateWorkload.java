@@ -0,0 +1,46 @@
+import benchmarks.Workload;
+
+import javax.swing.SwingUtilities;
+import java.awt.GraphicsEnvironment;
+
+/**
+ * Runs {@link GameView#updateBoard} on a mid-game position on the EDT, like the client does.
+ * Needs a display; on headless machines the workload fails while being created.
+ */
+public class ViewUpdateWorkload implements Workload {
+
+    private GameController controller;
+    private GameView view;
+    private GameModel model;
+
+    public ViewUpdateWorkload(int size) throws Exception {
+        if (GraphicsEnvironment.isHeadless()) {
+            throw new IllegalStateException("GameView benchmarks need a display");
+        }
+        controller = new GameController();
+        model = controller.getModel();
+        model.setLocalPlayer(new Player("local", 'R'));
+        model.setRemotePlayer("remote", 'B');
+        model.setBoardSize(size);
+        model.updateBoard(BenchmarkGames.midGameSnapshot(size, 42));
+        SwingUtilities.invokeAndWait(() -> {
+            view = new GameView(controller);
+            view.initializeBoard();
+        });
+    }
+
+    @Override
+    public void close() {
+        SwingUtilities.invokeLater(() -> view.dispose());
+    }
+
+    @Override
+    public Object run() {
+        try {
+            SwingUtilities.invokeAndWait(() -> view.updateBoard(model, true));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return view;
+    }
+}
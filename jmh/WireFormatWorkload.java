@@ -0,0 +1,173 @@
+import benchmarks.Workload;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns a received stream of server messages into parsed fields, in either the text protocol or
+ * the negotiated {@link BinaryProtocol} framing. The stream holds {@link #MESSAGE_COUNT} messages,
+ * mostly pings and moves, fed in reads of the transport's buffer size.
+ * <p>
+ * The text path decodes the bytes into a {@link LineFramer} and parses with a
+ * {@link MessageTokenizer}, as {@link NioTransport} does outside the framing negotiation; the
+ * binary path runs a {@link BinaryFramer} and reads the varint fields straight from the buffer,
+ * text frames included.
+ */
+public class WireFormatWorkload implements Workload {
+
+    /**
+     * Number of copies of the message mix in the received stream.
+     */
+    private static final int COPIES = 64;
+
+    /**
+     * Number of messages in the received stream.
+     */
+    public static final int MESSAGE_COUNT = 16 * COPIES;
+
+    /**
+     * Size of one simulated read, the size of the transport's read buffer.
+     */
+    private static final int READ_SIZE = 8192;
+
+    private final boolean binary;
+    private final byte[] stream;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(READ_SIZE);
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+    private final TextListener listener;
+    private long sink;
+
+    public WireFormatWorkload(int size, String format) {
+        switch (format) {
+            case "text":
+                binary = false;
+                listener = new TextListener();
+                break;
+            case "binary":
+                binary = true;
+                listener = new FrameListener();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown wire format " + format);
+        }
+        String board = " ".repeat(size * size - 4) + "RBBR";
+        String[] messages = {
+                "PING", "OPP_MOVE;2;3", "MOVE;0;1;3", "PING", "OPP_MOVE;0;1", "MOVE;7",
+                "PING", "MOVE;0;3;3", "OPP_MOVE;3;2", "START_GAME;Player123;B;1;" + size,
+                "GAME_STATUS;Player123", "RECONNECT;" + board + ";Player123;Player9;R",
+                "PING", "OPP_MOVE;1;1", "MOVE;0;0;2", "JOIN_GAME;R"
+        };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int copy = 0; copy < COPIES; copy++) {
+            for (String message : messages) {
+                if (binary) {
+                    ByteBuffer frame = encodeFrame(message);
+                    out.write(frame.array(), frame.position(), frame.remaining());
+                } else {
+                    out.writeBytes((message + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+        stream = out.toByteArray();
+    }
+
+    @Override
+    public Object run() {
+        try {
+            for (int offset = 0; offset < stream.length; ) {
+                int count = Math.min(buffer.remaining(), stream.length - offset);
+                buffer.put(stream, offset, count);
+                offset += count;
+                buffer.flip();
+                if (binary) {
+                    listener.frames.drain(buffer, listener);
+                } else {
+                    CoderResult result;
+                    do {
+                        result = decoder.decode(buffer, listener.lines.buffer(), false);
+                        listener.lines.drain(listener);
+                    } while (result.isOverflow());
+                }
+                buffer.compact();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Malformed benchmark stream", e);
+        }
+        return sink;
+    }
+
+    @Override
+    public int wireBytes() {
+        return stream.length;
+    }
+
+    /**
+     * Encodes one message of the mix with the frame the server would choose.
+     */
+    private static ByteBuffer encodeFrame(String message) {
+        String[] parts = message.split(";");
+        switch (parts[0]) {
+            case "PING":
+                return BinaryProtocol.frame(BinaryProtocol.OP_PING);
+            case "OPP_MOVE":
+                return BinaryProtocol.frame(BinaryProtocol.OP_OPP_MOVE,
+                        Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            case "MOVE":
+                return parts.length == 2
+                        ? BinaryProtocol.frame(BinaryProtocol.OP_MOVE_RESULT, Integer.parseInt(parts[1]))
+                        : BinaryProtocol.frame(BinaryProtocol.OP_MOVE_RESULT, Integer.parseInt(parts[1]),
+                        Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+            default:
+                return BinaryProtocol.text(message);
+        }
+    }
+
+    /**
+     * Parses lines with the tokenizer, reading the fields the client handlers read.
+     */
+    private class TextListener implements ClientTransport.Listener {
+        private final MessageTokenizer tokenizer = new MessageTokenizer();
+        private final LineFramer lines = new LineFramer();
+        private final BinaryFramer frames = new BinaryFramer();
+
+        @Override
+        public void onLine(char[] chars, int offset, int count) {
+            tokenizer.reset(chars, offset, count);
+            ServerCommand command = ServerCommand.read(tokenizer);
+            if (command == ServerCommand.OPP_MOVE) {
+                sink += tokenizer.nextInt() + tokenizer.nextInt();
+            } else if (command == ServerCommand.MOVE) {
+                int status = tokenizer.nextInt();
+                sink += NetworkClient.isUnacceptableMove(status) ? status : tokenizer.nextInt() + tokenizer.nextInt();
+            } else {
+                sink += count;
+            }
+        }
+
+        @Override
+        public void onDisconnect(IOException cause) {
+        }
+    }
+
+    /**
+     * Reads the fields of binary frames; text frames go through the tokenizer.
+     */
+    private final class FrameListener extends TextListener {
+        @Override
+        public void onFrame(int opcode, ByteBuffer payload) {
+            if (opcode == BinaryProtocol.OP_OPP_MOVE) {
+                sink += BinaryProtocol.getInt(payload) + BinaryProtocol.getInt(payload);
+            } else if (opcode == BinaryProtocol.OP_MOVE_RESULT) {
+                int status = BinaryProtocol.getInt(payload);
+                sink += NetworkClient.isUnacceptableMove(status)
+                        ? status : BinaryProtocol.getInt(payload) + BinaryProtocol.getInt(payload);
+            } else {
+                sink += opcode;
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Average time to show one move of a random legal game, rendered headless into an 800x800 image:
+ * the original grid of JButtons repainted as a whole against BoardComponent repainting only the
+ * changed cells. Both include the same GameModel.placeStoneAndUpdate call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class BoardRenderBenchmarks {
+
+    @Param({"8", "64"})
+    public int size;
+
+    private Workload buttonGrid;
+    private Workload boardComponent;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        buttonGrid = Workload.create("ButtonGridRenderWorkload", size);
+        boardComponent = Workload.create("BoardComponentRenderWorkload", size);
+    }
+
+    @Benchmark
+    public Object buttonGrid() {
+        return buttonGrid.run();
+    }
+
+    @Benchmark
+    public Object boardComponent() {
+        return boardComponent.run();
+    }
+}
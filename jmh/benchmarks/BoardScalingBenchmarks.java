@@ -0,0 +1,58 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Average time of a stone placement and of a full-board synchronisation from the smallest board
+ * to the packed large boards. The placement score includes restoring the board once per 1024
+ * stones; the synchronisation score divided by size * size is the cost per cell. See
+ * PlaceRandomStonesWorkload and SyncRandomBoardWorkload.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardScalingBenchmarks {
+
+    @Param({"4", "8", "16", "64", "256", "1024"})
+    public int size;
+
+    private Workload placeStones;
+    private Workload syncBoard;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        placeStones = Workload.create("PlaceRandomStonesWorkload", size);
+        syncBoard = Workload.create("SyncRandomBoardWorkload", size);
+    }
+
+    /**
+     * Places 1024 stones, see PlaceRandomStonesWorkload.MOVES.
+     */
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public Object placeStone() {
+        return placeStones.run();
+    }
+
+    @Benchmark
+    public Object syncBoard() {
+        return syncBoard.run();
+    }
+}
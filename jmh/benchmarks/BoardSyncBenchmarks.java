@@ -0,0 +1,51 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Average time of applying a RECONNECT board field with GameModel.applySync, for the plain
+ * board, the compact snapshot and deltas of one and four moves; the bytes counter divided by
+ * messages is the length of the RECONNECT line. See BoardSyncWorkload.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardSyncBenchmarks {
+
+    @Param({"4", "8", "16"})
+    public int size;
+
+    @Param({"plain", "snapshot", "delta1", "delta4"})
+    public String form;
+
+    private Workload sync;
+    private int wireBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sync = Workload.create("BoardSyncWorkload", size, form);
+        wireBytes = sync.wireBytes();
+    }
+
+    @Benchmark
+    public Object applySync(WireBytes counters) {
+        counters.count(1, wireBytes);
+        return sync.run();
+    }
+}
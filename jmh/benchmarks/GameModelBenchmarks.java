@@ -0,0 +1,59 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of GameModel.placeStoneAndUpdate (a whole random legal game per operation),
+ * the same game on the original char-grid algorithm as a baseline, and
+ * GameModel.updateBoard(String) (a mid-game RECONNECT snapshot per operation).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameModelBenchmarks {
+
+    @Param({"4", "8", "16"})
+    public int size;
+
+    private Workload replayGame;
+    private Workload replayCharGrid;
+    private Workload updateBoard;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        replayGame = Workload.create("ReplayGameWorkload", size);
+        replayCharGrid = Workload.create("CharGridReplayWorkload", size);
+        updateBoard = Workload.create("UpdateBoardWorkload", size);
+    }
+
+    @Benchmark
+    public Object replayGame() {
+        return replayGame.run();
+    }
+
+    @Benchmark
+    public Object replayCharGrid() {
+        return replayCharGrid.run();
+    }
+
+    @Benchmark
+    public Object updateBoard() {
+        return updateBoard.run();
+    }
+}
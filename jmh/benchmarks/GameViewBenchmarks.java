@@ -0,0 +1,49 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of GameView.updateBoard on the EDT. Needs a display.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameViewBenchmarks {
+
+    @Param({"4", "8"})
+    public int size;
+
+    private Workload viewUpdate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        viewUpdate = Workload.create("ViewUpdateWorkload", size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        viewUpdate.close();
+    }
+
+    @Benchmark
+    public Object updateBoard() {
+        return viewUpdate.run();
+    }
+}
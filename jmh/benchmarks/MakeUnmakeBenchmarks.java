@@ -0,0 +1,55 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Average time of walking the game tree from the start position to a fixed depth (6 plies on
+ * 8x8, a bitboard, and 4 on 12x12, a packed board): make/unmake on one model against copying the
+ * board at every node. Run with -prof gc to compare the allocation per walk.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MakeUnmakeBenchmarks {
+
+    @Param({"8", "12"})
+    public int size;
+
+    private Workload makeUnmake;
+    private Workload copy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        makeUnmake = Workload.create("MakeUnmakeWalkWorkload", size);
+        copy = Workload.create("CopyWalkWorkload", size);
+        if (!makeUnmake.run().equals(copy.run())) {
+            throw new IllegalStateException("The walkers count different leaves");
+        }
+    }
+
+    @Benchmark
+    public Object makeUnmake() {
+        return makeUnmake.run();
+    }
+
+    @Benchmark
+    public Object copy() {
+        return copy.run();
+    }
+}
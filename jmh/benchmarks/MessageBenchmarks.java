@@ -0,0 +1,75 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of NetworkClient.interpretServerMessage over a recorded game transcript, and of
+ * parsing and dispatching a message mix with the original split-and-HashMap handling against
+ * the tokenizer and dispatch table; the score is messages per microsecond.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageBenchmarks {
+
+    @Param({"4", "8"})
+    public int size;
+
+    private Workload interpretMessages;
+    private Workload parseLegacy;
+    private Workload parseTokenizer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        interpretMessages = Workload.create("InterpretMessagesWorkload", size);
+        parseLegacy = Workload.create("LegacyParseWorkload", size);
+        parseTokenizer = Workload.create("TokenizerParseWorkload", size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        interpretMessages.close();
+    }
+
+    /**
+     * The transcript holds 19 messages, see InterpretMessagesWorkload.TRANSCRIPT_LENGTH.
+     */
+    @Benchmark
+    @OperationsPerInvocation(19)
+    public Object interpretServerMessage() {
+        return interpretMessages.run();
+    }
+
+    /**
+     * The mix holds 16 messages, see ParseMessagesWorkload.MESSAGE_COUNT.
+     */
+    @Benchmark
+    @OperationsPerInvocation(16)
+    public Object parseLegacy() {
+        return parseLegacy.run();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(16)
+    public Object parseTokenizer() {
+        return parseTokenizer.run();
+    }
+}
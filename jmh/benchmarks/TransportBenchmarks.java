@@ -0,0 +1,114 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of sending MOVE messages over loopback in bursts of 32, about what a bot sends
+ * during a short game; the score is messages per millisecond. The secondary counters are the
+ * totals over all measured iterations: writeSyscalls, taken from syscw in /proc/self/io and so
+ * only counted on Linux, divided by messages gives the write system calls per message.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TransportBenchmarks {
+
+    /**
+     * Messages per burst, see the OperationsPerInvocation of send().
+     */
+    private static final int BURST = 32;
+
+    @Param({"PrintWriterSendWorkload", "SocketTransportSendWorkload", "NioTransportSendWorkload"})
+    public String transport;
+
+    private Workload send;
+
+    /**
+     * Write system calls and messages sent, counted per iteration and summed by JMH.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Syscalls {
+        private static final Path PROC_IO = Paths.get("/proc/self/io");
+
+        public long writeSyscalls;
+        public long messages;
+
+        private long writesBefore;
+
+        @Setup(Level.Iteration)
+        public void start() {
+            messages = 0;
+            writeSyscalls = 0;
+            writesBefore = readWrites();
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop() {
+            long writesAfter = readWrites();
+            if (writesBefore >= 0) {
+                writeSyscalls = writesAfter - writesBefore;
+            }
+        }
+
+        /**
+         * Reads syscw, -1 where /proc/self/io does not exist.
+         */
+        private static long readWrites() {
+            if (!Files.isReadable(PROC_IO)) {
+                return -1;
+            }
+            try {
+                for (String line : Files.readAllLines(PROC_IO)) {
+                    if (line.startsWith("syscw:")) {
+                        return Long.parseLong(line.substring("syscw:".length()).trim());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return -1;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        send = Workload.create(transport, BURST);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        send.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public Object send(Syscalls syscalls) {
+        syscalls.messages += BURST;
+        return send.run();
+    }
+}
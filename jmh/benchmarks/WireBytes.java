@@ -0,0 +1,34 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary counters of the message format benchmarks: the messages handled and the bytes they
+ * take on the wire. JMH sums them over the measured iterations, so bytes divided by messages is
+ * the size of one message.
+ */
+@AuxCounters(AuxCounters.Type.EVENTS)
+@State(Scope.Thread)
+public class WireBytes {
+
+    public long messages;
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        messages = 0;
+        bytes = 0;
+    }
+
+    /**
+     * Counts the messages of one run of a workload.
+     */
+    void count(int messageCount, int wireBytes) {
+        messages += messageCount;
+        bytes += wireBytes;
+    }
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse throughput of received server messages in the text protocol and the binary framing;
+ * the score is messages per microsecond and the bytes counter divided by messages is the wire
+ * size of an average message. See WireFormatWorkload.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WireFormatBenchmarks {
+
+    @Param({"4", "8"})
+    public int size;
+
+    @Param({"text", "binary"})
+    public String format;
+
+    private Workload parse;
+    private int wireBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        parse = Workload.create("WireFormatWorkload", size, format);
+        wireBytes = parse.wireBytes();
+    }
+
+    /**
+     * The stream holds 1024 messages, see WireFormatWorkload.MESSAGE_COUNT.
+     */
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public Object parse(WireBytes counters) {
+        counters.count(1024, wireBytes);
+        return parse.run();
+    }
+}
@@ -0,0 +1,67 @@
+package benchmarks;
+
+/**
+ * One measured operation of the client.
+ * <p>
+ * JMH refuses benchmark classes in the default package, and classes in a named package cannot
+ * reference the client, which lives in the default package. The client-side code of every
+ * benchmark is therefore a default-package class implementing this interface, loaded by name
+ * once per trial. The benchmark calls {@link #run()} through a monomorphic interface call,
+ * which the JIT inlines.
+ */
+public interface Workload {
+
+    /**
+     * Performs the measured operation once.
+     *
+     * @return A result that keeps the JIT from discarding the work.
+     */
+    Object run();
+
+    /**
+     * Gets the number of bytes one run puts on the wire, for workloads measuring a message format.
+     *
+     * @return The byte count, 0 if the workload sends nothing.
+     */
+    default int wireBytes() {
+        return 0;
+    }
+
+    /**
+     * Releases resources held by the workload.
+     */
+    default void close() {
+    }
+
+    /**
+     * Instantiates a default-package workload.
+     *
+     * @param className The simple name of the workload class.
+     * @param size      The board size to prepare.
+     * @return The prepared workload.
+     */
+    static Workload create(String className, int size) {
+        try {
+            return (Workload) Class.forName(className).getConstructor(int.class).newInstance(size);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create workload " + className, e);
+        }
+    }
+
+    /**
+     * Instantiates a default-package workload that comes in several variants.
+     *
+     * @param className The simple name of the workload class.
+     * @param size      The board size to prepare.
+     * @param variant   The variant, as understood by the workload.
+     * @return The prepared workload.
+     */
+    static Workload create(String className, int size, String variant) {
+        try {
+            return (Workload) Class.forName(className).getConstructor(int.class, String.class)
+                    .newInstance(size, variant);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create workload " + className + " " + variant, e);
+        }
+    }
+}
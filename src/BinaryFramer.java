@@ -0,0 +1,94 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits received bytes into {@link BinaryProtocol} frames, the binary counterpart of {@link LineFramer}.
+ * <p>
+ * Frames with their own opcode reach the listener as views of the receive buffer; text frames are
+ * decoded into a reusable character buffer and delivered as lines, so the listener's text handling
+ * stays the same.
+ */
+public final class BinaryFramer {
+
+    /**
+     * Decodes the payload of text frames.
+     */
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+
+    /**
+     * Holds the decoded text of the current text frame.
+     */
+    private CharBuffer text = CharBuffer.allocate(256);
+
+    /**
+     * Passes every complete frame to the listener. An unfinished frame stays in the buffer.
+     *
+     * @param buffer   The received bytes in read mode; afterwards positioned at the first unused byte.
+     * @param listener The receiver of the frames.
+     * @throws IOException If a frame is malformed.
+     */
+    public void drain(ByteBuffer buffer, ClientTransport.Listener listener) throws IOException {
+        int limit = buffer.limit();
+        while (buffer.hasRemaining()) {
+            int start = buffer.position();
+            int length;
+            try {
+                length = BinaryProtocol.tryGetVarint(buffer);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed frame length", e);
+            }
+            if (length < 0 || buffer.remaining() < length) {
+                // Wait for the rest of the frame
+                buffer.position(start);
+                return;
+            }
+            if (length == 0 || length > BinaryProtocol.MAX_FRAME_LENGTH) {
+                throw new IOException("Invalid frame length " + length);
+            }
+            int end = buffer.position() + length;
+            buffer.limit(end);
+            int opcode = buffer.get() & 0xFF;
+            try {
+                if (opcode == BinaryProtocol.OP_TEXT) {
+                    decodeText(buffer);
+                    listener.onLine(text.array(), 0, text.position());
+                } else {
+                    listener.onFrame(opcode, buffer);
+                }
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IOException("Malformed frame with opcode " + opcode, e);
+            }
+            buffer.limit(limit);
+            buffer.position(end);
+        }
+    }
+
+    /**
+     * Decodes the rest of the buffer into {@link #text}, growing it as needed.
+     */
+    private void decodeText(ByteBuffer payload) throws CharacterCodingException {
+        decoder.reset();
+        text.clear();
+        while (true) {
+            CoderResult result = decoder.decode(payload, text, true);
+            if (result.isUnderflow()) {
+                result = decoder.flush(text);
+            }
+            if (result.isUnderflow()) {
+                return;
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+            CharBuffer larger = CharBuffer.allocate(text.capacity() * 2);
+            text.flip();
+            larger.put(text);
+            text = larger;
+        }
+    }
+}
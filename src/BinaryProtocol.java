@@ -0,0 +1,335 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The binary framing negotiated with {@code LOGIN;name;...;BINARY}.
+ * <p>
+ * Every frame is a length prefix followed by that many bytes: a one-byte opcode and the fields.
+ * The length prefix is an unsigned varint (7 bits per byte, low group first, high bit set on all
+ * but the last byte); integer fields are zigzag encoded varints, so small values of either sign
+ * take one byte. The messages of the hot path have their own opcodes, every other message travels
+ * unchanged as UTF-8 text in a {@link #OP_TEXT} frame.
+ * <p>
+ * The server acknowledges with {@code LOGIN;name;BINARY}; both sides switch right after that
+ * line, servers that do not know the option answer with the plain LOGIN and the text protocol stays.
+ */
+public final class BinaryProtocol {
+
+    /**
+     * A text message without its line terminator.
+     */
+    public static final int OP_TEXT = 0;
+
+    /**
+     * A move of the client: x, y.
+     */
+    public static final int OP_MOVE = 1;
+
+    /**
+     * The answer to a move: status, then x and y if it was accepted.
+     */
+    public static final int OP_MOVE_RESULT = 2;
+
+    /**
+     * The move of the opponent: x, y.
+     */
+    public static final int OP_OPP_MOVE = 3;
+
+    /**
+     * A keep-alive request of the server, no fields.
+     */
+    public static final int OP_PING = 4;
+
+    /**
+     * The answer to a PING, no fields.
+     */
+    public static final int OP_PONG = 5;
+
+    /**
+     * Option of the LOGIN message requesting the binary framing, and its acknowledgement.
+     */
+    public static final String LOGIN_OPTION = "BINARY";
+
+    /**
+     * Largest accepted frame in bytes, protects the reader from corrupt length prefixes.
+     */
+    public static final int MAX_FRAME_LENGTH = 1 << 24;
+
+    /**
+     * Largest encoded size of a 32-bit varint.
+     */
+    private static final int MAX_VARINT_BYTES = 5;
+
+    /**
+     * Capacity of a buffer that holds any frame with up to three integer fields.
+     */
+    public static final int FIELD_FRAME_BYTES = 2 + 3 * MAX_VARINT_BYTES;
+
+    private BinaryProtocol() {
+    }
+
+    /**
+     * Encodes a frame without fields.
+     *
+     * @param opcode The opcode.
+     * @return The frame, ready to be written.
+     */
+    public static ByteBuffer frame(int opcode) {
+        return frame(ByteBuffer.allocate(FIELD_FRAME_BYTES), opcode);
+    }
+
+    /**
+     * Encodes a frame without fields into a reused buffer.
+     *
+     * @param into   A buffer of at least {@link #FIELD_FRAME_BYTES}; its content is replaced.
+     * @param opcode The opcode.
+     * @return The buffer holding the frame, ready to be written.
+     */
+    public static ByteBuffer frame(ByteBuffer into, int opcode) {
+        return start(into, opcode, 1).flip();
+    }
+
+    /**
+     * Encodes a frame with one integer field.
+     *
+     * @param opcode The opcode.
+     * @param a      The field.
+     * @return The frame, ready to be written.
+     */
+    public static ByteBuffer frame(int opcode, int a) {
+        return frame(ByteBuffer.allocate(FIELD_FRAME_BYTES), opcode, a);
+    }
+
+    /**
+     * Encodes a frame with one integer field into a reused buffer.
+     *
+     * @param into   A buffer of at least {@link #FIELD_FRAME_BYTES}; its content is replaced.
+     * @param opcode The opcode.
+     * @param a      The field.
+     * @return The buffer holding the frame, ready to be written.
+     */
+    public static ByteBuffer frame(ByteBuffer into, int opcode, int a) {
+        ByteBuffer frame = start(into, opcode, 1 + intSize(a));
+        putInt(frame, a);
+        return frame.flip();
+    }
+
+    /**
+     * Encodes a frame with two integer fields.
+     *
+     * @param opcode The opcode.
+     * @param a      The first field.
+     * @param b      The second field.
+     * @return The frame, ready to be written.
+     */
+    public static ByteBuffer frame(int opcode, int a, int b) {
+        return frame(ByteBuffer.allocate(FIELD_FRAME_BYTES), opcode, a, b);
+    }
+
+    /**
+     * Encodes a frame with two integer fields into a reused buffer.
+     *
+     * @param into   A buffer of at least {@link #FIELD_FRAME_BYTES}; its content is replaced.
+     * @param opcode The opcode.
+     * @param a      The first field.
+     * @param b      The second field.
+     * @return The buffer holding the frame, ready to be written.
+     */
+    public static ByteBuffer frame(ByteBuffer into, int opcode, int a, int b) {
+        ByteBuffer frame = start(into, opcode, 1 + intSize(a) + intSize(b));
+        putInt(frame, a);
+        putInt(frame, b);
+        return frame.flip();
+    }
+
+    /**
+     * Encodes a frame with three integer fields.
+     *
+     * @param opcode The opcode.
+     * @param a      The first field.
+     * @param b      The second field.
+     * @param c      The third field.
+     * @return The frame, ready to be written.
+     */
+    public static ByteBuffer frame(int opcode, int a, int b, int c) {
+        return frame(ByteBuffer.allocate(FIELD_FRAME_BYTES), opcode, a, b, c);
+    }
+
+    /**
+     * Encodes a frame with three integer fields into a reused buffer.
+     *
+     * @param into   A buffer of at least {@link #FIELD_FRAME_BYTES}; its content is replaced.
+     * @param opcode The opcode.
+     * @param a      The first field.
+     * @param b      The second field.
+     * @param c      The third field.
+     * @return The buffer holding the frame, ready to be written.
+     */
+    public static ByteBuffer frame(ByteBuffer into, int opcode, int a, int b, int c) {
+        ByteBuffer frame = start(into, opcode, 1 + intSize(a) + intSize(b) + intSize(c));
+        putInt(frame, a);
+        putInt(frame, b);
+        putInt(frame, c);
+        return frame.flip();
+    }
+
+    /**
+     * Encodes a text message as a {@link #OP_TEXT} frame.
+     *
+     * @param message The message without a line terminator.
+     * @return The frame, ready to be written.
+     */
+    public static ByteBuffer text(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = start(ByteBuffer.allocate(varintSize(1 + bytes.length) + 1 + bytes.length),
+                OP_TEXT, 1 + bytes.length);
+        frame.put(bytes);
+        return frame.flip();
+    }
+
+    /**
+     * Converts the payload of a frame back to the equivalent text message, for receivers that
+     * only understand lines.
+     *
+     * @param opcode  The opcode of the frame.
+     * @param payload The fields, from the position to the limit.
+     * @return The text message without a line terminator.
+     */
+    public static String toText(int opcode, ByteBuffer payload) {
+        StringBuilder line = new StringBuilder();
+        switch (opcode) {
+            case OP_MOVE:
+            case OP_MOVE_RESULT:
+                line.append("MOVE");
+                break;
+            case OP_OPP_MOVE:
+                line.append("OPP_MOVE");
+                break;
+            case OP_PING:
+                return "PING";
+            case OP_PONG:
+                return "PONG;";
+            default:
+                throw new IllegalArgumentException("Unknown opcode " + opcode);
+        }
+        while (payload.hasRemaining()) {
+            line.append(MessageTokenizer.SEPARATOR).append(getInt(payload));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Clears a frame buffer and writes the length prefix and the opcode.
+     *
+     * @param frame  The buffer, large enough for the frame.
+     * @param opcode The opcode.
+     * @param length The length of the opcode and the fields in bytes.
+     * @return The buffer positioned after the opcode.
+     */
+    private static ByteBuffer start(ByteBuffer frame, int opcode, int length) {
+        frame.clear();
+        putVarint(frame, length);
+        frame.put((byte) opcode);
+        return frame;
+    }
+
+    /**
+     * Writes an unsigned varint.
+     *
+     * @param buffer The buffer to write to.
+     * @param value  The value, treated as unsigned.
+     */
+    public static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @param buffer The buffer to read from.
+     * @return The value.
+     * @throws IllegalArgumentException If the varint is longer than five bytes.
+     */
+    public static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 7 * MAX_VARINT_BYTES; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    /**
+     * Reads an unsigned varint that may not have arrived completely.
+     *
+     * @param buffer The buffer to read from; its position is only moved if the varint is complete.
+     * @return The value, or -1 if more bytes are needed.
+     * @throws IllegalArgumentException If the varint is longer than five bytes or negative.
+     */
+    public static int tryGetVarint(ByteBuffer buffer) {
+        int position = buffer.position();
+        int value = 0;
+        for (int i = 0; i < MAX_VARINT_BYTES; i++) {
+            if (position + i >= buffer.limit()) {
+                return -1;
+            }
+            byte b = buffer.get(position + i);
+            value |= (b & 0x7F) << (7 * i);
+            if (b >= 0) {
+                if (value < 0) {
+                    throw new IllegalArgumentException("Negative length");
+                }
+                buffer.position(position + i + 1);
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    /**
+     * Writes a signed integer as a zigzag varint.
+     *
+     * @param buffer The buffer to write to.
+     * @param value  The value.
+     */
+    public static void putInt(ByteBuffer buffer, int value) {
+        putVarint(buffer, (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Reads a signed integer written by {@link #putInt(ByteBuffer, int)}.
+     *
+     * @param buffer The buffer to read from.
+     * @return The value.
+     */
+    public static int getInt(ByteBuffer buffer) {
+        int raw = getVarint(buffer);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    /**
+     * Gets the encoded size of an unsigned varint.
+     */
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Gets the encoded size of a zigzag varint.
+     */
+    private static int intSize(int value) {
+        return varintSize((value << 1) ^ (value >> 31));
+    }
+}
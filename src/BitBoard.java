@@ -0,0 +1,305 @@
+/**
+ * Bitboard storage for Reversi boards up to 8x8.
+ * <p>
+ * Every colour is kept as one {@code long} mask where the cell (x, y) maps to bit {@code y * 8 + x}.
+ * Smaller boards use the same stride and are clipped by a mask of valid cells, so the flip
+ * computation is a handful of shifts and ANDs per direction and never allocates.
+ */
+public final class BitBoard implements Board {
+
+    /**
+     * The largest board side that fits into a single {@code long} mask.
+     */
+    public static final int MAX_SIZE = 8;
+
+    /**
+     * Every cell except the ones in column 0 (guards against wrapping when moving right).
+     */
+    private static final long NOT_FIRST_COLUMN = 0xFEFEFEFEFEFEFEFEL;
+
+    /**
+     * Every cell except the ones in column 7 (guards against wrapping when moving left).
+     */
+    private static final long NOT_LAST_COLUMN = 0x7F7F7F7F7F7F7F7FL;
+
+    /**
+     * Bit shifts of the eight directions; positive values shift left, negative shift right.
+     */
+    private static final int[] DIRECTION_SHIFTS = {1, -1, 8, -8, 9, 7, -7, -9};
+
+    /**
+     * Wrap-around masks paired with {@link #DIRECTION_SHIFTS}.
+     */
+    private static final long[] DIRECTION_MASKS = {
+            NOT_FIRST_COLUMN, NOT_LAST_COLUMN, -1L, -1L,
+            NOT_FIRST_COLUMN, NOT_LAST_COLUMN, NOT_FIRST_COLUMN, NOT_LAST_COLUMN
+    };
+
+    /**
+     * Side length of the board.
+     */
+    private final int size;
+
+    /**
+     * Mask of the cells that exist on a board of this size.
+     */
+    private final long validMask;
+
+    /**
+     * Stones of the red player.
+     */
+    private long redStones;
+
+    /**
+     * Stones of the blue player.
+     */
+    private long blueStones;
+
+    /**
+     * {@link Zobrist} hash of the stones.
+     */
+    private long hash;
+
+    /**
+     * Creates an empty bitboard.
+     *
+     * @param size The side length of the board, at most {@link #MAX_SIZE}.
+     */
+    public BitBoard(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Unsupported bitboard size: " + size);
+        }
+        this.size = size;
+        this.validMask = validMask(size);
+    }
+
+    /**
+     * Builds the mask of existing cells for a board of the given size.
+     *
+     * @param size The side length of the board.
+     * @return A mask with one bit set for every cell of the board.
+     */
+    public static long validMask(int size) {
+        long rowMask = (size == MAX_SIZE) ? 0xFFL : (1L << size) - 1;
+        long mask = 0L;
+        for (int row = 0; row < size; row++) {
+            mask |= rowMask << (row * MAX_SIZE);
+        }
+        return mask;
+    }
+
+    /**
+     * Converts board coordinates to a single-bit mask.
+     *
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return The mask of the cell.
+     */
+    public static long bit(int x, int y) {
+        return 1L << (y * MAX_SIZE + x);
+    }
+
+    /**
+     * Computes the stones flipped when a stone is placed on the given cell.
+     *
+     * @param own       Stones of the player making the move.
+     * @param opponent  Stones of the other player.
+     * @param move      Single-bit mask of the target cell.
+     * @param validMask Mask of the cells that exist on the board.
+     * @return The mask of opponent stones that change colour, zero if none do.
+     */
+    public static long computeFlips(long own, long opponent, long move, long validMask) {
+        long flips = 0L;
+        for (int dir = 0; dir < DIRECTION_SHIFTS.length; dir++) {
+            int shift = DIRECTION_SHIFTS[dir];
+            long wrapMask = DIRECTION_MASKS[dir] & validMask;
+            long line = 0L;
+            long cursor = shift(move, shift) & wrapMask;
+            while ((cursor & opponent) != 0) {
+                line |= cursor;
+                cursor = shift(cursor, shift) & wrapMask;
+            }
+            if ((cursor & own) != 0) {
+                flips |= line;
+            }
+        }
+        return flips;
+    }
+
+    /**
+     * Computes all cells where the player may place a stone.
+     *
+     * @param own       Stones of the player to move.
+     * @param opponent  Stones of the other player.
+     * @param validMask Mask of the cells that exist on the board.
+     * @return The mask of legal target cells.
+     */
+    public static long legalMoves(long own, long opponent, long validMask) {
+        long empty = validMask & ~(own | opponent);
+        long moves = 0L;
+        for (int dir = 0; dir < DIRECTION_SHIFTS.length; dir++) {
+            int shift = DIRECTION_SHIFTS[dir];
+            long wrapMask = DIRECTION_MASKS[dir] & validMask;
+
+            // Extend runs of opponent stones that start next to one of our stones
+            long run = shift(own, shift) & wrapMask & opponent;
+            for (int step = 2; step < MAX_SIZE; step++) {
+                run |= shift(run, shift) & wrapMask & opponent;
+            }
+            moves |= shift(run, shift) & wrapMask & empty;
+        }
+        return moves;
+    }
+
+    /**
+     * Shifts a mask by the given amount; positive values shift left, negative shift right.
+     *
+     * @param mask  The mask to shift.
+     * @param shift The signed shift distance.
+     * @return The shifted mask.
+     */
+    private static long shift(long mask, int shift) {
+        return shift > 0 ? mask << shift : mask >>> -shift;
+    }
+
+    /**
+     * Places a stone and flips the opponent's stones enclosed by it. A stone already on the cell
+     * is replaced, as on the other boards; such a move cannot be taken back with {@link #undoStone}.
+     *
+     * @param x     The x-coordinate of the move.
+     * @param y     The y-coordinate of the move.
+     * @param token The token of the player making the move ('R' or 'B').
+     * @return The mask of flipped stones.
+     */
+    public long placeStoneMask(int x, int y, char token) {
+        long move = bit(x, y);
+        boolean red = token == 'R';
+        long own = red ? redStones : blueStones;
+        long opponent = red ? blueStones : redStones;
+
+        if (((own | opponent) & move) != 0) {
+            // The server may overwrite a cell; the key of the replaced stone leaves the hash
+            hash ^= Zobrist.stone((own & move) != 0 ? token : red ? 'B' : 'R', Long.numberOfTrailingZeros(move));
+        }
+        long flips = computeFlips(own, opponent, move, validMask);
+        own |= move | flips;
+        opponent &= ~(move | flips);
+
+        redStones = red ? own : opponent;
+        blueStones = red ? opponent : own;
+        hash ^= Zobrist.move(red, move, flips);
+        return flips;
+    }
+
+    @Override
+    public int placeStone(int x, int y, char token) {
+        return Long.bitCount(placeStoneMask(x, y, token));
+    }
+
+    @Override
+    public int placeStone(int x, int y, char token, long[] record, int offset) {
+        long flips = placeStoneMask(x, y, token);
+        record[offset] = flips;
+        return Long.bitCount(flips);
+    }
+
+    @Override
+    public void undoStone(int x, int y, long[] record, int offset) {
+        long move = bit(x, y);
+        long flips = record[offset];
+        boolean red = (redStones & move) != 0;
+        if (red) {
+            redStones &= ~(move | flips);
+            blueStones |= flips;
+        } else {
+            blueStones &= ~(move | flips);
+            redStones |= flips;
+        }
+        hash ^= Zobrist.move(red, move, flips);
+    }
+
+    @Override
+    public boolean isLegalMove(int x, int y, char token) {
+        long move = bit(x, y);
+        if (((redStones | blueStones) & move) != 0) {
+            return false;
+        }
+        boolean red = token == 'R';
+        return computeFlips(red ? redStones : blueStones, red ? blueStones : redStones, move, validMask) != 0;
+    }
+
+    @Override
+    public int collectLegalMoves(char token, long[] cells) {
+        boolean red = token == 'R';
+        long moves = legalMoves(red ? redStones : blueStones, red ? blueStones : redStones, validMask);
+        long packed = 0L;
+        for (long rest = moves; rest != 0; rest &= rest - 1) {
+            int index = Long.numberOfTrailingZeros(rest);
+            packed |= 1L << ((index / MAX_SIZE) * size + index % MAX_SIZE);
+        }
+        cells[0] = packed;
+        return Long.bitCount(moves);
+    }
+
+    @Override
+    public char get(int x, int y) {
+        long cell = bit(x, y);
+        if ((redStones & cell) != 0) {
+            return 'R';
+        }
+        if ((blueStones & cell) != 0) {
+            return 'B';
+        }
+        return ' ';
+    }
+
+    @Override
+    public void set(int x, int y, char token) {
+        long cell = bit(x, y);
+        int index = y * MAX_SIZE + x;
+        hash ^= Zobrist.stone(get(x, y), index) ^ Zobrist.stone(token, index);
+        redStones &= ~cell;
+        blueStones &= ~cell;
+        if (token == 'R') {
+            redStones |= cell;
+        } else if (token == 'B') {
+            blueStones |= cell;
+        }
+    }
+
+    @Override
+    public void clear() {
+        redStones = 0L;
+        blueStones = 0L;
+        hash = 0L;
+    }
+
+    @Override
+    public long getHash() {
+        return hash;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the mask of cells that exist on this board.
+     *
+     * @return The valid-cell mask.
+     */
+    public long getValidMask() {
+        return validMask;
+    }
+
+    /**
+     * Gets the stones of the player with the given token.
+     *
+     * @param token 'R' or 'B'.
+     * @return The mask of the player's stones.
+     */
+    public long getStones(char token) {
+        return token == 'R' ? redStones : blueStones;
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Storage of the stones on a square Reversi board of any size.
+ * <p>
+ * Cells are addressed by (x, y) with x being the column and y the row. Tokens are 'R' and 'B',
+ * every other character stands for an empty cell.
+ */
+public interface Board {
+
+    /**
+     * Creates the most compact board implementation for the given size.
+     *
+     * @param size The side length of the board.
+     * @return A bitboard for sizes up to {@link BitBoard#MAX_SIZE}, a packed board otherwise.
+     */
+    static Board create(int size) {
+        return size <= BitBoard.MAX_SIZE ? new BitBoard(size) : new PackedBoard(size);
+    }
+
+    /**
+     * Gets the side length of the board.
+     *
+     * @return The board size.
+     */
+    int getSize();
+
+    /**
+     * Gets the token on the given cell.
+     *
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return 'R', 'B' or ' ' for an empty cell.
+     */
+    char get(int x, int y);
+
+    /**
+     * Puts the given token on the cell, replacing whatever was there.
+     *
+     * @param x     The x-coordinate.
+     * @param y     The y-coordinate.
+     * @param token 'R', 'B' or any other character for an empty cell.
+     */
+    void set(int x, int y, char token);
+
+    /**
+     * Removes all stones from the board.
+     */
+    void clear();
+
+    /**
+     * Gets the {@link Zobrist} hash of the stones, kept up to date by every change of the board.
+     *
+     * @return The hash, without the side to move.
+     */
+    long getHash();
+
+    /**
+     * Places a stone and flips the opponent's stones enclosed by it.
+     *
+     * @param x     The x-coordinate of the move.
+     * @param y     The y-coordinate of the move.
+     * @param token The token of the player making the move ('R' or 'B').
+     * @return The number of flipped stones.
+     */
+    int placeStone(int x, int y, char token);
+
+    /**
+     * Places a stone like {@link #placeStone(int, int, char)} and records the flipped stones,
+     * so that {@link #undoStone} can take the move back.
+     *
+     * @param x      The x-coordinate of the move.
+     * @param y      The y-coordinate of the move.
+     * @param token  The token of the player making the move ('R' or 'B').
+     * @param record Receives the flipped stones, {@link #getUndoRecordWords()} words from the offset on.
+     * @param offset The first word of the record.
+     * @return The number of flipped stones.
+     */
+    int placeStone(int x, int y, char token, long[] record, int offset);
+
+    /**
+     * Takes back the last move: removes its stone and gives the flipped stones back to the opponent.
+     * The board must not have changed since the move was placed.
+     *
+     * @param x      The x-coordinate of the move.
+     * @param y      The y-coordinate of the move.
+     * @param record The record filled by {@link #placeStone(int, int, char, long[], int)}.
+     * @param offset The first word of the record.
+     */
+    void undoStone(int x, int y, long[] record, int offset);
+
+    /**
+     * Gets the length of the record of one move.
+     *
+     * @return The number of words, one bit per cell.
+     */
+    default int getUndoRecordWords() {
+        return (getSize() * getSize() + 63) / 64;
+    }
+
+    /**
+     * Checks if the player may place a stone on the given cell, i.e. the cell is empty
+     * and the stone would flip at least one opponent stone.
+     *
+     * @param x     The x-coordinate of the move.
+     * @param y     The y-coordinate of the move.
+     * @param token The token of the player making the move ('R' or 'B').
+     * @return true if the move is legal.
+     */
+    boolean isLegalMove(int x, int y, char token);
+
+    /**
+     * Collects all legal moves of a player into a bit set indexed by {@code y * size + x}.
+     *
+     * @param token The token of the player to move.
+     * @param cells The bit set to fill, at least {@code (size * size + 63) / 64} words long.
+     * @return The number of legal moves.
+     */
+    int collectLegalMoves(char token, long[] cells);
+}
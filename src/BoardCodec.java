@@ -0,0 +1,254 @@
+/**
+ * Encodings of the board field of the RECONNECT message.
+ * <p>
+ * Three forms share the field, told apart by their first character:
+ * <ul>
+ *     <li>plain: one character per cell ('R', 'B' or ' '), the original format;</li>
+ *     <li>{@value #SNAPSHOT_PREFIX}: a compact snapshot, 2 bits per cell packed four to a byte
+ *     (row-major, first cell in the low bits) and base64 encoded;</li>
+ *     <li>{@value #DELTA_PREFIX}: the moves made since a sequence number the client reported,
+ *     written as {@code +<from>:R<cell>,B<cell>...} with cell = y * size + x.</li>
+ * </ul>
+ * Decoding writes straight into a {@link Board} without building intermediate strings.
+ */
+public final class BoardCodec {
+
+    /**
+     * First character of a compact snapshot.
+     */
+    public static final char SNAPSHOT_PREFIX = '~';
+
+    /**
+     * First character of a delta.
+     */
+    public static final char DELTA_PREFIX = '+';
+
+    /**
+     * Separates the start sequence of a delta from its moves.
+     */
+    private static final char DELTA_START_END = ':';
+
+    /**
+     * Separates the moves of a delta.
+     */
+    private static final char MOVE_SEPARATOR = ',';
+
+    /**
+     * The base64 alphabet (RFC 4648, without line breaks).
+     */
+    private static final char[] BASE64 =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    /**
+     * Maps characters back to their base64 value, -1 for characters outside the alphabet.
+     */
+    private static final byte[] BASE64_VALUES = new byte[128];
+
+    static {
+        java.util.Arrays.fill(BASE64_VALUES, (byte) -1);
+        for (int i = 0; i < BASE64.length; i++) {
+            BASE64_VALUES[BASE64[i]] = (byte) i;
+        }
+    }
+
+    private BoardCodec() {
+    }
+
+    /**
+     * Writes the board one character per cell.
+     *
+     * @param board The board to encode.
+     * @param out   The builder receiving the field.
+     */
+    public static void appendPlain(Board board, StringBuilder out) {
+        int size = board.getSize();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                out.append(board.get(x, y));
+            }
+        }
+    }
+
+    /**
+     * Writes the board as a compact snapshot.
+     *
+     * @param board The board to encode.
+     * @param out   The builder receiving the field.
+     */
+    public static void appendSnapshot(Board board, StringBuilder out) {
+        int size = board.getSize();
+        int cells = size * size;
+        out.append(SNAPSHOT_PREFIX);
+        for (int first = 0; first < cells; first += 12) {
+            // Three bytes of four cells each become four base64 characters
+            int group = 0;
+            for (int index = first; index < first + 12; index++) {
+                int code = index < cells ? cellCode(board.get(index % size, index / size)) : 0;
+                int offset = index - first;
+                group |= code << (16 - (offset / 4) * 8 + (offset % 4) * 2);
+            }
+            int bytes = Math.min(3, (cells - first + 3) / 4);
+            for (int i = 0; i < 4; i++) {
+                out.append(i <= bytes ? BASE64[(group >>> (18 - 6 * i)) & 63] : '=');
+            }
+        }
+    }
+
+    /**
+     * Writes the moves from the log between two sequence numbers as a delta.
+     *
+     * @param moveLog The moves of the game, see {@link #logEntry(int, char)}.
+     * @param from    The sequence number the receiver already knows.
+     * @param to      The current sequence number.
+     * @param out     The builder receiving the field.
+     */
+    public static void appendDelta(int[] moveLog, int from, int to, StringBuilder out) {
+        out.append(DELTA_PREFIX).append(from).append(DELTA_START_END);
+        for (int seq = from; seq < to; seq++) {
+            if (seq > from) {
+                out.append(MOVE_SEPARATOR);
+            }
+            int entry = moveLog[seq];
+            out.append((entry & 1) == 0 ? 'R' : 'B').append(entry >>> 1);
+        }
+    }
+
+    /**
+     * Packs a move into one entry of a move log.
+     *
+     * @param cell  The cell index, y * size + x.
+     * @param token The token of the player who moved.
+     * @return The log entry.
+     */
+    public static int logEntry(int cell, char token) {
+        return cell << 1 | (token == 'B' ? 1 : 0);
+    }
+
+    /**
+     * Derives the board size from the length of a compact snapshot field, prefix included.
+     * Unambiguous for boards of at least 2x2.
+     *
+     * @param field The snapshot field.
+     * @return The side length of the encoded board.
+     */
+    public static int snapshotSize(CharSequence field) {
+        int length = field.length() - 1;
+        int padding = 0;
+        while (padding < 2 && length > 0 && field.charAt(length - padding) == '=') {
+            padding++;
+        }
+        int bytes = length / 4 * 3 - padding;
+        // bytes * 4 lies between size^2 and size^2 + 3, which is below (size + 1)^2
+        return (int) Math.sqrt(bytes * 4.0);
+    }
+
+    /**
+     * Decodes a compact snapshot into a board of the matching size.
+     *
+     * @param field The snapshot field, prefix included.
+     * @param board The board to fill; its size must be {@link #snapshotSize(CharSequence)}.
+     */
+    public static void decodeSnapshot(CharSequence field, Board board) {
+        int size = board.getSize();
+        int cells = size * size;
+        int index = 0;
+        int x = 0;
+        int y = 0;
+        for (int pos = 1; pos + 4 <= field.length() && index < cells; pos += 4) {
+            int group = 0;
+            for (int i = 0; i < 4; i++) {
+                char c = field.charAt(pos + i);
+                group = group << 6 | (c == '=' ? 0 : base64Value(c));
+            }
+            for (int shift = 16; shift >= 0 && index < cells; shift -= 8) {
+                for (int bits = group >>> shift, i = 0; i < 4 && index < cells; i++, index++, bits >>>= 2) {
+                    board.set(x, y, cellToken(bits & 3));
+                    if (++x == size) {
+                        x = 0;
+                        y++;
+                    }
+                }
+            }
+        }
+        if (index < cells) {
+            throw new IllegalArgumentException("Snapshot too short for a board of size " + size);
+        }
+    }
+
+    /**
+     * Reads the sequence number a delta starts from.
+     *
+     * @param field The delta field, prefix included.
+     * @return The sequence number the delta applies to.
+     */
+    public static int deltaStart(CharSequence field) {
+        int value = 0;
+        for (int pos = 1; pos < field.length() && field.charAt(pos) != DELTA_START_END; pos++) {
+            value = value * 10 + digit(field.charAt(pos));
+        }
+        return value;
+    }
+
+    /**
+     * Replays the moves of a delta on the board through the regular stone placement.
+     *
+     * @param field The delta field, prefix included.
+     * @param model The model to apply the moves to.
+     * @return The number of moves applied.
+     */
+    public static int applyDelta(CharSequence field, GameModel model) {
+        int size = model.getBoardSize();
+        int pos = 1;
+        while (pos < field.length() && field.charAt(pos) != DELTA_START_END) {
+            pos++;
+        }
+        int moves = 0;
+        pos++;
+        while (pos < field.length()) {
+            char token = field.charAt(pos++);
+            int cell = 0;
+            while (pos < field.length() && field.charAt(pos) != MOVE_SEPARATOR) {
+                cell = cell * 10 + digit(field.charAt(pos++));
+            }
+            pos++;
+            model.placeStoneAndUpdate(cell % size, cell / size, token);
+            moves++;
+        }
+        return moves;
+    }
+
+    /**
+     * Converts a token to its 2-bit code.
+     */
+    private static int cellCode(char token) {
+        return token == 'R' ? 1 : token == 'B' ? 2 : 0;
+    }
+
+    /**
+     * Converts a 2-bit code back to its token.
+     */
+    private static char cellToken(int code) {
+        return code == 1 ? 'R' : code == 2 ? 'B' : ' ';
+    }
+
+    /**
+     * Looks up the value of a base64 character.
+     */
+    private static int base64Value(char c) {
+        int value = c < 128 ? BASE64_VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid snapshot character: " + c);
+        }
+        return value;
+    }
+
+    /**
+     * Converts a decimal digit.
+     */
+    private static int digit(char c) {
+        if (c < '0' || c > '9') {
+            throw new IllegalArgumentException("Invalid digit in delta: " + c);
+        }
+        return c - '0';
+    }
+}
@@ -0,0 +1,279 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * The Reversi board, painted as one component instead of a grid of buttons.
+ * <p>
+ * The component keeps a copy of the cells it shows. {@link #update} compares the model with it and
+ * repaints only the cells that changed, usually the placed stone, the flipped ones and the legal
+ * moves around them; Swing merges these requests into one repaint. Colours are constants, and
+ * every kind of cell (empty, legal move, red or blue stone) is drawn once into an opaque tile, so
+ * painting a cell is a single copy until the component is resized.
+ */
+public class BoardComponent extends JComponent {
+
+    /**
+     * Version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Colour of the red player's stones.
+     */
+    private static final Color RED_STONE = new Color(186, 0, 0);
+
+    /**
+     * Colour of the blue player's stones.
+     */
+    private static final Color BLUE_STONE = new Color(0, 0, 220);
+
+    /**
+     * Background of a cell the local player cannot play.
+     */
+    private static final Color EMPTY_CELL = Color.GRAY;
+
+    /**
+     * Background of a legal move of the local player.
+     */
+    private static final Color LEGAL_CELL = new Color(176, 176, 176);
+
+    /**
+     * Colour of the lines between the cells.
+     */
+    private static final Color GRID = Color.DARK_GRAY;
+
+    /**
+     * Share of the cell side covered by a stone.
+     */
+    private static final double STONE_SCALE = 0.8;
+
+    /**
+     * Receives the cells the user clicks.
+     */
+    public interface CellListener {
+        /**
+         * Called on the event dispatch thread when a cell was clicked.
+         *
+         * @param x The column of the cell.
+         * @param y The row of the cell.
+         */
+        void cellClicked(int x, int y);
+    }
+
+    /**
+     * Side length of the board in cells.
+     */
+    private int size;
+
+    /**
+     * The tokens shown, row by row.
+     */
+    private char[] cells = new char[0];
+
+    /**
+     * Cells shown as legal moves, row by row.
+     */
+    private boolean[] legal = new boolean[0];
+
+    /**
+     * Tile of an empty cell the local player cannot play.
+     */
+    private Image emptyTile;
+
+    /**
+     * Tile of a legal move.
+     */
+    private Image legalTile;
+
+    /**
+     * Tile of a cell holding a red stone.
+     */
+    private Image redTile;
+
+    /**
+     * Tile of a cell holding a blue stone.
+     */
+    private Image blueTile;
+
+    /**
+     * Width of the component the tiles were drawn for, 0 when they have to be drawn again.
+     */
+    private int tileWidth;
+
+    /**
+     * Height of the component the tiles were drawn for.
+     */
+    private int tileHeight;
+
+    /**
+     * Creates an empty board.
+     *
+     * @param listener Receives the clicked cells.
+     */
+    public BoardComponent(CellListener listener) {
+        setOpaque(true);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                if (size > 0 && e.getX() < getWidth() && e.getY() < getHeight()) {
+                    listener.cellClicked(cellAt(e.getX(), getWidth()), cellAt(e.getY(), getHeight()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Clears the board and changes its size for a new game.
+     *
+     * @param newSize The side length of the board.
+     */
+    public void reset(int newSize) {
+        int count = newSize * newSize;
+        if (count != cells.length) {
+            cells = new char[count];
+            legal = new boolean[count];
+            tileWidth = 0;
+        } else {
+            Arrays.fill(legal, false);
+        }
+        Arrays.fill(cells, ' ');
+        size = newSize;
+        repaint();
+    }
+
+    /**
+     * Takes over the stones and legal moves of the model and repaints the cells that changed.
+     *
+     * @param model       The model holding the current position.
+     * @param isClickable If true, the legal moves of the local player are highlighted.
+     * @return The number of cells repainted.
+     */
+    public int update(GameModel model, boolean isClickable) {
+        if (model.getBoardSize() != size) {
+            reset(model.getBoardSize());
+        }
+        char localChar = model.getLocalPlayer().getPlayerToken();
+        int changed = 0;
+        for (int row = 0, index = 0; row < size; row++) {
+            for (int col = 0; col < size; col++, index++) {
+                char cell = model.getCell(col, row);
+                boolean isLegal = isClickable && model.isLegalMove(col, row, localChar);
+                if (cell != cells[index] || isLegal != legal[index]) {
+                    cells[index] = cell;
+                    legal[index] = isLegal;
+                    repaintCell(col, row);
+                    changed++;
+                }
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int width = getWidth();
+        int height = getHeight();
+        if (size == 0 || width < size || height < size) {
+            g.setColor(EMPTY_CELL);
+            g.fillRect(0, 0, width, height);
+            return;
+        }
+        if (width != tileWidth || height != tileHeight) {
+            createTiles(width, height);
+        }
+
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, width, height);
+        }
+        int firstCol = cellAt(clip.x, width);
+        int lastCol = cellAt(Math.min(width - 1, clip.x + clip.width), width);
+        int firstRow = cellAt(clip.y, height);
+        int lastRow = cellAt(Math.min(height - 1, clip.y + clip.height), height);
+        for (int row = firstRow; row <= lastRow; row++) {
+            int top = cellStart(row, height);
+            int cellHeight = cellStart(row + 1, height) - top;
+            for (int col = firstCol; col <= lastCol; col++) {
+                int left = cellStart(col, width);
+                int cellWidth = cellStart(col + 1, width) - left;
+                int index = row * size + col;
+                Image tile = cells[index] == 'R' ? redTile
+                        : cells[index] == 'B' ? blueTile
+                        : legal[index] ? legalTile : emptyTile;
+                // Cells differ by a pixel where the size does not divide the extent, the tile is cut
+                g.drawImage(tile, left, top, left + cellWidth, top + cellHeight,
+                        0, 0, cellWidth, cellHeight, null);
+            }
+        }
+    }
+
+    /**
+     * Draws the tiles for the cell size of the given component size.
+     */
+    private void createTiles(int width, int height) {
+        int cellWidth = (width + size - 1) / size;
+        int cellHeight = (height + size - 1) / size;
+        int diameter = Math.max(1, (int) (Math.min(width / size, height / size) * STONE_SCALE));
+        emptyTile = drawTile(cellWidth, cellHeight, EMPTY_CELL, null, diameter);
+        legalTile = drawTile(cellWidth, cellHeight, LEGAL_CELL, null, diameter);
+        redTile = drawTile(cellWidth, cellHeight, EMPTY_CELL, RED_STONE, diameter);
+        blueTile = drawTile(cellWidth, cellHeight, EMPTY_CELL, BLUE_STONE, diameter);
+        tileWidth = width;
+        tileHeight = height;
+    }
+
+    /**
+     * Draws one kind of cell into a new opaque image.
+     */
+    private Image drawTile(int width, int height, Color background, Color stone, int diameter) {
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        Image image = configuration != null
+                ? configuration.createCompatibleImage(width, height)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = (Graphics2D) image.getGraphics();
+        g.setColor(background);
+        g.fillRect(0, 0, width, height);
+        g.setColor(GRID);
+        g.drawRect(0, 0, width - 1, height - 1);
+        if (stone != null) {
+            int left = (width - diameter) / 2;
+            int top = (height - diameter) / 2;
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(stone);
+            g.fillOval(left, top, diameter - 1, diameter - 1);
+            g.setColor(stone.darker());
+            g.drawOval(left, top, diameter - 1, diameter - 1);
+        }
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Requests a repaint of a single cell.
+     */
+    private void repaintCell(int col, int row) {
+        int width = getWidth();
+        int height = getHeight();
+        int left = cellStart(col, width);
+        int top = cellStart(row, height);
+        repaint(left, top, cellStart(col + 1, width) - left, cellStart(row + 1, height) - top);
+    }
+
+    /**
+     * Gets the first pixel of a column or row.
+     */
+    private int cellStart(int cell, int extent) {
+        return cell * extent / size;
+    }
+
+    /**
+     * Gets the column or row containing a pixel.
+     */
+    private int cellAt(int pixel, int extent) {
+        return Math.max(0, Math.min(size - 1, pixel * size / extent));
+    }
+}
@@ -0,0 +1,493 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A headless scripted player. It logs in, joins games, answers with random legal moves
+ * and joins the next game as soon as one ends, until it is stopped.
+ * <p>
+ * The callbacks arrive on the transport's I/O thread, which the whole swarm shares. They only
+ * queue the event; the game logic, the move choice and the game log writes run one event at a
+ * time on the bot's executor, so a slow disk or search never stalls the sockets.
+ */
+public class BotPlayer implements ClientController {
+
+    /**
+     * Number of rejected moves in a row after which the bot stops resyncing and waits for the server.
+     */
+    private static final int MAX_REJECTED_MOVES = 3;
+
+    /**
+     * The model of the game the bot is playing.
+     */
+    private final GameModel model = new GameModel();
+
+    /**
+     * The login name, padded like the names sent by the Swing client.
+     */
+    private final String name;
+
+    /**
+     * Source of the move choices.
+     */
+    private final Random random;
+
+    /**
+     * Aggregated results of the whole swarm.
+     */
+    private final BotSwarm.Stats stats;
+
+    /**
+     * Engine choosing the moves, null to play random legal moves.
+     */
+    private SearchEngine engine;
+
+    /**
+     * Time budget of one engine search in milliseconds.
+     */
+    private long thinkMillis;
+
+    /**
+     * Asks the server for the binary framing at login.
+     */
+    private boolean binaryFraming;
+
+    /**
+     * Log the finished games are stored in, null if the games are not recorded.
+     */
+    private GameRecordStore records;
+
+    /**
+     * Moves of the game in progress, null if it is not recorded.
+     */
+    private GameRecord gameRecord;
+
+    /**
+     * Runs the queued events, shared by the swarm; events of one bot never run concurrently.
+     */
+    private Executor executor = Runnable::run;
+
+    /**
+     * Events received from the connection and not yet handled.
+     */
+    private final Queue<Runnable> events = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Set while a drain of {@link #events} is submitted to the executor.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * Move sequence of the model, published for the transport thread asking for it at a reconnect.
+     */
+    private volatile int moveSequence;
+
+    /**
+     * The connection to the server.
+     */
+    private NetworkClient networkClient;
+
+    /**
+     * Indicates if the bot is expected to move.
+     */
+    private volatile boolean isActivePlayer;
+
+    /**
+     * Set when the bot should not join any further games.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Moves rejected in a row; reset by every accepted or received move and by a new game.
+     */
+    private int rejectedMoves;
+
+    /**
+     * Time the last move was sent, used to measure the round trip to its acknowledgement.
+     */
+    private volatile long moveSentNanos;
+
+    /**
+     * Move round trips of this bot in nanoseconds.
+     */
+    private long[] latencies = new long[64];
+
+    /**
+     * Number of recorded round trips.
+     */
+    private int latencyCount;
+
+    /**
+     * Creates a bot.
+     *
+     * @param name  The login name.
+     * @param seed  The seed of the move choices.
+     * @param stats The statistics shared by the swarm.
+     */
+    public BotPlayer(String name, long seed, BotSwarm.Stats stats) {
+        this.name = String.format("%-" + GameView.PLAYER_NAME_LENGTH + "s", name);
+        this.random = new Random(seed);
+        this.stats = stats;
+    }
+
+    /**
+     * Lets an engine choose the moves instead of picking random legal moves.
+     *
+     * @param engine      The engine to search with, shared between bots.
+     * @param thinkMillis The time budget of one search in milliseconds.
+     */
+    public void useEngine(SearchEngine engine, long thinkMillis) {
+        this.engine = engine;
+        this.thinkMillis = thinkMillis;
+    }
+
+    /**
+     * Handles the events of the bot on the given executor instead of the I/O thread.
+     *
+     * @param executor The executor, typically shared by the swarm.
+     */
+    public void useExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Lets the bot ask for the {@link BinaryProtocol} framing when it connects.
+     *
+     * @param enabled true to request the binary framing.
+     */
+    public void useBinaryFraming(boolean enabled) {
+        this.binaryFraming = enabled;
+    }
+
+    /**
+     * Stores every finished game of the bot in a game log.
+     *
+     * @param records The log, shared between bots.
+     */
+    public void useRecordStore(GameRecordStore records) {
+        this.records = records;
+    }
+
+    /**
+     * Connects to the server, logs in and asks for the first game.
+     *
+     * @param serverAddress The server IP address.
+     * @param port          The server port.
+     * @param mode          The transport implementation to use.
+     * @throws IOException If the connection cannot be established.
+     */
+    public void connect(String serverAddress, int port, ClientTransport.Mode mode) throws IOException {
+        networkClient = new NetworkClient(serverAddress, port, this, mode);
+        networkClient.setCompactSync(true);
+        networkClient.setBinaryFraming(binaryFraming);
+        networkClient.requestLogin(name);
+        networkClient.requestNewGame();
+    }
+
+    /**
+     * Stops joining new games and making moves; the connection stays open until {@link #stop()}.
+     */
+    public void halt() {
+        stopped = true;
+    }
+
+    /**
+     * Stops joining new games, logs out and closes the connection.
+     */
+    public void stop() {
+        halt();
+        if (networkClient != null) {
+            networkClient.sendLogout();
+            networkClient.close();
+        }
+    }
+
+    /**
+     * Gets the move round trips measured by this bot.
+     *
+     * @return A copy of the recorded latencies in nanoseconds.
+     */
+    public synchronized long[] getLatencies() {
+        return Arrays.copyOf(latencies, latencyCount);
+    }
+
+    @Override
+    public int getMoveSequence() {
+        return moveSequence;
+    }
+
+    @Override
+    public void loggedIn(String name) {
+        post(() -> model.setLocalPlayer(new Player(name)));
+    }
+
+    @Override
+    public void joinedGame(char token) {
+        post(() -> model.getLocalPlayer().setPlayerToken(token));
+    }
+
+    @Override
+    public void gameStarted(String remoteName, char remoteToken, boolean myTurn, int boardSize) {
+        post(() -> startGame(remoteName, remoteToken, myTurn, boardSize));
+    }
+
+    /**
+     * Sets up the model for a new game and moves first if it is the bot's turn.
+     */
+    private void startGame(String remoteName, char remoteToken, boolean myTurn, int boardSize) {
+        model.setRemotePlayer(remoteName, remoteToken);
+        model.setBoardSize(boardSize);
+        isActivePlayer = myTurn;
+        rejectedMoves = 0;
+        model.resetBoard(myTurn);
+        moveSequence = model.getMoveSequence();
+        if (records != null) {
+            Player local = model.getLocalPlayer();
+            Player remote = model.getRemotePlayer();
+            gameRecord = myTurn
+                    ? new GameRecord(boardSize, local.getName(), local.getPlayerToken(), remoteName, remoteToken)
+                    : new GameRecord(boardSize, remoteName, remoteToken, local.getName(), local.getPlayerToken());
+        }
+        playIfMyTurn();
+    }
+
+    @Override
+    public void moveAccepted(int x, int y) {
+        // Measured on arrival, the queueing delay of the executor is not part of the round trip
+        recordLatency(System.nanoTime() - moveSentNanos);
+        post(() -> {
+            isActivePlayer = false;
+            rejectedMoves = 0;
+            applyMove(x, y, model.getLocalPlayer());
+        });
+    }
+
+    @Override
+    public void moveRejected(int status) {
+        if (stopped) {
+            // A move in flight when the opponent left, not a mistake of the bot
+            return;
+        }
+        stats.invalidMoves.increment();
+        post(this::resyncAfterRejection);
+    }
+
+    /**
+     * Asks for the server's position after a rejected move; the snapshot replays the turn if it
+     * is still the bot's. A server that keeps rejecting is left alone until it moves or syncs.
+     */
+    private void resyncAfterRejection() {
+        if (++rejectedMoves > MAX_REJECTED_MOVES) {
+            Log.error("Bot {}: {} moves rejected in a row, waiting for the server", name.trim(), MAX_REJECTED_MOVES);
+            isActivePlayer = false;
+            return;
+        }
+        networkClient.requestBoardSnapshot();
+    }
+
+    @Override
+    public void opponentMoved(int x, int y) {
+        post(() -> {
+            isActivePlayer = true;
+            rejectedMoves = 0;
+            applyMove(x, y, model.getRemotePlayer());
+        });
+    }
+
+    @Override
+    public void gameEnded(String status) {
+        stats.games.increment();
+        post(this::finishGame);
+    }
+
+    /**
+     * Stores the finished game and asks for the next one.
+     */
+    private void finishGame() {
+        if (gameRecord != null) {
+            try {
+                records.append(gameRecord);
+            } catch (IOException e) {
+                Log.error("Game log: the game cannot be stored: {}", e.toString());
+            }
+            gameRecord = null;
+        }
+        if (!stopped) {
+            networkClient.requestNewGame();
+        }
+    }
+
+    @Override
+    public void opponentDisconnected() {
+        post(() -> {
+            isActivePlayer = false;
+            if (!stopped) {
+                // Opponents reconnect on their own, so the game is held for them
+                networkClient.sendOppDiscResponse("WAIT");
+            }
+        });
+    }
+
+    @Override
+    public void boardSynced(String board, int sequence, String playerOnTurn, String remoteName, char remoteToken) {
+        post(() -> syncBoard(board, sequence, playerOnTurn, remoteName, remoteToken));
+    }
+
+    /**
+     * Applies a board sync and moves if it is the bot's turn.
+     */
+    private void syncBoard(String board, int sequence, String playerOnTurn, String remoteName, char remoteToken) {
+        isActivePlayer = playerOnTurn.equals(model.getLocalPlayer().getName());
+        char[][] before = gameRecord != null ? model.getGameBoard() : null;
+        if (!model.applySync(board, sequence)) {
+            networkClient.requestBoardSnapshot();
+        }
+        moveSequence = model.getMoveSequence();
+        if (before != null && !Arrays.deepEquals(before, model.getGameBoard())) {
+            // A pass only syncs the unchanged board; moves made while the connection was down are not known
+            gameRecord = null;
+        }
+        model.setRemotePlayer(remoteName, remoteToken);
+        Player localPlayer = model.getLocalPlayer();
+        if (localPlayer.getPlayerToken() != 'R' && localPlayer.getPlayerToken() != 'B') {
+            // A fresh login after a reconnect does not carry the token, the opponent has the other one
+            localPlayer.setPlayerToken(remoteToken == 'R' ? 'B' : 'R');
+        }
+        playIfMyTurn();
+    }
+
+    @Override
+    public void displayNotification(String message) {
+    }
+
+    @Override
+    public void notifyConnectionIssue() {
+        stats.connectionIssues.increment();
+    }
+
+    @Override
+    public void displayError(String errorMessage) {
+        stats.errors.increment();
+        stopped = true;
+        networkClient.close();
+    }
+
+    /**
+     * Places a stone of the given player and moves if it is the bot's turn.
+     */
+    private void applyMove(int x, int y, Player player) {
+        model.placeStoneAndUpdate(x, y, player.getPlayerToken());
+        moveSequence = model.getMoveSequence();
+        if (gameRecord != null) {
+            gameRecord.addMove(x, y, player.getPlayerToken());
+        }
+        stats.moves.increment();
+        playIfMyTurn();
+    }
+
+    /**
+     * Sends a move if it is the bot's turn. Without a legal move the bot waits for the server.
+     */
+    private void playIfMyTurn() {
+        if (!isActivePlayer || stopped) {
+            return;
+        }
+        char token = model.getLocalPlayer().getPlayerToken();
+        if (engine != null && model.getBoard() instanceof BitBoard) {
+            // The search runs on the engine's pool, its result is handled as the bot's next event
+            int searchedSequence = moveSequence;
+            engine.analyze(model, token, Integer.MAX_VALUE, thinkMillis)
+                    .whenComplete((result, error) -> post(() -> {
+                        if (!isActivePlayer || stopped || moveSequence != searchedSequence) {
+                            return;
+                        }
+                        if (error != null) {
+                            Log.error("Bot {}: search failed, playing a random move: {}", name.trim(), error.toString());
+                            stats.errors.increment();
+                            playRandomMove(token);
+                        } else if (result.getX() >= 0) {
+                            moveSentNanos = System.nanoTime();
+                            networkClient.sendMove(result.getX(), result.getY());
+                        }
+                    }));
+            return;
+        }
+        playRandomMove(token);
+    }
+
+    /**
+     * Sends a uniformly random legal move. Without a legal move the bot waits for the server.
+     */
+    private void playRandomMove(char token) {
+        int size = model.getBoardSize();
+        int chosenX = -1;
+        int chosenY = -1;
+        int legalCount = 0;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                // Reservoir sampling picks a uniformly random legal move in one pass
+                if (model.isLegalMove(x, y, token) && random.nextInt(++legalCount) == 0) {
+                    chosenX = x;
+                    chosenY = y;
+                }
+            }
+        }
+        if (legalCount > 0) {
+            moveSentNanos = System.nanoTime();
+            networkClient.sendMove(chosenX, chosenY);
+        }
+    }
+
+    /**
+     * Queues an event and makes sure a drain of the queue is submitted to the executor.
+     */
+    private void post(Runnable event) {
+        if (stopped) {
+            // Replies to the logout are of no interest, and the executor may already be shut down
+            return;
+        }
+        events.add(event);
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drainEvents);
+            } catch (RejectedExecutionException e) {
+                events.clear();
+                draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * Handles the queued events in order; runs on the executor, one drain per bot at a time.
+     */
+    private void drainEvents() {
+        do {
+            Runnable event;
+            while ((event = events.poll()) != null) {
+                try {
+                    event.run();
+                } catch (RuntimeException e) {
+                    Log.error("Bot {}: event failed: {}", name.trim(), e.toString());
+                    stats.errors.increment();
+                }
+            }
+            draining.set(false);
+            // An event queued after the last poll but before the flag was cleared must not be stranded
+        } while (!events.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    /**
+     * Stores one move round trip.
+     */
+    private synchronized void recordLatency(long nanos) {
+        if (latencyCount == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencyCount * 2);
+        }
+        latencies[latencyCount++] = nanos;
+    }
+}
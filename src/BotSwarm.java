@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator that runs many headless {@link BotPlayer}s against a server from one JVM.
+ * <p>
+ * All bots share the NIO transport, so the whole swarm is served by a single I/O thread; the
+ * game logic of the bots and the game log writes run on a separate pool of worker threads.
+ * At the end the runner prints the throughput and the move round-trip percentiles. With the
+ * system property {@code reversi.records} set, the finished games are appended to that game log.
+ * <p>
+ * Usage: {@code BotSwarm <server> <port> [bots] [seconds] [engineMillis] [text|binary]}
+ */
+public class BotSwarm {
+
+    /**
+     * Counters shared by all bots of a swarm.
+     */
+    public static class Stats {
+        final LongAdder games = new LongAdder();
+        final LongAdder moves = new LongAdder();
+        final LongAdder invalidMoves = new LongAdder();
+        final LongAdder connectionIssues = new LongAdder();
+        final LongAdder errors = new LongAdder();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: BotSwarm <server> <port> [bots] [seconds] [engineMillis] [text|binary]");
+            return;
+        }
+        String server = args[0];
+        int port = Integer.parseInt(args[1]);
+        int botCount = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 60;
+        long engineMillis = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        boolean binaryFraming = args.length > 5 && args[5].equals("binary");
+        SearchEngine engine = engineMillis > 0 ? new SearchEngine() : null;
+        if (engine != null) {
+            engine.useTablebase(Tablebase.openConfigured());
+        }
+        GameRecordStore records = GameRecordStore.openConfigured();
+        ExecutorService workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "reversi-bot-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Stats stats = new Stats();
+        List<BotPlayer> bots = new ArrayList<>(botCount);
+        for (int i = 0; i < botCount; i++) {
+            BotPlayer bot = new BotPlayer("Bot" + i, i, stats);
+            if (engine != null) {
+                bot.useEngine(engine, engineMillis);
+            }
+            bot.useExecutor(workers);
+            bot.useBinaryFraming(binaryFraming);
+            bot.useRecordStore(records);
+            try {
+                bot.connect(server, port, ClientTransport.Mode.NIO);
+                bots.add(bot);
+            } catch (IOException e) {
+                Log.error("Bot {} could not connect: {}", i, e.getMessage());
+            }
+        }
+        System.out.println("Connected " + bots.size() + " bots, running for " + seconds + " s");
+
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        long elapsed = System.nanoTime() - start;
+        // A logout flushes the last move, so no bot may answer it while the others are still leaving
+        for (BotPlayer bot : bots) {
+            bot.halt();
+        }
+        for (BotPlayer bot : bots) {
+            bot.stop();
+        }
+        workers.shutdown();
+        // Game log writes still queued must finish before the log is closed
+        if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+            Log.error("Bot workers did not finish within {} s", 5);
+        }
+        if (engine != null) {
+            engine.shutdown();
+        }
+        if (records != null) {
+            try {
+                records.close();
+            } catch (IOException e) {
+                Log.error("Game log cannot be closed: {}", e.toString());
+            }
+        }
+
+        report(stats, bots, elapsed);
+    }
+
+    /**
+     * Prints the aggregated throughput and latency percentiles.
+     */
+    private static void report(Stats stats, List<BotPlayer> bots, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("Games: %d (%.1f games/s)%n", stats.games.sum(), stats.games.sum() / seconds);
+        System.out.printf("Moves: %d (%.1f moves/s)%n", stats.moves.sum(), stats.moves.sum() / seconds);
+        System.out.printf("Invalid moves: %d, connection issues: %d, errors: %d%n",
+                stats.invalidMoves.sum(), stats.connectionIssues.sum(), stats.errors.sum());
+        // Every bot's NetworkClient records its PING intervals in the global metrics; an interval
+        // needs two PINGs on one connection, so a run shorter than the server's period has none
+        LatencyHistogram.Snapshot pingInterval = ClientMetrics.global().getPingInterval();
+        if (pingInterval.getCount() == 0) {
+            System.out.println("No PING intervals recorded (fewer than two PINGs per connection)");
+        } else {
+            System.out.println("Ping interval: " + pingInterval);
+            System.out.println("Ping jitter: " + ClientMetrics.global().getPingJitter());
+        }
+
+        long[] all = bots.stream().map(BotPlayer::getLatencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        if (all.length == 0) {
+            System.out.println("No move round trips recorded");
+            return;
+        }
+        System.out.printf("Move round trip (ms): p50 %.3f, p90 %.3f, p99 %.3f, p99.9 %.3f, max %.3f%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99),
+                percentile(all, 0.999), all[all.length - 1] / 1e6);
+    }
+
+    /**
+     * Reads a percentile from sorted nanosecond samples, in milliseconds.
+     */
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
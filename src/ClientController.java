@@ -0,0 +1,108 @@
+/**
+ * Receives the game events decoded by {@link NetworkClient}.
+ * <p>
+ * The client only reports what the server said; all game state, including the model, belongs to
+ * the controller. {@link GameController} queues the events to its own thread for the Swing client,
+ * {@link BotPlayer} applies them directly on the network thread for headless players.
+ */
+public interface ClientController {
+
+    /**
+     * Gets the number of moves applied in the current game, sent with LOGIN after a reconnect.
+     *
+     * @return The move sequence, -1 if unknown.
+     */
+    int getMoveSequence();
+
+    /**
+     * Called when the server accepted the login.
+     *
+     * @param name The name the player is known by.
+     */
+    void loggedIn(String name);
+
+    /**
+     * Called when the player was put into the queue for a game.
+     *
+     * @param token The token the player will play with.
+     */
+    void joinedGame(char token);
+
+    /**
+     * Called when a game starts.
+     *
+     * @param remoteName  The opponent's name.
+     * @param remoteToken The opponent's token.
+     * @param myTurn      true if the local player moves first.
+     * @param boardSize   The side length of the board.
+     */
+    void gameStarted(String remoteName, char remoteToken, boolean myTurn, int boardSize);
+
+    /**
+     * Called when the server accepted a move of the local player.
+     *
+     * @param x The x-coordinate of the move.
+     * @param y The y-coordinate of the move.
+     */
+    void moveAccepted(int x, int y);
+
+    /**
+     * Called when the server rejects a move of the local player.
+     *
+     * @param status One of the {@link NetworkClient#UNACCEPTABLE_MOVE_CODES}.
+     */
+    void moveRejected(int status);
+
+    /**
+     * Called when the opponent moved.
+     *
+     * @param x The x-coordinate of the move.
+     * @param y The y-coordinate of the move.
+     */
+    void opponentMoved(int x, int y);
+
+    /**
+     * Called when a game is over.
+     *
+     * @param status {@link NetworkClient#STATUS_MSG_DRAW}, {@link NetworkClient#STATUS_MSG_OPPONENT_LEFT}
+     *               or the name of the winner.
+     */
+    void gameEnded(String status);
+
+    /**
+     * Called when the opponent lost the connection; the controller answers with
+     * {@link NetworkClient#sendOppDiscResponse}.
+     */
+    void opponentDisconnected();
+
+    /**
+     * Called when the server sends the position after a reconnect. If a delta does not match the
+     * local position, the controller asks for a snapshot with {@link NetworkClient#requestBoardSnapshot()}.
+     *
+     * @param board        The board in any format of {@link GameModel#applySync}.
+     * @param sequence     The move sequence of the position, -1 if not sent.
+     * @param playerOnTurn The name of the player to move.
+     * @param remoteName   The opponent's name.
+     * @param remoteToken  The opponent's token.
+     */
+    void boardSynced(String board, int sequence, String playerOnTurn, String remoteName, char remoteToken);
+
+    /**
+     * Shows a short message about the connection.
+     *
+     * @param message The message.
+     */
+    void displayNotification(String message);
+
+    /**
+     * Called when no PING arrived for {@link NetworkClient#CONNECTION_TIMEOUT}.
+     */
+    void notifyConnectionIssue();
+
+    /**
+     * Reports a fatal error. The connection must not be used afterwards.
+     *
+     * @param errorMessage A short description of the error.
+     */
+    void displayError(String errorMessage);
+}
@@ -0,0 +1,288 @@
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency and health metrics of all clients in the process, exported over JMX.
+ * <p>
+ * The recording methods are called on the network threads and only update atomic counters and
+ * {@link LatencyHistogram}s, they never lock or allocate. Maps, rates and percentiles are built
+ * when an attribute is read, e.g. from JConsole.
+ */
+public final class ClientMetrics implements ClientMetricsMXBean {
+
+    /**
+     * Name under which the metrics are registered on the platform MBean server.
+     */
+    public static final String OBJECT_NAME = "reversi:type=ClientMetrics";
+
+    /**
+     * All server commands, indexed by ordinal.
+     */
+    private static final ServerCommand[] COMMANDS = ServerCommand.values();
+
+    /**
+     * The metrics shared by all clients of the process.
+     */
+    private static final ClientMetrics GLOBAL = register(new ClientMetrics());
+
+    /**
+     * Time from sending a MOVE to its reply.
+     */
+    private final LatencyHistogram moveRoundTrip = new LatencyHistogram();
+
+    /**
+     * Time from an OPP_MOVE to the end of the board update.
+     */
+    private final LatencyHistogram oppMoveToRender = new LatencyHistogram();
+
+    /**
+     * Time between two PINGs.
+     */
+    private final LatencyHistogram pingInterval = new LatencyHistogram();
+
+    /**
+     * Difference between consecutive PING intervals.
+     */
+    private final LatencyHistogram pingJitter = new LatencyHistogram();
+
+    /**
+     * Arrival time of the OPP_MOVE the view has not rendered yet, 0 if there is none.
+     */
+    private final AtomicLong pendingOppMoveNanos = new AtomicLong();
+
+    /**
+     * Received messages, indexed by command ordinal.
+     */
+    private final AtomicLongArray messages = new AtomicLongArray(COMMANDS.length);
+
+    /**
+     * Number of moves sent.
+     */
+    private final AtomicLong movesSent = new AtomicLong();
+
+    /**
+     * Rejected moves, indexed by the error code itself.
+     */
+    private final AtomicLongArray invalidMoves = new AtomicLongArray(NetworkClient.ERR_FIELD_OCCUPIED + 1);
+
+    /**
+     * Message counts at the previous read of {@link #getMessageRates()}.
+     */
+    private final long[] previousMessages = new long[COMMANDS.length];
+
+    /**
+     * Time of the previous read of {@link #getMessageRates()}.
+     */
+    private long previousRateNanos = System.nanoTime();
+
+    /**
+     * Gets the metrics shared by all clients of the process.
+     *
+     * @return The metrics.
+     */
+    public static ClientMetrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Records the round trip of a move.
+     *
+     * @param nanos The time from sending the move to its reply.
+     */
+    public void recordMoveRoundTrip(long nanos) {
+        moveRoundTrip.record(nanos);
+    }
+
+    /**
+     * Counts a move sent to the server.
+     */
+    public void recordMoveSent() {
+        movesSent.incrementAndGet();
+    }
+
+    /**
+     * Counts a move the server rejected.
+     *
+     * @param errorCode One of the {@link NetworkClient#UNACCEPTABLE_MOVE_CODES}.
+     */
+    public void recordInvalidMove(int errorCode) {
+        if (errorCode >= 0 && errorCode < invalidMoves.length()) {
+            invalidMoves.incrementAndGet(errorCode);
+        }
+    }
+
+    /**
+     * Counts a message received from the server.
+     *
+     * @param command The command of the message.
+     */
+    public void recordMessage(ServerCommand command) {
+        messages.incrementAndGet(command.ordinal());
+    }
+
+    /**
+     * Records the time between two PINGs of a connection.
+     *
+     * @param intervalNanos         The time since the previous PING.
+     * @param previousIntervalNanos The interval before that, 0 if this is the first one.
+     */
+    public void recordPingInterval(long intervalNanos, long previousIntervalNanos) {
+        pingInterval.record(intervalNanos);
+        if (previousIntervalNanos != 0) {
+            pingJitter.record(Math.abs(intervalNanos - previousIntervalNanos));
+        }
+    }
+
+    /**
+     * Notes the arrival of an OPP_MOVE, timed until {@link #recordBoardRendered()}.
+     */
+    public void recordOppMoveReceived() {
+        pendingOppMoveNanos.set(System.nanoTime());
+    }
+
+    /**
+     * Called when the view finished updating the board; records the render latency if an
+     * OPP_MOVE was waiting for it.
+     */
+    public void recordBoardRendered() {
+        long received = pendingOppMoveNanos.getAndSet(0);
+        if (received != 0) {
+            oppMoveToRender.record(System.nanoTime() - received);
+        }
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getMoveRoundTrip() {
+        return moveRoundTrip.snapshot();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getOppMoveToRender() {
+        return oppMoveToRender.snapshot();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getPingInterval() {
+        return pingInterval.snapshot();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getPingJitter() {
+        return pingJitter.snapshot();
+    }
+
+    @Override
+    public double getPingTimeoutHeadroomMillis() {
+        return NetworkClient.CONNECTION_TIMEOUT - pingInterval.getMax() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public Map<String, Long> getMessageCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (ServerCommand command : COMMANDS) {
+            counts.put(command.name(), messages.get(command.ordinal()));
+        }
+        return counts;
+    }
+
+    @Override
+    public synchronized Map<String, Double> getMessageRates() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1, now - previousRateNanos) / 1e9;
+        previousRateNanos = now;
+        Map<String, Double> rates = new LinkedHashMap<>();
+        for (ServerCommand command : COMMANDS) {
+            long count = messages.get(command.ordinal());
+            rates.put(command.name(), (count - previousMessages[command.ordinal()]) / seconds);
+            previousMessages[command.ordinal()] = count;
+        }
+        return rates;
+    }
+
+    @Override
+    public long getMovesSent() {
+        return movesSent.get();
+    }
+
+    @Override
+    public Map<String, Long> getInvalidMoveCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int code = 0; code < invalidMoves.length(); code++) {
+            if (NetworkClient.isUnacceptableMove(code)) {
+                counts.put(errorName(code), invalidMoves.get(code));
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getInvalidMoveRates() {
+        long sent = Math.max(1, movesSent.get());
+        Map<String, Double> rates = new LinkedHashMap<>();
+        getInvalidMoveCounts().forEach((name, count) -> rates.put(name, count / (double) sent));
+        return rates;
+    }
+
+    @Override
+    public double getInvalidMoveRate() {
+        long invalid = 0;
+        for (int code = 0; code < invalidMoves.length(); code++) {
+            invalid += invalidMoves.get(code);
+        }
+        return invalid / (double) Math.max(1, movesSent.get());
+    }
+
+    @Override
+    public synchronized void reset() {
+        moveRoundTrip.reset();
+        oppMoveToRender.reset();
+        pingInterval.reset();
+        pingJitter.reset();
+        pendingOppMoveNanos.set(0);
+        for (int i = 0; i < messages.length(); i++) {
+            messages.set(i, 0);
+            previousMessages[i] = 0;
+        }
+        movesSent.set(0);
+        for (int i = 0; i < invalidMoves.length(); i++) {
+            invalidMoves.set(i, 0);
+        }
+        previousRateNanos = System.nanoTime();
+    }
+
+    /**
+     * Gets a readable name of a move error code.
+     */
+    private static String errorName(int code) {
+        switch (code) {
+            case NetworkClient.ERR_GAME_NOT_FOUND:
+                return "GAME_NOT_FOUND";
+            case NetworkClient.ERR_NOT_MY_TURN:
+                return "NOT_MY_TURN";
+            case NetworkClient.ERR_INVALID_MOVE:
+                return "INVALID_MOVE";
+            case NetworkClient.ERR_FIELD_OCCUPIED:
+                return "FIELD_OCCUPIED";
+            default:
+                return "ERR_" + code;
+        }
+    }
+
+    /**
+     * Registers the metrics on the platform MBean server; the metrics keep working if that fails.
+     */
+    private static ClientMetrics register(ClientMetrics metrics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            Log.error("Could not register the metrics over JMX: {}", e.toString());
+        }
+        return metrics;
+    }
+}
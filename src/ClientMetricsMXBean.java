@@ -0,0 +1,93 @@
+import java.util.Map;
+
+/**
+ * Management interface of {@link ClientMetrics}, registered as {@value ClientMetrics#OBJECT_NAME}.
+ * <p>
+ * Latencies are summarised in milliseconds; rates are per second since the previous read of the
+ * same attribute.
+ */
+public interface ClientMetricsMXBean {
+
+    /**
+     * Gets the time from sending a MOVE to the server's MOVE reply.
+     *
+     * @return The latency summary.
+     */
+    LatencyHistogram.Snapshot getMoveRoundTrip();
+
+    /**
+     * Gets the time from receiving an OPP_MOVE to the end of the board update in the view.
+     *
+     * @return The latency summary.
+     */
+    LatencyHistogram.Snapshot getOppMoveToRender();
+
+    /**
+     * Gets the time between two PINGs of the same connection.
+     *
+     * @return The interval summary.
+     */
+    LatencyHistogram.Snapshot getPingInterval();
+
+    /**
+     * Gets the difference between two consecutive PING intervals of the same connection.
+     *
+     * @return The jitter summary.
+     */
+    LatencyHistogram.Snapshot getPingJitter();
+
+    /**
+     * Gets how much longer than the longest PING interval the watchdog waits before it reports a
+     * connection issue.
+     *
+     * @return {@link NetworkClient#CONNECTION_TIMEOUT} minus the longest interval, in milliseconds.
+     */
+    double getPingTimeoutHeadroomMillis();
+
+    /**
+     * Gets the number of server messages received per command.
+     *
+     * @return The counts by command name.
+     */
+    Map<String, Long> getMessageCounts();
+
+    /**
+     * Gets the server messages received per second and command.
+     *
+     * @return The rates by command name.
+     */
+    Map<String, Double> getMessageRates();
+
+    /**
+     * Gets the number of moves sent to the server.
+     *
+     * @return The count.
+     */
+    long getMovesSent();
+
+    /**
+     * Gets the number of moves the server rejected per error code.
+     *
+     * @return The counts by error name.
+     */
+    Map<String, Long> getInvalidMoveCounts();
+
+    /**
+     * Gets the share of sent moves the server rejected per error code.
+     *
+     * @return The shares between 0 and 1 by error name.
+     */
+    Map<String, Double> getInvalidMoveRates();
+
+    /**
+     * Gets the share of sent moves the server rejected.
+     *
+     * @return The share between 0 and 1.
+     */
+    double getInvalidMoveRate();
+
+    /**
+     * Clears all histograms and counters.
+     */
+    void reset();
+}
@@ -0,0 +1,158 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Carries the line-based protocol between a {@link NetworkClient} and the server, and optionally
+ * the negotiated {@link BinaryProtocol} framing.
+ */
+public interface ClientTransport {
+
+    /**
+     * Number of messages the outbound queue holds before senders have to wait.
+     */
+    int OUTBOUND_CAPACITY = 1024;
+
+    /**
+     * Time a sender waits for room in a full outbound queue before the connection is failed, in milliseconds.
+     */
+    long SEND_TIMEOUT = 5000;
+
+    /**
+     * Available transport implementations.
+     */
+    enum Mode {
+        /**
+         * A blocking socket with its own listener thread.
+         */
+        SOCKET,
+
+        /**
+         * A non-blocking channel served by the shared {@link NioEventLoop}.
+         */
+        NIO
+    }
+
+    /**
+     * Receives the traffic and connection state of a transport.
+     */
+    interface Listener {
+        /**
+         * Called for every complete line received from the server.
+         *
+         * @param buffer The buffer holding the line; only valid during the call.
+         * @param offset The first character of the line.
+         * @param count  The length of the line without its terminator.
+         */
+        void onLine(char[] buffer, int offset, int count);
+
+        /**
+         * Called for every received binary frame other than text, once the transport switched to
+         * {@link BinaryProtocol}. Receivers that only understand lines get the equivalent text message.
+         *
+         * @param opcode  The opcode of the frame.
+         * @param payload The fields of the frame between position and limit; only valid during the call.
+         */
+        default void onFrame(int opcode, ByteBuffer payload) {
+            String line = BinaryProtocol.toText(opcode, payload);
+            onLine(line.toCharArray(), 0, line.length());
+        }
+
+        /**
+         * Called once when the connection breaks, including when a queued message cannot be written
+         * or the outbound queue stays full for {@link #SEND_TIMEOUT}.
+         *
+         * @param cause The error that ended the connection.
+         */
+        void onDisconnect(IOException cause);
+    }
+
+    /**
+     * Opens a connection using the requested implementation.
+     *
+     * @param mode          The transport implementation to use.
+     * @param serverAddress The server IP address.
+     * @param port          The server port.
+     * @param listener      The receiver of incoming lines and errors.
+     * @return The connected transport.
+     * @throws IOException If the connection cannot be established.
+     */
+    static ClientTransport open(Mode mode, String serverAddress, int port, Listener listener) throws IOException {
+        if (mode == Mode.NIO) {
+            return new NioTransport(NioEventLoop.shared(), serverAddress, port, listener);
+        }
+        return new SocketTransport(serverAddress, port, listener);
+    }
+
+    /**
+     * Queues a message for the writer, which appends the line terminator and flushes queued
+     * messages together. Waits while the outbound queue is full; failures are reported through
+     * {@link Listener#onDisconnect(IOException)}, never thrown to the sender.
+     *
+     * @param message The message to send, without a line terminator.
+     */
+    void send(String message);
+
+    /**
+     * Queues an encoded {@link BinaryProtocol} frame, only valid after {@link #switchToBinary()}.
+     * The caller must not touch the buffer afterwards; one handed out by {@link #frameBuffer()}
+     * goes back to the transport once written.
+     *
+     * @param frame The frame, from position to limit.
+     */
+    default void sendFrame(ByteBuffer frame) {
+        throw new UnsupportedOperationException("Binary framing is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Gets a buffer to encode a frame with integer fields into before passing it to {@link #sendFrame}.
+     *
+     * @return A buffer of {@link BinaryProtocol#FIELD_FRAME_BYTES}, possibly one of an earlier frame.
+     */
+    default ByteBuffer frameBuffer() {
+        return ByteBuffer.allocate(BinaryProtocol.FIELD_FRAME_BYTES);
+    }
+
+    /**
+     * Checks if the transport can switch to the {@link BinaryProtocol} framing.
+     *
+     * @return true if {@link #switchToBinary()} is supported.
+     */
+    default boolean supportsBinary() {
+        return false;
+    }
+
+    /**
+     * Opens the window in which the peer may switch to the {@link BinaryProtocol} framing: text is
+     * decoded line by line, so a switch after any line takes effect right behind it. This costs
+     * throughput, the window ends with {@link #switchToBinary()} or {@link #endFramingNegotiation()}.
+     */
+    default void beginFramingNegotiation() {
+    }
+
+    /**
+     * Closes the negotiation window and stays on text.
+     */
+    default void endFramingNegotiation() {
+    }
+
+    /**
+     * Switches both directions to the {@link BinaryProtocol} framing. Must be called during the
+     * negotiation window from {@link Listener#onLine} for the last text line of the peer; the bytes
+     * after it are read as frames, and every later {@link #send(String)} is framed as text.
+     */
+    default void switchToBinary() {
+        throw new UnsupportedOperationException("Binary framing is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Checks if the connection can still be used.
+     *
+     * @return true if the connection is open and no error occurred.
+     */
+    boolean isOpen();
+
+    /**
+     * Closes the connection.
+     */
+    void close();
+}
@@ -0,0 +1,166 @@
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects silent connections with one pending deadline per session on a timer shared by the process.
+ * <p>
+ * Receiving a PING only stores a timestamp. The deadline task does not move when that happens;
+ * when it fires early it re-arms itself for the remaining time, so an idle healthy session costs
+ * one timer wake-up per timeout period and no thread of its own.
+ */
+public final class ConnectionWatchdog {
+
+    /**
+     * The timer shared by all watchdogs of this process.
+     */
+    private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+
+    /**
+     * Time without activity after which the connection issue is reported, in nanoseconds.
+     */
+    private final long issueTimeoutNanos;
+
+    /**
+     * Time without activity after which the connection is given up, in nanoseconds.
+     */
+    private final long deadTimeoutNanos;
+
+    /**
+     * Called once per silent period when the issue timeout passes.
+     */
+    private final Runnable onIssue;
+
+    /**
+     * Called once when the dead timeout passes; the watchdog stops until it is started again.
+     */
+    private final Runnable onDead;
+
+    /**
+     * Time of the last activity on the connection.
+     */
+    private volatile long lastActivityNanos;
+
+    /**
+     * Set once the issue of the current silent period has been reported.
+     */
+    private volatile boolean issueReported;
+
+    /**
+     * Set when the watchdog is stopped or has given up the connection.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * The pending deadline task.
+     */
+    private ScheduledFuture<?> deadline;
+
+    /**
+     * Number of the current arming, increased by every stop; a deadline task of an older arming
+     * that was already running when it was cancelled does nothing. Guarded by this watchdog.
+     */
+    private long generation;
+
+    /**
+     * Creates a watchdog; it starts counting with {@link #start()}.
+     *
+     * @param issueTimeoutMillis Milliseconds without activity before {@code onIssue} runs.
+     * @param deadTimeoutMillis  Milliseconds without activity before {@code onDead} runs.
+     * @param onIssue            The callback reporting a connection issue.
+     * @param onDead             The callback giving up the connection.
+     */
+    public ConnectionWatchdog(long issueTimeoutMillis, long deadTimeoutMillis, Runnable onIssue, Runnable onDead) {
+        this.issueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(issueTimeoutMillis);
+        this.deadTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(deadTimeoutMillis);
+        this.onIssue = onIssue;
+        this.onDead = onDead;
+    }
+
+    /**
+     * Creates the daemon timer thread shared by all watchdogs.
+     *
+     * @return The timer.
+     */
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "reversi-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    /**
+     * Starts counting from now; also restarts a stopped watchdog, e.g. for a new connection.
+     */
+    public synchronized void start() {
+        stop();
+        stopped = false;
+        lastActivityNanos = System.nanoTime();
+        issueReported = false;
+        schedule(issueTimeoutNanos);
+    }
+
+    /**
+     * Records activity on the connection, which pushes the deadline back.
+     */
+    public void touch() {
+        lastActivityNanos = System.nanoTime();
+        issueReported = false;
+    }
+
+    /**
+     * Stops the watchdog without calling any callback.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        generation++;
+        if (deadline != null) {
+            deadline.cancel(false);
+            deadline = null;
+        }
+    }
+
+    /**
+     * Schedules the deadline task.
+     *
+     * @param delayNanos The delay from now.
+     */
+    private synchronized void schedule(long delayNanos) {
+        if (!stopped) {
+            long armed = generation;
+            deadline = TIMER.schedule(() -> expire(armed), delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Runs on the timer when the deadline passes: reports the silence or re-arms for the remaining time.
+     * The callback runs outside the lock, so it may stop or restart the watchdog.
+     *
+     * @param armed The arming that scheduled this deadline.
+     */
+    private void expire(long armed) {
+        Runnable callback = null;
+        synchronized (this) {
+            if (stopped || armed != generation) {
+                return;
+            }
+            long idle = System.nanoTime() - lastActivityNanos;
+            if (idle >= deadTimeoutNanos) {
+                stop();
+                callback = onDead;
+            } else {
+                if (idle >= issueTimeoutNanos && !issueReported) {
+                    issueReported = true;
+                    callback = onIssue;
+                }
+                schedule((idle >= issueTimeoutNanos ? deadTimeoutNanos : issueTimeoutNanos) - idle);
+            }
+        }
+        if (callback != null) {
+            callback.run();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Delays between reconnect attempts: the ceiling doubles with every failed attempt up to a maximum,
+ * and the actual delay is drawn uniformly below the ceiling ("full jitter"), so clients that lost
+ * the server at the same moment do not come back at the same moment.
+ */
+public final class ExponentialBackoff {
+
+    /**
+     * Ceiling of the first delay in milliseconds.
+     */
+    private final long baseDelay;
+
+    /**
+     * Largest ceiling in milliseconds.
+     */
+    private final long maxDelay;
+
+    /**
+     * Number of delays handed out since the last reset.
+     */
+    private int attempt;
+
+    /**
+     * Creates a backoff.
+     *
+     * @param baseDelay Ceiling of the first delay in milliseconds.
+     * @param maxDelay  Largest ceiling in milliseconds.
+     */
+    public ExponentialBackoff(long baseDelay, long maxDelay) {
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * Gets the delay before the next attempt and raises the ceiling for the one after.
+     *
+     * @return The delay in milliseconds.
+     */
+    public long nextDelay() {
+        long ceiling = attempt >= Long.numberOfLeadingZeros(baseDelay) - 1
+                ? maxDelay
+                : Math.min(maxDelay, baseDelay << attempt);
+        attempt++;
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Starts over with the base delay after a successful attempt.
+     */
+    public void reset() {
+        attempt = 0;
+    }
+}
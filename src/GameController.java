@@ -1,7 +1,18 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
 /**
  * Reversi game controller based on MVC design pattern.
+ * <p>
+ * Every change of the game state runs on one controller thread: the network events of
+ * {@link ClientController} and the user's moves and hint requests are queued as typed events and
+ * applied in order, so the model and the turn flag have a single writer. The thread blocks on the
+ * queue while idle. The view reads the model on the EDT while holding the model's monitor, which
+ * the controller thread holds while it changes the model.
  */
-public class GameController implements Runnable {
+public class GameController implements ClientController {
     /**
      * The core model of the game.
      */
@@ -11,30 +22,76 @@ public class GameController implements Runnable {
      * User interface for the game.
      */
     private final GameView view;
-    public Thread ctrlThread;
+
+    /**
+     * Moves the view updates of the controller thread to the EDT, one repaint per frame.
+     */
+    private final UiUpdateChannel ui;
+
     /**
      * Communication client for server interaction.
      */
-    private NetworkClient networkClient;
-    private boolean isActivePlayer = false;
+    private volatile NetworkClient networkClient;
+
+    /**
+     * Indicates if the local player is expected to move, written by the controller thread only.
+     */
+    private volatile boolean isActivePlayer = false;
+
+    /**
+     * Move sequence of the model, published by the controller thread for the reconnect LOGIN.
+     */
+    private volatile int moveSequence;
+
+    /**
+     * Events waiting for the controller thread.
+     */
+    private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+
+    /**
+     * Counts the moves rejected locally instead of by the server.
+     */
+    private final MoveGateCounters moveGateCounters = new MoveGateCounters();
+
+    /**
+     * Log the finished games are stored in, null if the games are not recorded.
+     */
+    private final GameRecordStore records = GameRecordStore.openConfigured();
+
+    /**
+     * Moves of the game in progress, null if it is not recorded. Used by the controller thread only.
+     */
+    private GameRecord gameRecord;
+
+    /**
+     * Depth limit of a hint search.
+     */
+    private static final int HINT_DEPTH = 32;
+
+    /**
+     * Time budget of a hint search in milliseconds.
+     */
+    private static final long HINT_TIME_MILLIS = 1000;
+
+    /**
+     * Engine computing move hints in the background, created by the first hint request and
+     * shut down on logout. Guarded by this.
+     */
+    private SearchEngine searchEngine;
 
     /**
      * Initialize controller components.
      */
     public GameController() {
-        this.model = new GameModel(isActivePlayer);
+        this.model = new GameModel();
         this.view = new GameView(this);
         view.setController(this);
-        ctrlThread = new Thread(this);
-        ctrlThread.start();
-    }
+        this.ui = new UiUpdateChannel(this::renderBoard, this::renderHeader, view::setStatusMessage);
 
-    public boolean isMyTurn() {
-        return this.isActivePlayer;
-    }
-
-    public void setMyTurn(boolean turn) {
-        this.isActivePlayer = turn;
+        Thread controllerThread = new Thread(this::processEvents, "reversi-controller");
+        controllerThread.setDaemon(true);
+        controllerThread.start();
+        ui.post(view::displayLoginScreen);
     }
 
     public NetworkClient getNetworkClient() {
@@ -46,7 +103,8 @@ public class GameController implements Runnable {
     }
 
     /**
-     * Retrieves the game model.
+     * Retrieves the game model. Outside of the controller thread it may only be read while
+     * holding its monitor.
      *
      * @return current game model.
      */
@@ -54,17 +112,36 @@ public class GameController implements Runnable {
         return this.model;
     }
 
+    @Override
+    public int getMoveSequence() {
+        return moveSequence;
+    }
+
     /**
-     * Initiates a new game session.
+     * Sends a move of the local player, unless the server would reject it anyway.
+     *
+     * @param destX The x-coordinate of the move.
+     * @param destY The y-coordinate of the move.
      */
-    public void startNewGame() {
-        view.initializeBoard();
-        model.resetBoard(isActivePlayer);
-        view.updateBoard(model, isActivePlayer);
+    public void sendPlayerMove(int destX, int destY) {
+        events.add(new LocalMove(destX, destY));
     }
 
-    public void sendPlayerMove(int destX, int destY) {
-        networkClient.sendMove(destX, destY);
+    /**
+     * Gets the counters of moves rejected locally.
+     *
+     * @return The counters of saved round trips.
+     */
+    public MoveGateCounters getMoveGateCounters() {
+        return moveGateCounters;
+    }
+
+    /**
+     * Asks the engine for the best move of the local player and shows it in the status bar.
+     * The search runs on the engine's pool, the result is posted to the status bar.
+     */
+    public void requestHint() {
+        events.add(HintRequest.INSTANCE);
     }
 
     public void notifyOpponentDisconnection(String response) {
@@ -76,69 +153,385 @@ public class GameController implements Runnable {
     }
 
     public void sendLogout() {
+        Log.info("Move gate {}", moveGateCounters.toString());
         networkClient.sendLogout();
+        // Waits until the LOGOUT is written, the caller usually exits right after
+        networkClient.close();
+        synchronized (this) {
+            if (searchEngine != null) {
+                searchEngine.shutdown();
+                searchEngine = null;
+            }
+        }
     }
 
     public void requestGameStart() {
         networkClient.requestNewGame();
     }
 
-    public void displayWaitingScreen() {
-        view.displayWaitingScreen();
+    @Override
+    public void loggedIn(String name) {
+        events.add(new LoggedIn(name));
+    }
+
+    @Override
+    public void joinedGame(char token) {
+        events.add(new JoinedGame(token));
+    }
+
+    @Override
+    public void gameStarted(String remoteName, char remoteToken, boolean myTurn, int boardSize) {
+        events.add(new GameStarted(remoteName, remoteToken, myTurn, boardSize));
+    }
+
+    @Override
+    public void moveAccepted(int x, int y) {
+        events.add(new MoveApplied(x, y, true));
+    }
+
+    @Override
+    public void moveRejected(int status) {
+        events.add(new MoveRejected(status));
+    }
+
+    @Override
+    public void opponentMoved(int x, int y) {
+        events.add(new MoveApplied(x, y, false));
+    }
+
+    @Override
+    public void gameEnded(String status) {
+        events.add(new GameEnded(status));
+    }
+
+    @Override
+    public void opponentDisconnected() {
+        events.add(OpponentDisconnected.INSTANCE);
+    }
+
+    @Override
+    public void boardSynced(String board, int sequence, String playerOnTurn, String remoteName, char remoteToken) {
+        events.add(new BoardSynced(board, sequence, playerOnTurn, remoteName, remoteToken));
+    }
+
+    @Override
+    public void displayNotification(String message) {
+        ui.showStatus(message);
     }
 
-    public void displayLoginScreen() {
-        view.displayLoginScreen();
-        while (model.getLocalPlayer() == null) {
+    @Override
+    public void notifyConnectionIssue() {
+        ui.post(view::notifyConnectionError);
+    }
+
+    @Override
+    public void displayError(String errorMessage) {
+        ui.post(() -> view.displayErrorDialog(errorMessage));
+    }
+
+    /**
+     * Runs on the controller thread: applies the queued events one after another.
+     */
+    private void processEvents() {
+        while (true) {
+            Event event;
             try {
-                Thread.sleep(50);
+                event = events.take();
             } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException(e);
+                return;
+            }
+            try {
+                handle(event);
+            } catch (RuntimeException e) {
+                Log.error("Controller event {} failed: {}", event, e.toString());
             }
+            moveSequence = model.getMoveSequence();
         }
     }
 
-    public void displayResult(String result) {
-        view.displayGameResultDialog(result);
+    /**
+     * Applies one event to the model and posts the resulting view updates.
+     */
+    private void handle(Event event) {
+        if (event instanceof MoveApplied move) {
+            Player mover = move.byLocalPlayer() ? model.getLocalPlayer() : model.getRemotePlayer();
+            synchronized (model) {
+                isActivePlayer = !move.byLocalPlayer();
+                model.placeStoneAndUpdate(move.x(), move.y(), mover.getPlayerToken());
+            }
+            if (gameRecord != null) {
+                gameRecord.addMove(move.x(), move.y(), mover.getPlayerToken());
+            }
+            ui.boardChanged();
+            ui.showStatus(move.byLocalPlayer() ? "Waiting for opponent move" : "Your turn!");
+            ui.headerChanged();
+        } else if (event instanceof LocalMove move) {
+            int rejection = checkLocalMove(move.x(), move.y());
+            if (rejection != 0) {
+                moveGateCounters.record(rejection);
+                ui.showStatus(rejection == NetworkClient.ERR_NOT_MY_TURN
+                        ? "Wait for your turn" : "Invalid move, try again");
+                return;
+            }
+            networkClient.sendMove(move.x(), move.y());
+        } else if (event instanceof MoveRejected) {
+            ui.showStatus("Invalid move, try again");
+        } else if (event instanceof GameStarted start) {
+            synchronized (model) {
+                model.setRemotePlayer(start.remoteName(), start.remoteToken());
+                model.setBoardSize(start.boardSize());
+                isActivePlayer = start.myTurn();
+                model.resetBoard(start.myTurn());
+            }
+            startRecord(start.myTurn());
+            ui.showStatus(start.myTurn() ? "Your turn!" : "Waiting for opponent move");
+            ui.post(() -> {
+                synchronized (model) {
+                    view.initializeBoard();
+                    view.updateBoard(model, isActivePlayer);
+                }
+            });
+        } else if (event instanceof GameEnded end) {
+            storeRecord();
+            ui.post(() -> view.displayGameResultDialog(describeResult(end.status())));
+        } else if (event instanceof OpponentDisconnected) {
+            isActivePlayer = false;
+            ui.boardChanged();
+            ui.post(view::displayOpponentLeft);
+        } else if (event instanceof BoardSynced sync) {
+            applySync(sync);
+        } else if (event instanceof HintRequest) {
+            analyzeHint();
+        } else if (event instanceof LoggedIn login) {
+            synchronized (model) {
+                model.setLocalPlayer(new Player(login.name()));
+            }
+        } else if (event instanceof JoinedGame join) {
+            synchronized (model) {
+                model.getLocalPlayer().setPlayerToken(join.token());
+            }
+            ui.post(view::displayWaitingScreen);
+        }
     }
 
-    public void notifyDisconnection() {
-        view.displayOpponentLeft();
+    /**
+     * Validates a move against the local model.
+     *
+     * @param destX The x-coordinate of the move.
+     * @param destY The y-coordinate of the move.
+     * @return The error code the server would answer with, or 0 if the move is legal.
+     */
+    private int checkLocalMove(int destX, int destY) {
+        if (!isActivePlayer) {
+            return NetworkClient.ERR_NOT_MY_TURN;
+        }
+        // The legal move cache may be refreshed here, the EDT must not read it meanwhile
+        synchronized (model) {
+            if (model.getCell(destX, destY) != ' ') {
+                return NetworkClient.ERR_FIELD_OCCUPIED;
+            }
+            if (!model.isLegalMove(destX, destY, model.getLocalPlayer().getPlayerToken())) {
+                return NetworkClient.ERR_INVALID_MOVE;
+            }
+        }
+        return 0;
     }
 
-    public void notifyConnectionIssue() {
-        view.notifyConnectionError();
+    /**
+     * Takes over the position sent after a reconnect; asks for a snapshot if a delta does not match.
+     */
+    private void applySync(BoardSynced sync) {
+        boolean applied;
+        boolean positionChanged;
+        synchronized (model) {
+            isActivePlayer = sync.playerOnTurn().equals(model.getLocalPlayer().getName());
+            char[][] before = gameRecord != null ? model.getGameBoard() : null;
+            applied = model.applySync(sync.board(), sync.sequence());
+            positionChanged = before != null && !Arrays.deepEquals(before, model.getGameBoard());
+            model.setRemotePlayer(sync.remoteName(), sync.remoteToken());
+            Player localPlayer = model.getLocalPlayer();
+            if (localPlayer.getPlayerToken() != 'R' && localPlayer.getPlayerToken() != 'B') {
+                // A fresh login after a reconnect does not carry the token, the opponent has the other one
+                localPlayer.setPlayerToken(sync.remoteToken() == 'R' ? 'B' : 'R');
+            }
+        }
+        if (!applied) {
+            networkClient.requestBoardSnapshot();
+        }
+        if (positionChanged) {
+            // A pass only syncs the unchanged board; moves made while the connection was down are not known
+            Log.info("Game log: the current game is not stored after a board sync");
+            gameRecord = null;
+        }
+        ui.boardChanged();
+        ui.headerChanged();
     }
 
     /**
-     * Updates the board state with the latest move.
-     *
-     * @param player The current player making the move.
+     * Starts recording the game that has just begun, if games are recorded.
+     */
+    private void startRecord(boolean localFirst) {
+        if (records == null) {
+            return;
+        }
+        Player local = model.getLocalPlayer();
+        Player remote = model.getRemotePlayer();
+        gameRecord = localFirst
+                ? new GameRecord(model.getBoardSize(), local.getName(), local.getPlayerToken(),
+                remote.getName(), remote.getPlayerToken())
+                : new GameRecord(model.getBoardSize(), remote.getName(), remote.getPlayerToken(),
+                local.getName(), local.getPlayerToken());
+    }
+
+    /**
+     * Appends the finished game to the game log.
      */
-    public void refreshGameBoard(int xCoord, int yCoord, Player player) {
-        model.placeStoneAndUpdate(xCoord, yCoord, player.getPlayerToken());
-        view.updateBoard(model, isActivePlayer);
+    private void storeRecord() {
+        if (gameRecord == null) {
+            return;
+        }
+        try {
+            records.append(gameRecord);
+        } catch (IOException e) {
+            Log.error("Game log: the game cannot be stored: {}", e.toString());
+        }
+        gameRecord = null;
     }
 
-    public void refreshGameView() {
-        view.updateBoard(model, isActivePlayer);
+    /**
+     * Gets the hint engine, starting it and mapping the tablebase on first use.
+     */
+    private synchronized SearchEngine hintEngine() {
+        if (searchEngine == null) {
+            searchEngine = new SearchEngine();
+            searchEngine.useTablebase(Tablebase.openConfigured());
+        }
+        return searchEngine;
     }
 
-    public void refreshHeader() {
-        view.refreshHeaderInfo();
+    /**
+     * Starts a hint search on the current position.
+     */
+    private void analyzeHint() {
+        if (!isActivePlayer) {
+            ui.showStatus("Wait for your turn");
+            return;
+        }
+        ui.showStatus("Thinking...");
+        hintEngine().analyze(model, model.getLocalPlayer().getPlayerToken(), HINT_DEPTH, HINT_TIME_MILLIS)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        ui.showStatus("No hint available");
+                    } else if (result.getX() < 0) {
+                        ui.showStatus("Hint: no legal move, you have to pass");
+                    } else {
+                        Log.info("Hint {}", result);
+                        ui.showStatus("Hint: play " + result.getX() + ";" + result.getY()
+                                + " (score " + result.getScore() + ", depth " + result.getDepth() + ")");
+                    }
+                });
     }
 
-    public void displayError(String errorMessage) {
-        view.displayErrorDialog(errorMessage);
+    /**
+     * Turns the status of a GAME_STATUS message into the text of the result dialog.
+     */
+    private String describeResult(String status) {
+        if (status.equals(NetworkClient.STATUS_MSG_DRAW)) {
+            return "DRAW";
+        }
+        if (status.equals(NetworkClient.STATUS_MSG_OPPONENT_LEFT)) {
+            return "OPPONENT DID NOT WANT TO WAIT FOR YOU";
+        }
+        return status.equals(model.getLocalPlayer().getName())
+                ? "Winner winner chicken dinner!"
+                : "Better luck next time...";
     }
 
-    @Override
-    public void run() {
-        displayLoginScreen();
+    /**
+     * Shows the current position on the board, on the EDT.
+     */
+    private void renderBoard() {
+        synchronized (model) {
+            view.updateBoard(model, isActivePlayer);
+        }
     }
 
-    public void displayNotification(String message) {
-        view.setStatusMessage(message);
+    /**
+     * Shows the players in the header, on the EDT.
+     */
+    private void renderHeader() {
+        synchronized (model) {
+            view.refreshHeaderInfo();
+        }
+    }
+
+    /**
+     * A state change applied by the controller thread.
+     */
+    private sealed interface Event permits LoggedIn, JoinedGame, GameStarted, MoveApplied, LocalMove,
+            MoveRejected, GameEnded, OpponentDisconnected, BoardSynced, HintRequest {
+    }
+
+    /**
+     * The server accepted the login.
+     */
+    private record LoggedIn(String name) implements Event {
+    }
+
+    /**
+     * The player waits for an opponent, playing with the given token.
+     */
+    private record JoinedGame(char token) implements Event {
+    }
+
+    /**
+     * A game starts.
+     */
+    private record GameStarted(String remoteName, char remoteToken, boolean myTurn, int boardSize) implements Event {
+    }
+
+    /**
+     * The server applied a move of either player.
+     */
+    private record MoveApplied(int x, int y, boolean byLocalPlayer) implements Event {
+    }
+
+    /**
+     * The user clicked a cell.
+     */
+    private record LocalMove(int x, int y) implements Event {
+    }
+
+    /**
+     * The server rejected a move of the local player.
+     */
+    private record MoveRejected(int status) implements Event {
+    }
+
+    /**
+     * The game is over.
+     */
+    private record GameEnded(String status) implements Event {
+    }
+
+    /**
+     * The opponent lost the connection.
+     */
+    private enum OpponentDisconnected implements Event {
+        INSTANCE
+    }
+
+    /**
+     * The server sent the position after a reconnect.
+     */
+    private record BoardSynced(String board, int sequence, String playerOnTurn, String remoteName,
+                               char remoteToken) implements Event {
+    }
+
+    /**
+     * The user asked for a hint.
+     */
+    private enum HintRequest implements Event {
+        INSTANCE
     }
 }
@@ -1,13 +1,57 @@
-import java.util.Arrays;
-
 /**
  * Model for managing the state of a Reversi game.
  */
 public class GameModel {
     /**
-     * The playing field.
+     * Number of moves the undo stack holds before it first grows.
      */
-    private final char[][] gameBoard;
+    private static final int INITIAL_UNDO_MOVES = 16;
+
+    /**
+     * Horizontal steps of the eight directions.
+     */
+    private static final int[] DIRECTION_X = {1, -1, 0, 0, 1, -1, 1, -1};
+
+    /**
+     * Vertical steps of the eight directions.
+     */
+    private static final int[] DIRECTION_Y = {0, 0, 1, -1, 1, 1, -1, -1};
+
+    /**
+     * The playing field. Its size is negotiated per game.
+     */
+    private Board board;
+
+    /**
+     * Legal moves of red (index 0) and blue (index 1) in the current position, one bit per cell.
+     */
+    private long[][] legalCells = {new long[1], new long[1]};
+
+    /**
+     * Number of bits set in each set of {@link #legalCells}.
+     */
+    private final int[] legalMoveCount = new int[2];
+
+    /**
+     * Whether each set of {@link #legalCells} matches the board; a set is built in full on first
+     * use and then kept up to date move by move.
+     */
+    private final boolean[] legalMovesValid = new boolean[2];
+
+    /**
+     * Cells of the moves that can be taken back, {@code y * size + x}, oldest first.
+     */
+    private int[] undoMoves;
+
+    /**
+     * Flipped stones of the moves in {@link #undoMoves}, {@link Board#getUndoRecordWords()} words per move.
+     */
+    private long[] undoRecords;
+
+    /**
+     * Number of moves that can be taken back.
+     */
+    private int undoDepth;
 
     /**
      * Player using this computer.
@@ -19,6 +63,11 @@ public class GameModel {
      */
     private Player remotePlayer;
 
+    /**
+     * Number of moves applied since the game started, -1 if unknown (after a plain board sync).
+     */
+    private int moveSequence;
+
     /**
      * Indicates if the game is finished.
      */
@@ -27,8 +76,9 @@ public class GameModel {
     /**
      * Initializes the game model with starting conditions.
      */
-    public GameModel(boolean isFirstPlayer) {
-        this.gameBoard = new char[GameView.GAME_BOARD_SIZE][GameView.GAME_BOARD_SIZE];
+    public GameModel() {
+        this.board = Board.create(GameView.DEFAULT_BOARD_SIZE);
+        allocateUndoStack();
     }
 
 
@@ -70,183 +120,378 @@ public class GameModel {
     }
 
     /**
-     * Gets the game board.
+     * Gets a snapshot of the game board. The array is created on every call,
+     * prefer {@link #getCell(int, int)} on hot paths.
      *
      * @return A 2D array representing the game board.
      */
     public char[][] getGameBoard() {
-        return gameBoard;
+        int size = board.getSize();
+        char[][] snapshot = new char[size][size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                snapshot[row][col] = board.get(col, row);
+            }
+        }
+        return snapshot;
     }
 
     /**
-     * Sets the board to its initial state.
+     * Gets the token on the given cell.
+     *
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return 'R', 'B' or ' ' for an empty cell.
      */
-    public void resetBoard(boolean isFirstPlayer) {
-        char localChar = this.localPlayer.getPlayerToken();
-        char remoteChar = this.remotePlayer.getPlayerToken();
+    public char getCell(int x, int y) {
+        return board.get(x, y);
+    }
+
+    /**
+     * Gets the side length of the current board.
+     *
+     * @return The board size.
+     */
+    public int getBoardSize() {
+        return board.getSize();
+    }
 
-        for (char[] row : gameBoard) {
-            Arrays.fill(row, ' ');
+    /**
+     * Changes the board size for the next game. The storage is replaced only when the size differs.
+     *
+     * @param size The side length of the board.
+     */
+    public void setBoardSize(int size) {
+        if (size != board.getSize()) {
+            board = Board.create(size);
+            legalCells = new long[][]{new long[(size * size + 63) / 64], new long[(size * size + 63) / 64]};
+            allocateUndoStack();
+            invalidateLegalMoves();
         }
+    }
 
-        int center = gameBoard.length / 2;
-        gameBoard[center - 1][center - 1] = isFirstPlayer ? localChar : remoteChar;
-        gameBoard[center - 1][center] = isFirstPlayer ? remoteChar : localChar;
-        gameBoard[center][center - 1] = isFirstPlayer ? remoteChar : localChar;
-        gameBoard[center][center] = isFirstPlayer ? localChar : remoteChar;
+    /**
+     * Allocates a small undo stack for the current board. A record takes one bit per cell, so a
+     * stack for every cell of a large board would take gigabytes; it grows with the deepest
+     * look-ahead instead.
+     */
+    private void allocateUndoStack() {
+        int moves = Math.min(board.getSize() * board.getSize(), INITIAL_UNDO_MOVES);
+        undoMoves = new int[moves];
+        undoRecords = new long[moves * board.getUndoRecordWords()];
+        undoDepth = 0;
+    }
 
-        isGameOver = false;
+    /**
+     * Doubles the undo stack; every move fills a cell, so it never holds more moves than the
+     * board has cells.
+     */
+    private void growUndoStack() {
+        int moves = Math.min(board.getSize() * board.getSize(), 2 * undoMoves.length);
+        long words = (long) moves * board.getUndoRecordWords();
+        if (moves == undoMoves.length || words > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Undo stack is full");
+        }
+        undoMoves = java.util.Arrays.copyOf(undoMoves, moves);
+        undoRecords = java.util.Arrays.copyOf(undoRecords, (int) words);
     }
 
     /**
-     * Incorporates the server's response into the game state.
+     * Checks if the player may place a stone on the given cell.
      *
-     * @param serverResponse The response from the server. (e.g. "XOXOXOXO O X")
+     * @param x     The x-coordinate of the move.
+     * @param y     The y-coordinate of the move.
+     * @param token The token of the player making the move.
+     * @return true if the move is legal.
      */
-    public void updateBoard(String serverResponse) {
-        for (int i = 0; i < GameView.GAME_BOARD_SIZE; i++) {
-            for (int j = 0; j < GameView.GAME_BOARD_SIZE; j++) {
-                gameBoard[i][j] = serverResponse.charAt(i * GameView.GAME_BOARD_SIZE + j);
-            }
+    public boolean isLegalMove(int x, int y, char token) {
+        if (x < 0 || y < 0 || x >= board.getSize() || y >= board.getSize()) {
+            return false;
         }
+        int index = y * board.getSize() + x;
+        return (legalCells[refreshLegalMoves(token)][index >>> 6] & (1L << index)) != 0;
     }
 
     /**
-     * Updates the game board with a new move and flips the opponent's pieces as necessary.
+     * Counts the legal moves of the player in the current position.
      *
-     * @param targetX   The x-coordinate of the move.
-     * @param targetY   The y-coordinate of the move.
-     * @param localChar The character representing the local player's pieces.
+     * @param token The token of the player.
+     * @return The number of legal moves.
      */
-    public void placeStoneAndUpdate(int targetX, int targetY, char localChar) {
-        // Define possible movement directions
-        int[][] moves = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
-        char opposingChar = (localChar == 'R') ? 'B' : 'R';
-        gameBoard[targetY][targetX] = localChar;
+    public int getLegalMoveCount(char token) {
+        return legalMoveCount[refreshLegalMoves(token)];
+    }
 
-        // Check and flip pieces in all possible directions
-        for (int[] move : moves) {
-            boolean canFlip = checkAndFlip(targetX, targetY, move[0], move[1], localChar, opposingChar);
+    /**
+     * Builds the legal-move set of the player if it does not match the board.
+     *
+     * @return The index of the player's set.
+     */
+    private int refreshLegalMoves(char token) {
+        int side = token == 'R' ? 0 : 1;
+        if (!legalMovesValid[side]) {
+            legalMoveCount[side] = board.collectLegalMoves(token, legalCells[side]);
+            legalMovesValid[side] = true;
         }
+        return side;
+    }
+
+    /**
+     * Marks the legal-move sets as stale after the board changed as a whole.
+     */
+    private void invalidateLegalMoves() {
+        legalMovesValid[0] = false;
+        legalMovesValid[1] = false;
     }
 
     /**
-     * Checks if pieces can be flipped in a given direction and flips them if possible.
+     * Updates the legal-move sets after a stone was placed. Only an empty cell whose line towards
+     * a changed cell runs over stones alone can change, so for the placed stone and each stone it
+     * may have flipped, the first empty cell in every direction is checked again.
      *
-     * @param x            The starting x-coordinate.
-     * @param y            The starting y-coordinate.
-     * @param dx           The x-direction to move.
-     * @param dy           The y-direction to move.
-     * @param playerChar   The character representing the player's pieces.
-     * @param opponentChar The character representing the opponent's pieces.
-     * @return true if pieces were flipped, false otherwise.
+     * @param x     The x-coordinate of the placed stone.
+     * @param y     The y-coordinate of the placed stone.
+     * @param token The token of the placed stone.
      */
-    private boolean checkAndFlip(int x, int y, int dx, int dy, char playerChar, char opponentChar) {
-        int newX = x + dx;
-        int newY = y + dy;
-        boolean canFlip = false;
+    private void updateLegalMoves(int x, int y, char token) {
+        if (!legalMovesValid[0] && !legalMovesValid[1]) {
+            return;
+        }
+        int size = board.getSize();
+        recheckLegalMove(x, y, size);
+        recheckAround(x, y, size);
+        for (int dir = 0; dir < DIRECTION_X.length; dir++) {
+            // The flipped stones are the start of these runs, the rest are rechecked needlessly
+            int newX = x + DIRECTION_X[dir];
+            int newY = y + DIRECTION_Y[dir];
+            while (newX >= 0 && newY >= 0 && newX < size && newY < size && board.get(newX, newY) == token) {
+                recheckAround(newX, newY, size);
+                newX += DIRECTION_X[dir];
+                newY += DIRECTION_Y[dir];
+            }
+        }
+    }
 
-        // Move in the specified direction and check for opponent's pieces
-        while (isWithinBounds(newX, newY) && gameBoard[newY][newX] == opponentChar) {
-            newX += dx;
-            newY += dy;
+    /**
+     * Checks the first empty cell in every direction from a changed cell again.
+     */
+    private void recheckAround(int x, int y, int size) {
+        for (int dir = 0; dir < DIRECTION_X.length; dir++) {
+            int newX = x + DIRECTION_X[dir];
+            int newY = y + DIRECTION_Y[dir];
+            while (newX >= 0 && newY >= 0 && newX < size && newY < size && board.get(newX, newY) != ' ') {
+                newX += DIRECTION_X[dir];
+                newY += DIRECTION_Y[dir];
+            }
+            if (newX >= 0 && newY >= 0 && newX < size && newY < size) {
+                recheckLegalMove(newX, newY, size);
+            }
         }
+    }
 
-        // If a player's piece is found, flip the opponent's pieces
-        if (isWithinBounds(newX, newY) && gameBoard[newY][newX] == playerChar) {
-            canFlip = true;
-            while (newX != x || newY != y) {
-                newX -= dx;
-                newY -= dy;
-                gameBoard[newY][newX] = playerChar;
+    /**
+     * Updates one cell in the valid legal-move sets.
+     */
+    private void recheckLegalMove(int x, int y, int size) {
+        int index = y * size + x;
+        long bit = 1L << index;
+        for (int side = 0; side < 2; side++) {
+            if (!legalMovesValid[side]) {
+                continue;
+            }
+            boolean legal = board.isLegalMove(x, y, side == 0 ? 'R' : 'B');
+            if (legal != ((legalCells[side][index >>> 6] & bit) != 0)) {
+                legalCells[side][index >>> 6] ^= bit;
+                legalMoveCount[side] += legal ? 1 : -1;
             }
         }
+    }
 
-        return canFlip;
+    /**
+     * Gets the {@link Zobrist} hash of the position, updated with every stone placed or flipped.
+     *
+     * @return The hash of the stones, without the side to move.
+     */
+    public long getHash() {
+        return board.getHash();
     }
 
     /**
-     * Checks if the given coordinates are within the bounds of the game board.
+     * Gets the board storage.
      *
-     * @param x The x-coordinate to check.
-     * @param y The y-coordinate to check.
-     * @return true if the coordinates are within bounds, false otherwise.
+     * @return The board holding the stones of both players.
      */
-    private boolean isWithinBounds(int x, int y) {
-        return x >= 0 && x < gameBoard[0].length && y >= 0 && y < gameBoard.length;
+    public Board getBoard() {
+        return board;
     }
 
-}
+    /**
+     * Sets the board to its initial state.
+     */
+    public void resetBoard(boolean isFirstPlayer) {
+        char localChar = this.localPlayer.getPlayerToken();
+        char remoteChar = this.remotePlayer.getPlayerToken();
 
+        board.clear();
+        int center = board.getSize() / 2;
+        board.set(center - 1, center - 1, isFirstPlayer ? localChar : remoteChar);
+        board.set(center, center - 1, isFirstPlayer ? remoteChar : localChar);
+        board.set(center - 1, center, isFirstPlayer ? remoteChar : localChar);
+        board.set(center, center, isFirstPlayer ? localChar : remoteChar);
+        invalidateLegalMoves();
+        moveSequence = 0;
+        undoDepth = 0;
+
+        isGameOver = false;
+    }
 
-/**
- * Represents a player in the game.
- */
-class Player {
     /**
-     * The character token representing the player.
+     * Incorporates the server's response into the game state.
+     * The board size is derived from the length of the response.
+     *
+     * @param serverResponse The response from the server. (e.g. "XOXOXOXO O X")
+     * @throws IllegalArgumentException If the response does not hold a square board.
      */
-    char playerToken;
+    public void updateBoard(String serverResponse) {
+        setBoardSize(plainBoardSize(serverResponse.length()));
+        int size = board.getSize();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                board.set(j, i, serverResponse.charAt(i * size + j));
+            }
+        }
+        invalidateLegalMoves();
+        moveSequence = -1;
+        undoDepth = 0;
+    }
 
     /**
-     * The name of the player.
+     * Gets the side length of a board sent cell by cell.
+     *
+     * @param cellCount The length of the board string.
+     * @return The side length.
+     * @throws IllegalArgumentException If the length is not the square of a side length.
      */
-    private String name;
+    private static int plainBoardSize(int cellCount) {
+        int size = (int) Math.sqrt(cellCount);
+        if (size == 0 || size * size != cellCount) {
+            throw new IllegalArgumentException("Board of " + cellCount + " cells is not square");
+        }
+        return size;
+    }
 
     /**
-     * Constructs a Player with the specified name.
+     * Checks the board field of a RECONNECT message before it is handed on, so that a field no
+     * board can be built from is rejected as a protocol error on the connection's thread.
      *
-     * @param name The name of the player.
+     * @param field The board field.
+     * @throws IllegalArgumentException If the field is a plain board that is not square.
      */
-    public Player(String name) {
-        this.name = name;
+    public static void checkSyncField(CharSequence field) {
+        if (field.length() == 0
+                || field.charAt(0) != BoardCodec.DELTA_PREFIX && field.charAt(0) != BoardCodec.SNAPSHOT_PREFIX) {
+            plainBoardSize(field.length());
+        }
     }
 
     /**
-     * Constructs a Player with the specified name and token.
+     * Applies the board field of a RECONNECT message in any of the {@link BoardCodec} forms.
+     * A delta is only applied if it starts at the sequence number of this model.
      *
-     * @param name The name of the player.
-     * @param playerToken The character token representing the player.
+     * @param field    The board field.
+     * @param sequence The sequence number of the sender after the sync, -1 if not sent.
+     * @return false if the field is a delta that does not fit this model, which then needs a full snapshot.
      */
-    public Player(String name, char playerToken) {
-        this.name = name;
-        this.playerToken = playerToken;
+    public boolean applySync(CharSequence field, int sequence) {
+        if (field.length() > 0 && field.charAt(0) == BoardCodec.DELTA_PREFIX) {
+            if (moveSequence < 0 || BoardCodec.deltaStart(field) != moveSequence) {
+                return false;
+            }
+            BoardCodec.applyDelta(field, this);
+        } else if (field.length() > 0 && field.charAt(0) == BoardCodec.SNAPSHOT_PREFIX) {
+            setBoardSize(BoardCodec.snapshotSize(field));
+            BoardCodec.decodeSnapshot(field, board);
+            invalidateLegalMoves();
+        } else {
+            updateBoard(field.toString());
+        }
+        moveSequence = sequence;
+        undoDepth = 0;
+        return true;
     }
 
     /**
-     * Gets the name of the player.
+     * Gets the number of moves applied since the game started.
      *
-     * @return The name of the player.
+     * @return The move sequence number, -1 if unknown.
      */
-    public String getName() {
-        return this.name;
+    public int getMoveSequence() {
+        return moveSequence;
     }
 
     /**
-     * Sets the name of the player.
+     * Updates the game board with a new move and flips the opponent's pieces as necessary.
      *
-     * @param name The new name of the player.
+     * @param targetX   The x-coordinate of the move.
+     * @param targetY   The y-coordinate of the move.
+     * @param localChar The character representing the local player's pieces.
      */
-    public void setName(String name) {
-        this.name = name;
+    public void placeStoneAndUpdate(int targetX, int targetY, char localChar) {
+        board.placeStone(targetX, targetY, localChar);
+        updateLegalMoves(targetX, targetY, localChar);
+        if (moveSequence >= 0) {
+            moveSequence++;
+        }
+        undoDepth = 0;
     }
 
     /**
-     * Gets the character token representing the player.
+     * Applies a move so that it can be taken back with {@link #undoMove()}. The flipped stones are
+     * pushed onto a stack that grows to the deepest look-ahead and is then reused, so a look-ahead
+     * over millions of positions allocates nothing. Any other change of the board clears the stack.
      *
-     * @return The character token representing the player.
+     * @param x     The x-coordinate of the move.
+     * @param y     The y-coordinate of the move.
+     * @param token The token of the player making the move.
+     * @return The number of flipped stones.
+     */
+    public int makeMove(int x, int y, char token) {
+        if (undoDepth == undoMoves.length) {
+            growUndoStack();
+        }
+        int size = board.getSize();
+        int flipped = board.placeStone(x, y, token, undoRecords, undoDepth * board.getUndoRecordWords());
+        undoMoves[undoDepth++] = y * size + x;
+        invalidateLegalMoves();
+        if (moveSequence >= 0) {
+            moveSequence++;
+        }
+        return flipped;
+    }
+
+    /**
+     * Takes back the last move applied by {@link #makeMove}, restoring the stones exactly.
      */
-    public char getPlayerToken() {
-        return this.playerToken;
+    public void undoMove() {
+        if (undoDepth == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        int size = board.getSize();
+        int cell = undoMoves[--undoDepth];
+        board.undoStone(cell % size, cell / size, undoRecords, undoDepth * board.getUndoRecordWords());
+        invalidateLegalMoves();
+        if (moveSequence > 0) {
+            moveSequence--;
+        }
     }
 
     /**
-     * Sets the character token representing the player.
+     * Gets the number of moves {@link #undoMove()} can take back.
      *
-     * @param playerToken The new character token representing the player.
+     * @return The depth of the undo stack.
      */
-    public void setPlayerToken(char playerToken) {
-        this.playerToken = playerToken;
+    public int getUndoDepth() {
+        return undoDepth;
     }
-}
 
+}
@@ -0,0 +1,156 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The moves of one game as they are played, collected for a {@link GameRecordStore}.
+ * <p>
+ * The players are kept in move order: player 0 moved first and owns the diagonal from the top
+ * left corner of the starting position, as in {@link GameModel#resetBoard(boolean)}. Every move
+ * stores its cell, its player and the time since the game started.
+ * <p>
+ * A record is filled by one thread; it is handed over to the store when the game ends.
+ */
+public final class GameRecord {
+
+    /**
+     * Bit of an encoded move that marks a move of player 1.
+     */
+    static final int SECOND_PLAYER_BIT = 0x8000;
+
+    /**
+     * Encoded length of a move: the cell with the player bit and the time offset.
+     */
+    static final int MOVE_BYTES = Short.BYTES + Integer.BYTES;
+
+    /**
+     * Most moves a record can hold.
+     */
+    static final int MAX_MOVES = 0xFFFF;
+
+    /**
+     * Longest encoded name in bytes.
+     */
+    static final int MAX_NAME_BYTES = 0xFF;
+
+    /**
+     * Wall-clock time the game started, in milliseconds since the epoch.
+     */
+    private final long startMillis;
+
+    /**
+     * The side length of the board.
+     */
+    private final int boardSize;
+
+    /**
+     * Names of the players in move order, UTF-8 encoded.
+     */
+    private final byte[][] names = new byte[2][];
+
+    /**
+     * Tokens of the players in move order.
+     */
+    private final char[] tokens = new char[2];
+
+    /**
+     * Cell index {@code y * size + x} of every move, with {@link #SECOND_PLAYER_BIT} for player 1.
+     */
+    private short[] cells = new short[64];
+
+    /**
+     * Milliseconds between the start of the game and every move.
+     */
+    private int[] offsets = new int[64];
+
+    /**
+     * Number of moves recorded.
+     */
+    private int moveCount;
+
+    /**
+     * Starts the record of a game.
+     *
+     * @param boardSize   The side length of the board.
+     * @param firstName   The name of the player moving first.
+     * @param firstToken  The token of the player moving first.
+     * @param secondName  The name of the other player.
+     * @param secondToken The token of the other player.
+     */
+    public GameRecord(int boardSize, String firstName, char firstToken, String secondName, char secondToken) {
+        this.startMillis = System.currentTimeMillis();
+        this.boardSize = boardSize;
+        this.names[0] = encodeName(firstName);
+        this.names[1] = encodeName(secondName);
+        this.tokens[0] = firstToken;
+        this.tokens[1] = secondToken;
+    }
+
+    /**
+     * Adds a move, stamped with the current time. Moves beyond {@link #MAX_MOVES} are dropped.
+     *
+     * @param x     The x-coordinate of the move.
+     * @param y     The y-coordinate of the move.
+     * @param token The token of the player making the move.
+     */
+    public void addMove(int x, int y, char token) {
+        if (moveCount == MAX_MOVES) {
+            return;
+        }
+        if (moveCount == cells.length) {
+            cells = Arrays.copyOf(cells, moveCount * 2);
+            offsets = Arrays.copyOf(offsets, moveCount * 2);
+        }
+        int player = token == tokens[0] ? 0 : SECOND_PLAYER_BIT;
+        cells[moveCount] = (short) (y * boardSize + x | player);
+        offsets[moveCount] = (int) Math.min(Integer.MAX_VALUE, System.currentTimeMillis() - startMillis);
+        moveCount++;
+    }
+
+    /**
+     * Gets the number of moves recorded.
+     *
+     * @return The move count.
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Gets the encoded length of the record body.
+     *
+     * @return The body length in bytes.
+     */
+    int encodedLength() {
+        return Long.BYTES + 3 + 1 + names[0].length + 1 + names[1].length + Short.BYTES + moveCount * MOVE_BYTES;
+    }
+
+    /**
+     * Writes the record body in the layout read by {@link GameRecordStore.Entry}.
+     *
+     * @param buffer The buffer to write to, with at least {@link #encodedLength()} bytes remaining.
+     */
+    void encode(ByteBuffer buffer) {
+        buffer.putLong(startMillis);
+        buffer.put((byte) boardSize);
+        buffer.put((byte) tokens[0]);
+        buffer.put((byte) tokens[1]);
+        for (byte[] name : names) {
+            buffer.put((byte) name.length);
+            buffer.put(name);
+        }
+        buffer.putShort((short) moveCount);
+        for (int i = 0; i < moveCount; i++) {
+            buffer.putShort(cells[i]);
+            buffer.putInt(offsets[i]);
+        }
+    }
+
+    /**
+     * Encodes a name without its padding, cut to {@link #MAX_NAME_BYTES}.
+     */
+    private static byte[] encodeName(String name) {
+        byte[] bytes = name.trim().getBytes(StandardCharsets.UTF_8);
+        return bytes.length > MAX_NAME_BYTES ? Arrays.copyOf(bytes, MAX_NAME_BYTES) : bytes;
+    }
+}
@@ -0,0 +1,473 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log of finished games.
+ * <p>
+ * The file starts with an 8 byte header (magic and version), followed by one record per game:
+ * the body length, the CRC-32 of the body and the body written by {@link GameRecord#encode}:
+ * <pre>
+ * long  start time, ms since the epoch
+ * byte  board size, token of player 0, token of player 1
+ * byte  name length, UTF-8 name of player 0; the same for player 1
+ * short move count
+ * per move: short cell index (y * size + x, bit 15 set for player 1), int ms since the start
+ * </pre>
+ * Appending threads encode and checksum their record in parallel and write it at the end of the
+ * log under a lock; the end only moves past a record once it is fully written, so a failed write
+ * leaves no gap and is overwritten by the next append. A record whose write did not complete
+ * before a crash is the last one in the file; {@link #open} cuts the file back to the last
+ * complete record.
+ * <p>
+ * Reading maps the file read-only and visits the records through one reused {@link Entry}, so a
+ * scan allocates nothing per game; {@link Entry#replay} puts the moves through
+ * {@link GameModel#placeStoneAndUpdate}.
+ * <p>
+ * Usage: {@code GameRecordStore <file>} replays every stored game and prints the totals.
+ */
+public final class GameRecordStore implements Closeable {
+
+    /**
+     * Magic number at the start of the file, "RVGR".
+     */
+    private static final int MAGIC = 0x52564752;
+
+    /**
+     * Version of the record layout.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Length of the file header.
+     */
+    private static final int HEADER_BYTES = 8;
+
+    /**
+     * Length of the record header: the body length and its checksum.
+     */
+    private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+
+    /**
+     * Longest body a valid record can have.
+     */
+    private static final int MAX_BODY_BYTES = Long.BYTES + 3 + 2 * (1 + GameRecord.MAX_NAME_BYTES)
+            + Short.BYTES + GameRecord.MAX_MOVES * GameRecord.MOVE_BYTES;
+
+    /**
+     * Largest region mapped at once; records crossing its end are read from the next mapping.
+     */
+    private static final long MAP_CHUNK = 1L << 30;
+
+    /**
+     * The file written to.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Offset of the next record to append, guarded by the store's lock.
+     */
+    private long end;
+
+    /**
+     * Opens the log for appending, creating it if needed. A torn record at the end of an
+     * existing log is cut off.
+     *
+     * @param file The log file.
+     * @return The opened store.
+     * @throws IOException If the file cannot be opened or is not a game log.
+     */
+    public static GameRecordStore open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long validEnd;
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+                writeFully(channel, header, 0);
+                validEnd = HEADER_BYTES;
+            } else {
+                validEnd = scan(channel, entry -> {
+                });
+                if (validEnd < channel.size()) {
+                    Log.error("Game log {}: cutting {} bytes after the last complete record", file,
+                            channel.size() - validEnd);
+                    channel.truncate(validEnd);
+                }
+            }
+            return new GameRecordStore(channel, validEnd);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the log named by the system property {@code reversi.records}.
+     *
+     * @return The opened store, or null if the property is not set or the log cannot be opened.
+     */
+    public static GameRecordStore openConfigured() {
+        String file = System.getProperty("reversi.records", "");
+        if (file.isEmpty()) {
+            return null;
+        }
+        try {
+            return open(Paths.get(file));
+        } catch (IOException e) {
+            Log.error("Game log {} cannot be opened: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    private GameRecordStore(FileChannel channel, long end) {
+        this.channel = channel;
+        this.end = end;
+    }
+
+    /**
+     * Appends a finished game. May be called from any number of threads at once.
+     *
+     * @param record The game to store.
+     * @throws IOException If the record cannot be written.
+     */
+    public void append(GameRecord record) throws IOException {
+        int bodyLength = record.encodedLength();
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_BYTES + bodyLength);
+        buffer.position(RECORD_HEADER_BYTES);
+        record.encode(buffer);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), RECORD_HEADER_BYTES, bodyLength);
+        buffer.putInt(0, bodyLength).putInt(Integer.BYTES, (int) crc.getValue());
+        buffer.flip();
+        synchronized (this) {
+            writeFully(channel, buffer, end);
+            end += buffer.limit();
+        }
+    }
+
+    /**
+     * Gets the length of the log.
+     *
+     * @return The number of bytes of the header and the completely written records.
+     */
+    public synchronized long size() {
+        return end;
+    }
+
+    /**
+     * Cuts off what a failed append left behind, flushes the log to the storage device and closes it.
+     *
+     * @throws IOException If the file cannot be flushed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            channel.truncate(end);
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Visits every complete record of a log, in file order.
+     *
+     * @param file    The log file.
+     * @param visitor Called with the same {@link Entry} for every record; it must not keep it.
+     * @return The number of records visited.
+     * @throws IOException If the file cannot be read or is not a game log.
+     */
+    public static long forEach(Path file, Consumer<Entry> visitor) throws IOException {
+        long[] count = new long[1];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            scan(channel, entry -> {
+                count[0]++;
+                visitor.accept(entry);
+            });
+        }
+        return count[0];
+    }
+
+    /**
+     * Maps the log chunk by chunk and visits its records until the first incomplete one.
+     *
+     * @return The offset after the last complete record.
+     */
+    private static long scan(FileChannel channel, Consumer<Entry> visitor) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES) {
+            throw new IOException("Not a game log: file is too short");
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        if (header.getInt(0) != MAGIC || header.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Not a game log or an unsupported version");
+        }
+        Entry entry = new Entry();
+        CRC32 crc = new CRC32();
+        long position = HEADER_BYTES;
+        while (position < size) {
+            long chunkLength = Math.min(MAP_CHUNK, size - position);
+            MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, chunkLength);
+            int offset = 0;
+            while (true) {
+                if (chunk.limit() - offset < RECORD_HEADER_BYTES) {
+                    break;
+                }
+                int bodyLength = chunk.getInt(offset);
+                if (bodyLength <= 0 || bodyLength > MAX_BODY_BYTES) {
+                    return position + offset;
+                }
+                int bodyStart = offset + RECORD_HEADER_BYTES;
+                if (chunk.limit() - bodyStart < bodyLength) {
+                    break;
+                }
+                crc.reset();
+                chunk.limit(bodyStart + bodyLength).position(bodyStart);
+                crc.update(chunk);
+                chunk.limit(chunk.capacity());
+                if ((int) crc.getValue() != chunk.getInt(offset + Integer.BYTES)) {
+                    return position + offset;
+                }
+                entry.wrap(chunk, bodyStart);
+                visitor.accept(entry);
+                offset = bodyStart + bodyLength;
+            }
+            if (offset == 0) {
+                // Not even one record fits into the rest of the file
+                return position;
+            }
+            position += offset;
+        }
+        return position;
+    }
+
+    /**
+     * Writes the whole buffer at the given offset.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * A stored game, read in place from the mapped log. The view is only valid during the visit.
+     */
+    public static final class Entry {
+
+        /**
+         * The mapped region holding the record.
+         */
+        private ByteBuffer buffer;
+
+        /**
+         * Offset of the record body in {@link #buffer}.
+         */
+        private int body;
+
+        /**
+         * Offset of the first name length in {@link #buffer}.
+         */
+        private int names;
+
+        /**
+         * Offset of the move count in {@link #buffer}.
+         */
+        private int moves;
+
+        /**
+         * Points the view at the record body starting at the given offset.
+         */
+        void wrap(ByteBuffer buffer, int body) {
+            this.buffer = buffer;
+            this.body = body;
+            this.names = body + Long.BYTES + 3;
+            int secondName = names + 1 + (buffer.get(names) & 0xFF);
+            this.moves = secondName + 1 + (buffer.get(secondName) & 0xFF);
+        }
+
+        /**
+         * Gets the time the game started.
+         *
+         * @return Milliseconds since the epoch.
+         */
+        public long getStartMillis() {
+            return buffer.getLong(body);
+        }
+
+        /**
+         * Gets the side length of the board.
+         *
+         * @return The board size.
+         */
+        public int getBoardSize() {
+            return buffer.get(body + Long.BYTES) & 0xFF;
+        }
+
+        /**
+         * Gets the token of a player.
+         *
+         * @param player 0 for the player moving first, 1 for the other one.
+         * @return The token.
+         */
+        public char getToken(int player) {
+            return (char) buffer.get(body + Long.BYTES + 1 + player);
+        }
+
+        /**
+         * Decodes the name of a player. Allocates the string.
+         *
+         * @param player 0 for the player moving first, 1 for the other one.
+         * @return The name.
+         */
+        public String getName(int player) {
+            int offset = names;
+            if (player == 1) {
+                offset += 1 + (buffer.get(offset) & 0xFF);
+            }
+            byte[] bytes = new byte[buffer.get(offset) & 0xFF];
+            buffer.get(offset + 1, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Gets the number of moves.
+         *
+         * @return The move count.
+         */
+        public int getMoveCount() {
+            return buffer.getShort(moves) & 0xFFFF;
+        }
+
+        /**
+         * Gets the x-coordinate of a move.
+         *
+         * @param move The index of the move.
+         * @return The x-coordinate.
+         */
+        public int getMoveX(int move) {
+            return cell(move) % getBoardSize();
+        }
+
+        /**
+         * Gets the y-coordinate of a move.
+         *
+         * @param move The index of the move.
+         * @return The y-coordinate.
+         */
+        public int getMoveY(int move) {
+            return cell(move) / getBoardSize();
+        }
+
+        /**
+         * Gets the token of the player who made a move.
+         *
+         * @param move The index of the move.
+         * @return The token.
+         */
+        public char getMoveToken(int move) {
+            return getToken((buffer.getShort(moveOffset(move)) & GameRecord.SECOND_PLAYER_BIT) == 0 ? 0 : 1);
+        }
+
+        /**
+         * Gets the time of a move.
+         *
+         * @param move The index of the move.
+         * @return Milliseconds since the start of the game.
+         */
+        public int getMoveMillis(int move) {
+            return buffer.getInt(moveOffset(move) + Short.BYTES);
+        }
+
+        /**
+         * Plays the game on a model from the starting position. The model's players are given
+         * the stored tokens, the local player being the one who moved first.
+         *
+         * @param model The model to replay on.
+         */
+        public void replay(GameModel model) {
+            char first = getToken(0);
+            char second = getToken(1);
+            if (model.getLocalPlayer() == null) {
+                model.setLocalPlayer(new Player("", first));
+            } else {
+                model.getLocalPlayer().setPlayerToken(first);
+            }
+            if (model.getRemotePlayer() == null) {
+                model.setRemotePlayer("", second);
+            } else {
+                model.getRemotePlayer().setPlayerToken(second);
+            }
+            int size = getBoardSize();
+            model.setBoardSize(size);
+            model.resetBoard(true);
+            int count = getMoveCount();
+            int offset = moves + Short.BYTES;
+            for (int i = 0; i < count; i++, offset += GameRecord.MOVE_BYTES) {
+                int cell = buffer.getShort(offset);
+                int index = cell & ~GameRecord.SECOND_PLAYER_BIT & 0xFFFF;
+                model.placeStoneAndUpdate(index % size, index / size,
+                        (cell & GameRecord.SECOND_PLAYER_BIT) == 0 ? first : second);
+            }
+        }
+
+        /**
+         * Gets the cell index of a move without the player bit.
+         */
+        private int cell(int move) {
+            return buffer.getShort(moveOffset(move)) & ~GameRecord.SECOND_PLAYER_BIT & 0xFFFF;
+        }
+
+        /**
+         * Gets the offset of a move in {@link #buffer}.
+         */
+        private int moveOffset(int move) {
+            return moves + Short.BYTES + move * GameRecord.MOVE_BYTES;
+        }
+    }
+
+    /**
+     * Replays every game of a log and prints the totals and the replay speed.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: GameRecordStore <file>");
+            return;
+        }
+        Path file = Paths.get(args[0]);
+        GameModel model = new GameModel();
+        long[] totals = new long[4];
+        long start = System.nanoTime();
+        long games = forEach(file, entry -> {
+            entry.replay(model);
+            totals[0] += entry.getMoveCount();
+            int first = 0;
+            int second = 0;
+            int size = model.getBoardSize();
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    char cell = model.getCell(x, y);
+                    if (cell == entry.getToken(0)) {
+                        first++;
+                    } else if (cell == entry.getToken(1)) {
+                        second++;
+                    }
+                }
+            }
+            totals[first > second ? 1 : first < second ? 2 : 3]++;
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Games: %d (%.0f games/s), moves: %d (%.0f moves/s)%n",
+                games, games / seconds, totals[0], totals[0] / seconds);
+        System.out.printf("First player won %d, second player won %d, draws %d%n", totals[1], totals[2], totals[3]);
+    }
+}
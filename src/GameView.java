@@ -16,18 +16,29 @@ public class GameView extends JFrame {
     public static final int PLAYER_NAME_LENGTH = 20;
 
     /**
-     * The size (rows and columns) of the Reversi game board.
+     * The size (rows and columns) of the Reversi game board unless the server negotiates another one.
      */
-    public static final int GAME_BOARD_SIZE = 4;
+    public static final int DEFAULT_BOARD_SIZE = 4;
 
     /**
-     * A 2D array (matrix) of buttons that comprise the Reversi board.
+     * Font of the "You:" and "Opponent:" captions in the header.
      */
-    private final JButton[][] boardButtons = new JButton[GAME_BOARD_SIZE][GAME_BOARD_SIZE];
+    private static final Font HEADER_CAPTION_FONT = new Font("Arial", Font.BOLD, 20);
+
+    /**
+     * Font of the player names in the header.
+     */
+    private static final Font HEADER_NAME_FONT = new Font("Arial", Font.PLAIN, 20);
+
     /**
      * A label that displays status messages or tips for the player.
      */
     private final JLabel lblStatus;
+
+    /**
+     * Button asking the analysis engine for a suggested move.
+     */
+    private final JButton btnHint;
     /**
      * The main game controller. It oversees the game logic and network operations.
      */
@@ -43,14 +54,24 @@ public class GameView extends JFrame {
     private JPanel panelWaiting;
 
     /**
-     * A panel displaying the actual Reversi board during the game.
+     * The Reversi board displayed during the game, reused from game to game.
+     */
+    private BoardComponent panelGame;
+
+    /**
+     * A panel displaying information (e.g., players’ names) in the header, built once.
      */
-    private JPanel panelGame;
+    private final JPanel panelHeader;
 
     /**
-     * A panel displaying information (e.g., players’ names) in the header.
+     * The local player's name in the header.
      */
-    private JPanel panelHeader;
+    private final JLabel lblLocalName;
+
+    /**
+     * The opponent's name in the header.
+     */
+    private final JLabel lblRemoteName;
 
     /**
      * A text field for entering the player's name.
@@ -83,10 +104,36 @@ public class GameView extends JFrame {
         lblStatus.setFont(new Font("Arial", Font.BOLD, 15));
         lblStatus.setBackground(Color.GRAY);
 
-        add(lblStatus, BorderLayout.SOUTH);
+        btnHint = new JButton("Hint");
+        btnHint.setEnabled(false);
+        btnHint.addActionListener(e -> mainController.requestHint());
+
+        JPanel panelStatus = new JPanel(new BorderLayout());
+        panelStatus.add(lblStatus, BorderLayout.CENTER);
+        panelStatus.add(btnHint, BorderLayout.EAST);
+        add(panelStatus, BorderLayout.SOUTH);
+
+        panelHeader = new JPanel(new GridLayout(1, 4));
+        lblLocalName = new JLabel("", SwingConstants.LEFT);
+        lblRemoteName = new JLabel("", SwingConstants.LEFT);
+        panelHeader.add(createHeaderLabel("You:", SwingConstants.RIGHT, HEADER_CAPTION_FONT));
+        panelHeader.add(lblLocalName);
+        panelHeader.add(createHeaderLabel("Opponent:", SwingConstants.RIGHT, HEADER_CAPTION_FONT));
+        panelHeader.add(lblRemoteName);
+        lblLocalName.setFont(HEADER_NAME_FONT);
+        lblRemoteName.setFont(HEADER_NAME_FONT);
         setVisible(true);
     }
 
+    /**
+     * Creates a fixed label of the header.
+     */
+    private static JLabel createHeaderLabel(String text, int alignment, Font font) {
+        JLabel label = new JLabel(text, alignment);
+        label.setFont(font);
+        return label;
+    }
+
     /**
      * Custom handling of the window closing event to confirm if the user truly wants to exit
      * when a network connection is active.
@@ -106,7 +153,7 @@ public class GameView extends JFrame {
     }
 
     /**
-     * Initializes and displays the game board by creating a grid of buttons.
+     * Initializes and displays an empty game board of the negotiated size.
      */
     public void initializeBoard() {
         if (panelWaiting != null) {
@@ -117,23 +164,10 @@ public class GameView extends JFrame {
         }
         refreshHeaderInfo();
 
-        panelGame = new JPanel(new GridLayout(GAME_BOARD_SIZE, GAME_BOARD_SIZE));
-        for (int row = 0; row < GAME_BOARD_SIZE; row++) {
-            for (int col = 0; col < GAME_BOARD_SIZE; col++) {
-                boardButtons[row][col] = new JButton();
-                boardButtons[row][col].setFont(new Font("Arial", Font.PLAIN, 60));
-
-                final int x = col;
-                final int y = row;
-                boardButtons[row][col].addActionListener(new ActionListener() {
-                    @Override
-                    public void actionPerformed(ActionEvent evt) {
-                        mainController.sendPlayerMove(x, y);
-                    }
-                });
-                panelGame.add(boardButtons[row][col]);
-            }
+        if (panelGame == null) {
+            panelGame = new BoardComponent((x, y) -> mainController.sendPlayerMove(x, y));
         }
+        panelGame.reset(mainController.getModel().getBoardSize());
         add(panelGame, BorderLayout.CENTER);
         setVisible(true);
     }
@@ -231,9 +265,7 @@ public class GameView extends JFrame {
         if (panelGame != null) {
             remove(panelGame);
         }
-        if (panelHeader != null) {
-            remove(panelHeader);
-        }
+        remove(panelHeader);
 
         panelWaiting = new JPanel(new BorderLayout());
         panelWaiting.setBackground(Color.GRAY);
@@ -351,70 +383,35 @@ public class GameView extends JFrame {
     }
 
     /**
-     * Updates the board's colors and clickability according to the current model state.
+     * Updates the board according to the current model state, repainting only the changed cells.
+     * Only the squares where the local player may legally move are highlighted.
      *
      * @param model       The main game model providing the current board state.
-     * @param isClickable If true, the board squares are enabled for user interaction.
+     * @param isClickable If true, the legal board squares are enabled for user interaction.
      */
     public void updateBoard(GameModel model, boolean isClickable) {
-        char[][] board = model.getGameBoard();
-        for (int row = 0; row < boardButtons.length; row++) {
-            for (int col = 0; col < boardButtons[row].length; col++) {
-                char cell = board[row][col];
-                if (cell == 'R') {
-                    boardButtons[row][col].setBackground(new Color(186, 0, 0));
-                } else if (cell == 'B') {
-                    boardButtons[row][col].setBackground(new Color(0, 0, 220));
-                } else {
-                    boardButtons[row][col].setBackground(Color.GRAY);
-                }
-                boardButtons[row][col].setEnabled(isClickable);
-            }
-        }
-        panelGame.revalidate();
-        panelGame.repaint();
+        panelGame.update(model, isClickable);
+        btnHint.setEnabled(isClickable && model.getBoard() instanceof BitBoard);
+        ClientMetrics.global().recordBoardRendered();
     }
 
     /**
-     * Updates the header panel to show the names of the local and remote players.
+     * Updates the header to show the names of the local and remote players. The labels are
+     * changed in place; Swing repaints them only if the text or colour actually changed.
      */
     public void refreshHeaderInfo() {
-        if (panelHeader != null) {
-            remove(panelHeader);
-            panelHeader = null;
-        }
+        GameModel model = mainController.getModel();
+        lblLocalName.setText(model.getLocalPlayer().getName().trim());
+        lblRemoteName.setText(model.getRemotePlayer().getName().trim());
 
-        panelHeader = new JPanel(new GridLayout(1, 4));
-
-        JLabel lblYourSide = new JLabel("You:", SwingConstants.RIGHT);
-        lblYourSide.setFont(new Font("Arial", Font.BOLD, 20));
-        panelHeader.add(lblYourSide);
-
-        JLabel lblLocalName = new JLabel(mainController.getModel().getLocalPlayer().getName().trim(), SwingConstants.LEFT);
-        lblLocalName.setFont(new Font("Arial", Font.PLAIN, 20));
-        panelHeader.add(lblLocalName);
-
-        JLabel lblOpponentSide = new JLabel("Opponent:", SwingConstants.RIGHT);
-        lblOpponentSide.setFont(new Font("Arial", Font.BOLD, 20));
-        panelHeader.add(lblOpponentSide);
+        boolean localIsRed = model.getLocalPlayer().getPlayerToken() == 'R';
+        lblLocalName.setForeground(localIsRed ? Color.RED : Color.BLUE);
+        lblRemoteName.setForeground(localIsRed ? Color.BLUE : Color.RED);
 
-        JLabel lblRemoteName = new JLabel(mainController.getModel().getRemotePlayer().getName().trim(), SwingConstants.LEFT);
-        lblRemoteName.setFont(new Font("Arial", Font.PLAIN, 20));
-        panelHeader.add(lblRemoteName);
-
-        char localChar = mainController.getModel().getLocalPlayer().getPlayerToken();
-        if (localChar == 'R') {
-            lblLocalName.setForeground(Color.RED);
-            lblRemoteName.setForeground(Color.BLUE);
-        } else {
-            lblLocalName.setForeground(Color.BLUE);
-            lblRemoteName.setForeground(Color.RED);
+        if (panelHeader.getParent() == null) {
+            add(panelHeader, BorderLayout.NORTH);
+            revalidate();
         }
-
-        add(panelHeader, BorderLayout.NORTH);
-        panelHeader.revalidate();
-        panelHeader.repaint();
-        setVisible(true);
     }
 
     /**
@@ -0,0 +1,260 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations with log-linear buckets, in the manner of HdrHistogram.
+ * <p>
+ * Every power of two is split into {@value #SUB_BUCKETS} linear sub-buckets, so any recorded value
+ * is reported within about 3 % over the whole range of a long. Recording increments a few atomic
+ * counters and never allocates; percentiles are computed when a snapshot is taken, so concurrent
+ * recordings may or may not be included in it.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Number of bits resolved linearly within each power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * Number of linear sub-buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Number of buckets covering all non-negative longs.
+     */
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /**
+     * The percentiles reported by {@link #snapshot()}.
+     */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    /**
+     * Number of recorded values per bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Number of recorded values.
+     */
+    private final AtomicLong totalCount = new AtomicLong();
+
+    /**
+     * Sum of the recorded values.
+     */
+    private final AtomicLong totalSum = new AtomicLong();
+
+    /**
+     * Largest recorded value.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds; negative values count as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        totalCount.incrementAndGet();
+        totalSum.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // Another thread raised the maximum meanwhile, compare again
+        }
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return The count.
+     */
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return The maximum in nanoseconds, 0 if nothing was recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the value below which the given share of the recorded values lies.
+     *
+     * @param percentile The percentile between 0 and 100.
+     * @return The value in nanoseconds, the middle of its bucket; 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(max.get(), lowestValue(i) + (bucketWidth(i) - 1) / 2);
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Takes a summary of the histogram in milliseconds.
+     *
+     * @return The snapshot.
+     */
+    public Snapshot snapshot() {
+        long count = totalCount.get();
+        double[] values = new double[PERCENTILES.length];
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            values[i] = toMillis(getValueAtPercentile(PERCENTILES[i]));
+        }
+        double mean = count == 0 ? 0 : toMillis(totalSum.get()) / count;
+        return new Snapshot(count, mean, values[0], values[1], values[2], values[3], toMillis(max.get()));
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalSum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Finds the bucket of a non-negative value.
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Gets the smallest value of a bucket.
+     */
+    private static long lowestValue(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * Gets the number of distinct values a bucket covers.
+     */
+    private static long bucketWidth(int bucket) {
+        return bucket < 2 * SUB_BUCKETS ? 1 : 1L << (bucket / SUB_BUCKETS - 1);
+    }
+
+    /**
+     * Converts nanoseconds to fractional milliseconds.
+     */
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Summary of a histogram, exposed over JMX as composite data.
+     */
+    public static final class Snapshot {
+        /**
+         * Number of recorded values.
+         */
+        private final long count;
+
+        /**
+         * Mean in milliseconds.
+         */
+        private final double mean;
+
+        /**
+         * Median in milliseconds.
+         */
+        private final double p50;
+
+        /**
+         * 90th percentile in milliseconds.
+         */
+        private final double p90;
+
+        /**
+         * 99th percentile in milliseconds.
+         */
+        private final double p99;
+
+        /**
+         * 99.9th percentile in milliseconds.
+         */
+        private final double p999;
+
+        /**
+         * Maximum in milliseconds.
+         */
+        private final double max;
+
+        Snapshot(long count, double mean, double p50, double p90, double p99, double p999, double max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public double getP50() {
+            return p50;
+        }
+
+        public double getP90() {
+            return p90;
+        }
+
+        public double getP99() {
+            return p99;
+        }
+
+        public double getP999() {
+            return p999;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n %d, mean %.3f, p50 %.3f, p90 %.3f, p99 %.3f, p99.9 %.3f, max %.3f ms",
+                    count, mean, p50, p90, p99, p999, max);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+import java.nio.CharBuffer;
+
+/**
+ * Splits received characters into lines without creating a string per line.
+ * <p>
+ * Transports write decoded characters into {@link #buffer()} and call {@link #drain}, which passes
+ * every complete line to the listener and keeps the unfinished rest for the next read.
+ */
+public final class LineFramer {
+
+    /**
+     * Received characters; the position marks the end of the valid data.
+     */
+    private CharBuffer chars = CharBuffer.allocate(8192);
+
+    /**
+     * Position up to which the buffer has already been searched for terminators.
+     */
+    private int scanned;
+
+    /**
+     * Gets the buffer the transport should decode or read into.
+     *
+     * @return The buffer, positioned after the data already held.
+     */
+    public CharBuffer buffer() {
+        return chars;
+    }
+
+    /**
+     * Passes every complete line to the listener and compacts the buffer.
+     *
+     * @param listener The receiver of the lines.
+     */
+    public void drain(ClientTransport.Listener listener) {
+        char[] array = chars.array();
+        int filled = chars.position();
+        int lineStart = 0;
+        for (int i = scanned; i < filled; i++) {
+            if (array[i] == '\n') {
+                int lineEnd = (i > lineStart && array[i - 1] == '\r') ? i - 1 : i;
+                listener.onLine(array, lineStart, lineEnd - lineStart);
+                lineStart = i + 1;
+            }
+        }
+
+        // Keep the unfinished line at the start of the buffer
+        int remaining = filled - lineStart;
+        System.arraycopy(array, lineStart, array, 0, remaining);
+        chars.position(remaining);
+        scanned = remaining;
+        if (!chars.hasRemaining()) {
+            CharBuffer larger = CharBuffer.allocate(chars.capacity() * 2);
+            chars.flip();
+            larger.put(chars);
+            chars = larger;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous console logging with levels.
+ * <p>
+ * Callers only claim a slot in a preallocated ring buffer and store the format and its arguments;
+ * a daemon writer thread formats the lines and prints them in batches, so the network threads
+ * never wait for the console. When the ring is full the message is dropped and counted instead of
+ * blocking. Messages below the level cost one comparison and no allocation.
+ * <p>
+ * Formats use {@code {}} as placeholder. The arguments are formatted later on the writer thread,
+ * so they must not change after the call; pass values, not reused objects such as a tokenizer.
+ * <p>
+ * The level is read from the system property {@code reversi.log} (TRACE, DEBUG, INFO or ERROR,
+ * default INFO); the RCV/SND message trace is logged at TRACE.
+ */
+public final class Log {
+
+    /**
+     * Severity of a message.
+     */
+    public enum Level {
+        /**
+         * Every message sent and received.
+         */
+        TRACE(""),
+
+        /**
+         * Details useful while investigating a problem.
+         */
+        DEBUG("DEBUG: "),
+
+        /**
+         * Noteworthy events such as reconnects.
+         */
+        INFO("INFO: "),
+
+        /**
+         * Failures, printed to the error stream.
+         */
+        ERROR("ERR: ");
+
+        /**
+         * Written in front of every line of this level.
+         */
+        private final String prefix;
+
+        Level(String prefix) {
+            this.prefix = prefix;
+        }
+    }
+
+    /**
+     * Number of slots in the ring, a power of two.
+     */
+    private static final int CAPACITY = 8192;
+
+    /**
+     * Time the shutdown hook waits for the writer to print the remaining messages, in milliseconds.
+     */
+    private static final long SHUTDOWN_DRAIN_TIMEOUT = 1000;
+
+    /**
+     * The preallocated slots.
+     */
+    private static final Entry[] RING = createRing();
+
+    /**
+     * Sequence number of the next slot to claim.
+     */
+    private static final AtomicLong CLAIMED = new AtomicLong();
+
+    /**
+     * Number of messages dropped because the ring was full.
+     */
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    /**
+     * The thread formatting and printing the messages.
+     */
+    private static final Thread WRITER = startWriter();
+
+    /**
+     * Sequence number of the next slot the writer prints.
+     */
+    private static volatile long consumed;
+
+    /**
+     * Set while the writer is parked waiting for messages.
+     */
+    private static volatile boolean writerParked;
+
+    /**
+     * Lowest level that is logged.
+     */
+    private static volatile Level level = readLevel();
+
+    private Log() {
+    }
+
+    /**
+     * Changes the lowest level that is logged.
+     *
+     * @param newLevel The new level.
+     */
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    /**
+     * Checks if messages of a level are logged, to skip computing expensive arguments.
+     *
+     * @param messageLevel The level to check.
+     * @return true if messages of that level are logged.
+     */
+    public static boolean isEnabled(Level messageLevel) {
+        return messageLevel.compareTo(level) >= 0;
+    }
+
+    /**
+     * Logs a message of the RCV/SND trace.
+     *
+     * @param message The message.
+     */
+    public static void trace(String message) {
+        if (isEnabled(Level.TRACE)) {
+            publish(Level.TRACE, message, 0, null, null);
+        }
+    }
+
+    /**
+     * Logs a message of the RCV/SND trace.
+     *
+     * @param format The format with one placeholder.
+     * @param a      The argument.
+     */
+    public static void trace(String format, Object a) {
+        if (isEnabled(Level.TRACE)) {
+            publish(Level.TRACE, format, 1, a, null);
+        }
+    }
+
+    /**
+     * Logs a message of the RCV/SND trace.
+     *
+     * @param format The format with two placeholders.
+     * @param a      The first argument.
+     * @param b      The second argument.
+     */
+    public static void trace(String format, Object a, Object b) {
+        if (isEnabled(Level.TRACE)) {
+            publish(Level.TRACE, format, 2, a, b);
+        }
+    }
+
+    /**
+     * Logs a debug message.
+     *
+     * @param format The format with one placeholder.
+     * @param a      The argument.
+     */
+    public static void debug(String format, Object a) {
+        if (isEnabled(Level.DEBUG)) {
+            publish(Level.DEBUG, format, 1, a, null);
+        }
+    }
+
+    /**
+     * Logs an informational message.
+     *
+     * @param message The message.
+     */
+    public static void info(String message) {
+        if (isEnabled(Level.INFO)) {
+            publish(Level.INFO, message, 0, null, null);
+        }
+    }
+
+    /**
+     * Logs an informational message.
+     *
+     * @param format The format with one placeholder.
+     * @param a      The argument.
+     */
+    public static void info(String format, Object a) {
+        if (isEnabled(Level.INFO)) {
+            publish(Level.INFO, format, 1, a, null);
+        }
+    }
+
+    /**
+     * Logs an informational message.
+     *
+     * @param format The format with two placeholders.
+     * @param a      The first argument.
+     * @param b      The second argument.
+     */
+    public static void info(String format, Object a, Object b) {
+        if (isEnabled(Level.INFO)) {
+            publish(Level.INFO, format, 2, a, b);
+        }
+    }
+
+    /**
+     * Logs a failure.
+     *
+     * @param message The message.
+     */
+    public static void error(String message) {
+        if (isEnabled(Level.ERROR)) {
+            publish(Level.ERROR, message, 0, null, null);
+        }
+    }
+
+    /**
+     * Logs a failure.
+     *
+     * @param format The format with one placeholder.
+     * @param a      The argument.
+     */
+    public static void error(String format, Object a) {
+        if (isEnabled(Level.ERROR)) {
+            publish(Level.ERROR, format, 1, a, null);
+        }
+    }
+
+    /**
+     * Logs a failure.
+     *
+     * @param format The format with two placeholders.
+     * @param a      The first argument.
+     * @param b      The second argument.
+     */
+    public static void error(String format, Object a, Object b) {
+        if (isEnabled(Level.ERROR)) {
+            publish(Level.ERROR, format, 2, a, b);
+        }
+    }
+
+    /**
+     * Gets the number of messages dropped so far because the writer could not keep up.
+     *
+     * @return The number of dropped messages.
+     */
+    public static long getDroppedCount() {
+        return DROPPED.get();
+    }
+
+    /**
+     * Claims a slot, fills it and publishes it to the writer; drops the message if the ring is full.
+     */
+    private static void publish(Level messageLevel, String format, int argCount, Object a, Object b) {
+        long sequence;
+        do {
+            sequence = CLAIMED.get();
+            if (sequence - consumed >= CAPACITY) {
+                DROPPED.incrementAndGet();
+                return;
+            }
+        } while (!CLAIMED.compareAndSet(sequence, sequence + 1));
+
+        Entry entry = RING[(int) sequence & (CAPACITY - 1)];
+        entry.level = messageLevel;
+        entry.format = format;
+        entry.argCount = argCount;
+        entry.a = a;
+        entry.b = b;
+        entry.published = sequence;
+        if (writerParked) {
+            LockSupport.unpark(WRITER);
+        }
+    }
+
+    /**
+     * Runs on the writer thread: prints published messages in order and parks when there are none.
+     */
+    private static void write() {
+        StringBuilder batch = new StringBuilder(4096);
+        long reportedDrops = 0;
+        while (true) {
+            long sequence = consumed;
+            Entry entry = RING[(int) sequence & (CAPACITY - 1)];
+            if (entry.published != sequence) {
+                writerParked = true;
+                // Checked again after announcing the park, a producer publishing meanwhile unparks
+                if (entry.published != sequence) {
+                    LockSupport.park();
+                }
+                writerParked = false;
+                continue;
+            }
+
+            PrintStream stream = entry.level == Level.ERROR ? System.err : System.out;
+            batch.setLength(0);
+            // Print everything published so far that goes to the same stream with one call
+            do {
+                batch.append(entry.level.prefix);
+                format(batch, entry);
+                batch.append(System.lineSeparator());
+                entry.format = null;
+                entry.a = null;
+                entry.b = null;
+                consumed = ++sequence;
+                entry = RING[(int) sequence & (CAPACITY - 1)];
+            } while (entry.published == sequence
+                    && (entry.level == Level.ERROR ? System.err : System.out) == stream);
+
+            stream.print(batch);
+            stream.flush();
+
+            long drops = DROPPED.get();
+            if (drops != reportedDrops) {
+                System.err.println(Level.ERROR.prefix + "Log buffer full, " + (drops - reportedDrops) + " messages dropped");
+                reportedDrops = drops;
+            }
+        }
+    }
+
+    /**
+     * Replaces the placeholders of the entry's format with its arguments.
+     */
+    private static void format(StringBuilder out, Entry entry) {
+        String format = entry.format;
+        int start = 0;
+        for (int arg = 0; arg < entry.argCount; arg++) {
+            int placeholder = format.indexOf("{}", start);
+            if (placeholder < 0) {
+                break;
+            }
+            out.append(format, start, placeholder).append(arg == 0 ? entry.a : entry.b);
+            start = placeholder + 2;
+        }
+        out.append(format, start, format.length());
+    }
+
+    /**
+     * Waits until the writer printed everything published so far, used when the process exits.
+     */
+    private static void drain() {
+        long target = CLAIMED.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_DRAIN_TIMEOUT);
+        while (consumed < target && System.nanoTime() < deadline) {
+            LockSupport.unpark(WRITER);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Allocates the slots of the ring.
+     */
+    private static Entry[] createRing() {
+        Entry[] ring = new Entry[CAPACITY];
+        for (int i = 0; i < CAPACITY; i++) {
+            ring[i] = new Entry();
+        }
+        return ring;
+    }
+
+    /**
+     * Starts the writer thread and registers the shutdown drain.
+     */
+    private static Thread startWriter() {
+        Thread writer = new Thread(Log::write, "reversi-log");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::drain, "reversi-log-drain"));
+        return writer;
+    }
+
+    /**
+     * Reads the level from the {@code reversi.log} system property.
+     */
+    private static Level readLevel() {
+        String name = System.getProperty("reversi.log", Level.INFO.name());
+        try {
+            return Level.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERR: Unknown log level " + name + ", using INFO");
+            return Level.INFO;
+        }
+    }
+
+    /**
+     * One slot of the ring.
+     */
+    private static final class Entry {
+        /**
+         * Sequence number of the message in the slot, written last to publish it.
+         */
+        private volatile long published = -1;
+
+        /**
+         * Level of the message.
+         */
+        private Level level;
+
+        /**
+         * The format of the message.
+         */
+        private String format;
+
+        /**
+         * Number of arguments used.
+         */
+        private int argCount;
+
+        /**
+         * The first argument.
+         */
+        private Object a;
+
+        /**
+         * The second argument.
+         */
+        private Object b;
+    }
+}
@@ -0,0 +1,216 @@
+import java.nio.CharBuffer;
+
+/**
+ * Cursor-based reader of the semicolon-separated server messages.
+ * <p>
+ * The tokenizer copies a line into its own reusable buffer and hands out the fields one by one,
+ * so parsing numbers, characters and comparing keywords allocates nothing. Only fields that are
+ * kept beyond the current message, such as player names, are turned into strings.
+ */
+public final class MessageTokenizer {
+
+    /**
+     * Separator of the message fields.
+     */
+    public static final char SEPARATOR = ';';
+
+    /**
+     * Characters of the current message.
+     */
+    private char[] chars = new char[256];
+
+    /**
+     * Number of valid characters in {@link #chars}.
+     */
+    private int length;
+
+    /**
+     * Position where the next field starts.
+     */
+    private int cursor;
+
+    /**
+     * Start of the last field returned.
+     */
+    private int fieldStart;
+
+    /**
+     * End (exclusive) of the last field returned.
+     */
+    private int fieldEnd;
+
+    /**
+     * Starts reading a new message.
+     *
+     * @param line The message without the line terminator.
+     * @return This tokenizer.
+     */
+    public MessageTokenizer reset(String line) {
+        ensureCapacity(line.length());
+        line.getChars(0, line.length(), chars, 0);
+        return rewind(line.length());
+    }
+
+    /**
+     * Starts reading a new message from a character buffer.
+     *
+     * @param source The buffer holding the message.
+     * @param offset The first character of the message.
+     * @param count  The number of characters in the message.
+     * @return This tokenizer.
+     */
+    public MessageTokenizer reset(char[] source, int offset, int count) {
+        ensureCapacity(count);
+        System.arraycopy(source, offset, chars, 0, count);
+        return rewind(count);
+    }
+
+    /**
+     * Checks if there is another non-trailing field to read. Like {@link String#split(String)},
+     * an empty field at the end of the message is not reported.
+     *
+     * @return true if at least one more field is available.
+     */
+    public boolean hasNext() {
+        return cursor < length;
+    }
+
+    /**
+     * Advances to the next field without converting it. Past the end of the message every field
+     * reads as empty.
+     *
+     * @return This tokenizer.
+     */
+    public MessageTokenizer skip() {
+        fieldStart = Math.min(cursor, length);
+        int end = fieldStart;
+        while (end < length && chars[end] != SEPARATOR) {
+            end++;
+        }
+        fieldEnd = end;
+        cursor = end + 1;
+        return this;
+    }
+
+    /**
+     * Reads the next field as a decimal integer.
+     *
+     * @return The parsed value.
+     * @throws NumberFormatException If the field is not a number or does not fit into an int.
+     */
+    public int nextInt() {
+        skip();
+        int pos = fieldStart;
+        boolean negative = pos < fieldEnd && chars[pos] == '-';
+        if (negative) {
+            pos++;
+        }
+        if (pos >= fieldEnd) {
+            throw new NumberFormatException("Empty numeric field");
+        }
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+        for (; pos < fieldEnd; pos++) {
+            int digit = chars[pos] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid numeric field");
+            }
+            value = value * 10 + digit;
+            if (value > limit) {
+                throw new NumberFormatException("Numeric field out of range");
+            }
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * Reads the first character of the next field.
+     *
+     * @return The character, or '\0' if the field is empty.
+     */
+    public char nextChar() {
+        skip();
+        return fieldStart < fieldEnd ? chars[fieldStart] : '\0';
+    }
+
+    /**
+     * Reads the next field as a string. This is the only allocating accessor.
+     *
+     * @return The field content.
+     */
+    public String nextString() {
+        skip();
+        return new String(chars, fieldStart, fieldEnd - fieldStart);
+    }
+
+    /**
+     * Reads the next field as a view of the tokenizer's buffer, which is only valid until the
+     * next reset. Lets large fields such as boards be decoded without copying them into a string.
+     *
+     * @return The field content.
+     */
+    public CharSequence nextSequence() {
+        skip();
+        return CharBuffer.wrap(chars, fieldStart, fieldEnd - fieldStart);
+    }
+
+    /**
+     * Reads the next field and compares it with the given text.
+     *
+     * @param text The expected content.
+     * @return true if the field equals the text.
+     */
+    public boolean nextEquals(String text) {
+        skip();
+        return fieldEquals(text);
+    }
+
+    /**
+     * Compares the last field read with the given text.
+     *
+     * @param text The expected content.
+     * @return true if the field equals the text.
+     */
+    public boolean fieldEquals(String text) {
+        int fieldLength = fieldEnd - fieldStart;
+        if (text == null || text.length() != fieldLength) {
+            return false;
+        }
+        for (int i = 0; i < fieldLength; i++) {
+            if (chars[fieldStart + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the whole message as a string, for diagnostics.
+     *
+     * @return The current message.
+     */
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Resets the cursor to the beginning of a message of the given length.
+     */
+    private MessageTokenizer rewind(int count) {
+        length = count;
+        cursor = 0;
+        fieldStart = 0;
+        fieldEnd = -1;
+        return this;
+    }
+
+    /**
+     * Grows the buffer if a message does not fit.
+     */
+    private void ensureCapacity(int capacity) {
+        if (chars.length < capacity) {
+            chars = new char[Math.max(capacity, chars.length * 2)];
+        }
+    }
+}
@@ -0,0 +1,53 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the clicks rejected locally, i.e. the MOVE round trips that would have ended
+ * with one of the {@link NetworkClient#UNACCEPTABLE_MOVE_CODES}.
+ */
+public class MoveGateCounters {
+
+    /**
+     * One counter per error code, indexed by the code itself.
+     */
+    private final AtomicLongArray saved = new AtomicLongArray(NetworkClient.ERR_FIELD_OCCUPIED + 1);
+
+    /**
+     * Records a move rejected before it was sent.
+     *
+     * @param errorCode The error the server would have answered with.
+     */
+    public void record(int errorCode) {
+        saved.incrementAndGet(errorCode);
+    }
+
+    /**
+     * Gets the number of round trips saved for one error code.
+     *
+     * @param errorCode One of the {@link NetworkClient#UNACCEPTABLE_MOVE_CODES}.
+     * @return The number of locally rejected moves.
+     */
+    public long getSaved(int errorCode) {
+        return saved.get(errorCode);
+    }
+
+    /**
+     * Gets the number of round trips saved in total.
+     *
+     * @return The number of locally rejected moves.
+     */
+    public long getTotalSaved() {
+        long total = 0;
+        for (int code : NetworkClient.UNACCEPTABLE_MOVE_CODES) {
+            total += saved.get(code);
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "saved round trips: " + getTotalSaved()
+                + " (not my turn " + getSaved(NetworkClient.ERR_NOT_MY_TURN)
+                + ", occupied " + getSaved(NetworkClient.ERR_FIELD_OCCUPIED)
+                + ", invalid " + getSaved(NetworkClient.ERR_INVALID_MOVE) + ")";
+    }
+}
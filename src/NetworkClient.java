@@ -1,11 +1,11 @@
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.Socket;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Handles all network-related operations for the Reversi game,
@@ -53,6 +53,21 @@ public class NetworkClient {
      */
     public static final long CONNECTION_ZOMBIE_TIMEOUT = 20000;
 
+    /**
+     * Ceiling of the first reconnect delay in milliseconds.
+     */
+    public static final long RECONNECT_BASE_DELAY = 250;
+
+    /**
+     * Largest ceiling of a reconnect delay in milliseconds.
+     */
+    public static final long RECONNECT_MAX_DELAY = 8000;
+
+    /**
+     * Time after the loss of the connection when reconnecting is given up, in milliseconds.
+     */
+    public static final long RECONNECT_TIMEOUT = 60000;
+
     /**
      * A server status indicating the game ended in a draw.
      */
@@ -64,61 +79,204 @@ public class NetworkClient {
     public static final String STATUS_MSG_OPPONENT_LEFT = "OPP_DISCONNECTED";
 
     /**
-     * The client socket used for communication.
+     * The connection used for communication with the server, replaced on reconnect.
+     */
+    private volatile ClientTransport transport;
+
+    /**
+     * The server IP address, kept for reconnecting.
+     */
+    private final String serverAddress;
+
+    /**
+     * The server port, kept for reconnecting.
+     */
+    private final int port;
+
+    /**
+     * The transport implementation, null if the client cannot reconnect.
+     */
+    private final ClientTransport.Mode mode;
+
+    /**
+     * The name sent with the last LOGIN, used to log in again after a reconnect.
+     */
+    private volatile String loginName;
+
+    /**
+     * Announces support for compact and delta board syncs in the LOGIN message.
      */
-    private Socket networkSocket;
+    private volatile boolean compactSync;
 
     /**
-     * A reader for receiving data from the server.
+     * Asks the server for the {@link BinaryProtocol} framing in the LOGIN message.
      */
-    private BufferedReader readerStream;
+    private volatile boolean binaryFraming;
 
     /**
-     * A writer for sending data to the server.
+     * Set while a LOGIN asking for the binary framing is unanswered; messages wait until the
+     * reply tells which framing the server reads next.
      */
-    private PrintWriter writerStream;
+    private volatile boolean awaitingLoginReply;
+
+    /**
+     * Set once the current connection uses the binary framing.
+     */
+    private volatile boolean binaryActive;
+
+    /**
+     * Set while the connection is down and the client tries to get it back.
+     */
+    private volatile boolean reconnecting;
+
+    /**
+     * Set when the client logged out or was closed on purpose, which stops reconnecting.
+     */
+    private volatile boolean closedByUser;
+
+    /**
+     * Messages sent while reconnecting, delivered in order once the session is back.
+     */
+    private final Queue<String> pendingMessages = new ArrayDeque<>();
+
+    /**
+     * Delays between reconnect attempts.
+     */
+    private final ExponentialBackoff backoff = new ExponentialBackoff(RECONNECT_BASE_DELAY, RECONNECT_MAX_DELAY);
+
+    /**
+     * The thread trying to reconnect, null while connected.
+     */
+    private Thread reconnectThread;
 
     /**
      * The main game controller, responsible for handling game logic.
      */
-    private GameController mainController;
+    private ClientController mainController;
+
+    /**
+     * Watches the time since the last PING and reports a silent server.
+     */
+    private final ConnectionWatchdog watchdog = new ConnectionWatchdog(
+            CONNECTION_TIMEOUT, CONNECTION_ZOMBIE_TIMEOUT, this::onConnectionIssue, this::onConnectionDead);
+
+    /**
+     * Set once the loss of the connection has been reported to the controller.
+     */
+    private final AtomicBoolean connectionLossReported = new AtomicBoolean();
 
     /**
-     * Tracks the timestamp of the last received ping message.
+     * Reusable tokenizer for the messages read by the listener thread.
      */
-    private long timestampLastPing;
+    private final MessageTokenizer tokenizer = new MessageTokenizer();
 
     /**
-     * A flag indicating whether a connection message is needed.
+     * Handlers of the server commands, built once per client.
      */
-    private boolean pendingConnectionMessage = true;
+    private final Map<ServerCommand, Runnable> commandHandlers = createCommandHandlers();
 
     /**
-     * Constructs a new NetworkClient, attempts a connection, and starts two background threads:
-     * one for listening to the server and one for monitoring connection health.
+     * Latency and health metrics, shared by all clients of the process.
+     */
+    private final ClientMetrics metrics = ClientMetrics.global();
+
+    /**
+     * Time the last move was sent, 0 once its reply arrived.
+     */
+    private volatile long moveSentNanos;
+
+    /**
+     * Arrival time of the last PING, 0 before the first one.
+     */
+    private long lastPingNanos;
+
+    /**
+     * Time between the last two PINGs, 0 before the second one.
+     */
+    private long lastPingInterval;
+
+    /**
+     * Constructs a new NetworkClient over a blocking socket, attempts a connection, and starts
+     * listening to the server and watching the connection health.
      *
      * @param serverAddress The server IP address.
      * @param port          The server port.
      * @param controller    The main game controller.
      * @throws IOException If an I/O error occurs when opening the socket.
      */
-    public NetworkClient(String serverAddress, int port, GameController controller) throws IOException {
-        try {
-            networkSocket = new Socket(serverAddress, port);
-            readerStream = new BufferedReader(new InputStreamReader(networkSocket.getInputStream()));
-            writerStream = new PrintWriter(networkSocket.getOutputStream(), true);
-
-            this.mainController = controller;
-            this.timestampLastPing = System.currentTimeMillis();
+    public NetworkClient(String serverAddress, int port, ClientController controller) throws IOException {
+        this(serverAddress, port, controller, ClientTransport.Mode.SOCKET);
+    }
 
-            new Thread(this::listenToServer).start();
-            new Thread(this::monitorConnectionHealth).start();
+    /**
+     * Constructs a new NetworkClient over the given transport and attempts a connection.
+     *
+     * @param serverAddress The server IP address.
+     * @param port          The server port.
+     * @param controller    The main game controller.
+     * @param mode          The transport implementation to use.
+     * @throws IOException If an I/O error occurs when connecting.
+     */
+    public NetworkClient(String serverAddress, int port, ClientController controller,
+                         ClientTransport.Mode mode) throws IOException {
+        this.mainController = controller;
+        this.serverAddress = serverAddress;
+        this.port = port;
+        this.mode = mode;
+        try {
+            this.transport = openTransport();
+            watchdog.start();
         } catch (IOException e) {
-            System.err.println("ERR: Server connect");
+            Log.error("Server connect");
             throw e;
         }
     }
 
+    /**
+     * Constructs a NetworkClient on top of an existing transport without starting the connection
+     * watchdog. Used by benchmarks that feed messages to {@link #interpretServerMessage} directly.
+     *
+     * @param controller The receiver of the game events.
+     * @param transport  The transport used for replies such as PONG.
+     */
+    NetworkClient(ClientController controller, ClientTransport transport) {
+        this.mainController = controller;
+        this.transport = transport;
+        this.serverAddress = null;
+        this.port = 0;
+        this.mode = null;
+    }
+
+    /**
+     * Opens a connection to the server whose traffic is handled by this client.
+     *
+     * @return The connected transport.
+     * @throws IOException If the connection cannot be established.
+     */
+    private ClientTransport openTransport() throws IOException {
+        return ClientTransport.open(mode, serverAddress, port, new ClientTransport.Listener() {
+            @Override
+            public void onLine(char[] buffer, int offset, int count) {
+                interpretServerMessage(buffer, offset, count);
+            }
+
+            @Override
+            public void onFrame(int opcode, ByteBuffer payload) {
+                if (!interpretServerFrame(opcode, payload)) {
+                    ClientTransport.Listener.super.onFrame(opcode, payload);
+                }
+            }
+
+            @Override
+            public void onDisconnect(IOException cause) {
+                if (!closedByUser) {
+                    Log.error("Connection inactive (listenToServer)");
+                }
+                onConnectionLost();
+            }
+        });
+    }
+
     /**
      * Sends a move to the server, specifying the coordinates for the move.
      *
@@ -126,13 +284,12 @@ public class NetworkClient {
      * @param toY The y-coordinate.
      */
     public void sendMove(int toX, int toY) {
-        if (writerStream.checkError()) {
-            System.err.println("ERR: Connection inactive");
-            mainController.displayError("Connection inactive");
-            System.exit(0);
+        Log.trace("SND: {};{}", toX, toY);
+        metrics.recordMoveSent();
+        moveSentNanos = System.nanoTime();
+        if (!binaryActive || !sendFrame(BinaryProtocol.frame(transport.frameBuffer(), BinaryProtocol.OP_MOVE, toX, toY))) {
+            sendOrQueue("MOVE;" + toX + ";" + toY);
         }
-        System.out.println("SND: " + toX + ";" + toY);
-        writerStream.println("MOVE;" + toX + ";" + toY + "\n");
     }
 
     /**
@@ -141,13 +298,20 @@ public class NetworkClient {
      * @param name The name of the player.
      */
     public void requestLogin(String name) {
-        if (writerStream.checkError()) {
-            System.err.println("ERR: Connection inactive");
-            mainController.displayError("Connection inactive");
-            System.exit(0);
+        Log.trace("SNDS: Login");
+        loginName = name;
+        synchronized (pendingMessages) {
+            if (reconnecting) {
+                // The reconnect logs in with the new name
+                return;
+            }
+            if (transport.isOpen()) {
+                sendLogin(transport);
+                return;
+            }
         }
-        System.out.println("SNDS: Login");
-        writerStream.println("LOGIN;" + name + "\n");
+        Log.error("Connection inactive");
+        reportConnectionLoss();
     }
 
     /**
@@ -156,188 +320,477 @@ public class NetworkClient {
      * @param response The player's choice, e.g. "WAIT" or "NOT_WAIT".
      */
     public void sendOppDiscResponse(String response) {
-        if (writerStream.checkError()) {
-            System.err.println("ERR: Connection inactive");
-            mainController.displayError("Connection inactive");
-            System.exit(0);
-        }
-        System.out.println("SNDS: opponent disconnect response");
-        writerStream.println("WAIT_REPLY;" + response + "\n");
+        Log.trace("SNDS: opponent disconnect response");
+        sendOrQueue("WAIT_REPLY;" + response);
+    }
+
+    /**
+     * Asks the server for a full board snapshot, e.g. after a board delta did not match the local position.
+     */
+    public void requestBoardSnapshot() {
+        Log.info("Local board out of step, requesting a snapshot");
+        sendOrQueue("RESYNC;");
     }
 
     /**
      * Requests a new game from the server.
      */
     public void requestNewGame() {
-        if (writerStream.checkError()) {
-            System.err.println("ERR: Connection inactive");
-            mainController.displayError("Connection inactive");
-            System.exit(0);
-            return;
-        }
-        System.out.println("SNDS: Game request\n");
-        writerStream.println("JOIN_GAME;\n");
+        Log.trace("SNDS: Game request\n");
+        sendOrQueue("JOIN_GAME;");
     }
 
     /**
      * Sends a logout message to the server, requesting termination of the session.
      */
     public void sendLogout() {
-        if (writerStream.checkError()) {
-            System.err.println("ERR: Connection inactive");
-            mainController.displayError("Connection inactive");
-            System.exit(0);
+        Log.trace("SNDS: Logout\n");
+        closedByUser = true;
+        if (reconnecting) {
+            // Nobody is listening, leaving is enough
+            close();
+            return;
         }
-        System.out.println("SNDS: Logout\n");
-        writerStream.println("LOGOUT;\n");
+        sendOrQueue("LOGOUT;");
     }
 
     /**
-     * Continuously listens to the server's messages and processes them.
+     * Asks the server for compact and delta board syncs. Must be set before logging in; servers
+     * that do not know the extension keep sending plain boards.
+     *
+     * @param enabled true to request the compact forms.
      */
-    public void listenToServer() {
-        String serverMsg;
-        try {
-            while ((serverMsg = readerStream.readLine()) != null) {
-                interpretServerMessage(serverMsg);
+    public void setCompactSync(boolean enabled) {
+        this.compactSync = enabled;
+    }
+
+    /**
+     * Asks the server for the {@link BinaryProtocol} framing. Must be set before logging in; only
+     * transports that support it send the request, and servers that do not know it stay on text.
+     *
+     * @param enabled true to request the binary framing.
+     */
+    public void setBinaryFraming(boolean enabled) {
+        this.binaryFraming = enabled;
+    }
+
+    /**
+     * Sends the LOGIN message on a fresh connection. If it asks for the binary framing, later
+     * messages are held back until the reply arrives. Called with the {@link #pendingMessages} lock held.
+     *
+     * @param target The connection to log in on.
+     */
+    private void sendLogin(ClientTransport target) {
+        boolean binary = binaryFraming && target.supportsBinary();
+        binaryActive = false;
+        awaitingLoginReply = binary;
+        if (binary) {
+            target.beginFramingNegotiation();
+        }
+        target.send(loginMessage(binary));
+    }
+
+    /**
+     * Builds the LOGIN message. With compact syncs it carries the move sequence number of the
+     * local board, so a resumed session only needs the moves made since.
+     *
+     * @param binary true to ask for the binary framing.
+     * @return The message without a line terminator.
+     */
+    private String loginMessage(boolean binary) {
+        StringBuilder message = new StringBuilder("LOGIN;").append(loginName);
+        if (compactSync) {
+            message.append(';').append(mainController.getMoveSequence());
+        }
+        if (binary) {
+            message.append(';').append(BinaryProtocol.LOGIN_OPTION);
+        }
+        return message.toString();
+    }
+
+    /**
+     * Sends the messages held back while reconnecting or negotiating the framing. Called with
+     * the {@link #pendingMessages} lock held.
+     *
+     * @param target The connection to send them on.
+     */
+    private void flushPending(ClientTransport target) {
+        String message;
+        while ((message = pendingMessages.poll()) != null) {
+            target.send(message);
+        }
+    }
+
+    /**
+     * Sends a binary frame if the connection is up and switched to the binary framing.
+     *
+     * @param frame The encoded frame.
+     * @return false if the frame was not sent, the caller then falls back to {@link #sendOrQueue(String)}.
+     */
+    private boolean sendFrame(ByteBuffer frame) {
+        synchronized (pendingMessages) {
+            if (reconnecting || awaitingLoginReply || !binaryActive || !transport.isOpen()) {
+                return false;
             }
-        } catch (IOException e) {
-            System.err.println("ERR: Connection inactive (listenToServer)");
-            mainController.displayError("Connection inactive");
-            System.exit(0);
         }
+        transport.sendFrame(frame);
+        return true;
     }
 
     /**
-     * Monitors the connection at periodic intervals to detect timeouts and
-     * trigger notifications or errors in the GameController.
+     * Sends a message, or keeps it for the new connection while reconnecting.
+     *
+     * @param message The message without a line terminator.
      */
-    private void monitorConnectionHealth() {
-        while (true) {
-            long now = System.currentTimeMillis();
-            if (now - this.timestampLastPing > CONNECTION_TIMEOUT && this.pendingConnectionMessage) {
-                System.err.println("ERR: Connection inactive (monitorConnection)");
-                this.pendingConnectionMessage = false;
-                mainController.notifyConnectionIssue();
+    private void sendOrQueue(String message) {
+        synchronized (pendingMessages) {
+            if (reconnecting || awaitingLoginReply) {
+                pendingMessages.add(message);
+                return;
             }
+        }
+        if (!transport.isOpen()) {
+            if (closedByUser) {
+                // E.g. the reply to a ping read while the connection was closing
+                return;
+            }
+            Log.error("Connection inactive");
+            reportConnectionLoss();
+            return;
+        }
+        transport.send(message);
+    }
 
-            if (now - this.timestampLastPing > CONNECTION_ZOMBIE_TIMEOUT) {
-                System.err.println("ERR: Connection inactive - zombie timeout (monitorConnection)");
-                mainController.displayError("Connection inactive");
+    /**
+     * Closes the connection and stops the connection watchdog and any reconnect attempts.
+     */
+    public void close() {
+        closedByUser = true;
+        watchdog.stop();
+        transport.close();
+        synchronized (pendingMessages) {
+            if (reconnectThread != null) {
+                reconnectThread.interrupt();
             }
+        }
+    }
+
+    /**
+     * Called by the watchdog when no PING arrived for {@link #CONNECTION_TIMEOUT}.
+     */
+    private void onConnectionIssue() {
+        Log.error("Connection inactive (watchdog)");
+        mainController.notifyConnectionIssue();
+    }
+
+    /**
+     * Called by the watchdog when no PING arrived for {@link #CONNECTION_ZOMBIE_TIMEOUT}.
+     */
+    private void onConnectionDead() {
+        Log.error("Connection inactive - zombie timeout (watchdog)");
+        onConnectionLost();
+    }
 
+    /**
+     * Drops the broken connection and starts reconnecting, unless the client cannot resume a session.
+     */
+    private void onConnectionLost() {
+        watchdog.stop();
+        transport.close();
+        if (closedByUser) {
+            // The server closes the connection after a logout
+            return;
+        }
+        if (mode == null || loginName == null) {
+            reportConnectionLoss();
+            return;
+        }
+        synchronized (pendingMessages) {
+            if (reconnecting) {
+                return;
+            }
+            reconnecting = true;
+            reconnectThread = new Thread(this::reconnect, "reversi-reconnect");
+            reconnectThread.setDaemon(true);
+            reconnectThread.start();
+        }
+        mainController.displayNotification("Connection lost, reconnecting...");
+    }
+
+    /**
+     * Tries to connect again with growing, jittered delays, then logs in under the same name.
+     * The server answers the login with RECONNECT if the game is still running, and the messages
+     * sent meanwhile follow the login on the new connection.
+     */
+    private void reconnect() {
+        long lostAt = System.currentTimeMillis();
+        long giveUp = lostAt + RECONNECT_TIMEOUT;
+        backoff.reset();
+        while (!closedByUser) {
+            long delay = backoff.nextDelay();
+            if (System.currentTimeMillis() + delay > giveUp) {
+                break;
+            }
             try {
-                Thread.sleep(100);
+                Thread.sleep(delay);
             } catch (InterruptedException e) {
-                e.printStackTrace();
+                return;
+            }
+            try {
+                ClientTransport next = openTransport();
+                synchronized (pendingMessages) {
+                    transport = next;
+                    sendLogin(next);
+                    if (!awaitingLoginReply) {
+                        flushPending(next);
+                    }
+                    reconnecting = false;
+                    reconnectThread = null;
+                }
+                Log.info("Reconnected after {} ms", System.currentTimeMillis() - lostAt);
+                watchdog.start();
+                mainController.displayNotification("Reconnected");
+                return;
+            } catch (IOException e) {
+                Log.error("Reconnect attempt failed: {}", e.getMessage());
             }
         }
+        synchronized (pendingMessages) {
+            pendingMessages.clear();
+            reconnecting = false;
+            reconnectThread = null;
+        }
+        if (!closedByUser) {
+            reportConnectionLoss();
+        }
+    }
+
+    /**
+     * Tells the controller that the connection is gone, only the first time it is detected.
+     */
+    private void reportConnectionLoss() {
+        if (connectionLossReported.compareAndSet(false, true)) {
+            mainController.displayError("Connection inactive");
+        }
+    }
+
+    /**
+     * Builds the dispatch table from server commands to their handlers.
+     *
+     * @return The handlers keyed by command.
+     */
+    private Map<ServerCommand, Runnable> createCommandHandlers() {
+        Map<ServerCommand, Runnable> handlers = new EnumMap<>(ServerCommand.class);
+        handlers.put(ServerCommand.GAME_STATUS, this::handleGameStatus);
+        handlers.put(ServerCommand.LOGIN, this::handleLogin);
+        handlers.put(ServerCommand.JOIN_GAME, this::handleJoinGame);
+        handlers.put(ServerCommand.START_GAME, this::handleStartGame);
+        handlers.put(ServerCommand.MOVE, this::handleMove);
+        handlers.put(ServerCommand.OPP_MOVE, this::handleOppMove);
+        handlers.put(ServerCommand.PING, this::onPing);
+        handlers.put(ServerCommand.OPP_DISCONNECTED, this::handleOppDisconnected);
+        handlers.put(ServerCommand.RECONNECT, this::handleReconnect);
+        return handlers;
     }
 
     /**
      * Parses and reacts to a single line of text received from the server.
      *
-     * @param response A line of text from the server, containing instructions or status codes.
-     */
-    private void interpretServerMessage(String response) {
-        Map<String, Runnable> commandHandlers = new HashMap<>();
-        String[] parts = response.split(";");
-
-        commandHandlers.put("GAME_STATUS", () -> {
-            System.out.println("RCV: GAME_STATUS");
-            if (parts[1].equals(STATUS_MSG_DRAW)) {
-                new Thread(() -> mainController.displayResult("DRAW")).start();
-            } else if (parts[1].equals(STATUS_MSG_OPPONENT_LEFT)) {
-                new Thread(() -> mainController.displayResult("OPPONENT DID NOT WANT TO WAIT FOR YOU")).start();
-            } else {
-                new Thread(() -> mainController.displayResult(
-                        parts[1].equals(mainController.getModel().getLocalPlayer().getName())
-                                ? "Winner winner chicken dinner!"
-                                : "Better luck next time..."
-                )).start();
-            }
-        });
+     * @param buffer The buffer holding the line.
+     * @param offset The first character of the line.
+     * @param count  The length of the line without its terminator.
+     */
+    void interpretServerMessage(char[] buffer, int offset, int count) {
+        tokenizer.reset(buffer, offset, count);
+        dispatchServerMessage();
+    }
 
-        commandHandlers.put("LOGIN", () -> {
-            System.out.println("RCV: LOGIN_OK");
-            mainController.getModel().setLocalPlayer(new Player(parts[1]));
-        });
+    /**
+     * Reacts to a binary frame of the hot path without going through text.
+     *
+     * @param opcode  The opcode of the frame.
+     * @param payload The fields of the frame.
+     * @return false if the opcode has no binary handler.
+     */
+    boolean interpretServerFrame(int opcode, ByteBuffer payload) {
+        switch (opcode) {
+            case BinaryProtocol.OP_MOVE_RESULT:
+                metrics.recordMessage(ServerCommand.MOVE);
+                int status = BinaryProtocol.getInt(payload);
+                if (isUnacceptableMove(status)) {
+                    onMoveRejected(status);
+                } else {
+                    onMoveAccepted(BinaryProtocol.getInt(payload), BinaryProtocol.getInt(payload));
+                }
+                return true;
+            case BinaryProtocol.OP_OPP_MOVE:
+                metrics.recordMessage(ServerCommand.OPP_MOVE);
+                onOppMove(BinaryProtocol.getInt(payload), BinaryProtocol.getInt(payload));
+                return true;
+            case BinaryProtocol.OP_PING:
+                metrics.recordMessage(ServerCommand.PING);
+                onPing();
+                return true;
+            default:
+                return false;
+        }
+    }
 
-        commandHandlers.put("JOIN_GAME", () -> {
-            System.out.println("RCV: JOIN_GAME");
-            mainController.getModel().getLocalPlayer().setPlayerToken(parts[1].charAt(0));
-            mainController.displayWaitingScreen();
-        });
+    /**
+     * Looks up the handler of the message loaded in the tokenizer and runs it.
+     * A message with an unknown command or a malformed field closes the connection.
+     */
+    private void dispatchServerMessage() {
+        ServerCommand command = ServerCommand.read(tokenizer);
+        Runnable commandHandler = command != null ? commandHandlers.get(command) : null;
+        if (commandHandler == null) {
+            rejectServerMessage();
+            return;
+        }
+        metrics.recordMessage(command);
+        try {
+            commandHandler.run();
+        } catch (IllegalArgumentException e) {
+            // Also a NumberFormatException from a numeric field
+            rejectServerMessage();
+        }
+    }
 
-        commandHandlers.put("START_GAME", () -> {
-            System.out.println("RCV: GAME_STARTED");
-            mainController.getModel().setRemotePlayer(parts[1], parts[2].charAt(0));
-            mainController.setMyTurn(parts[3].charAt(0) == '1');
-            if (mainController.isMyTurn()) {
-                mainController.displayNotification("Your turn!");
-            } else {
-                mainController.displayNotification("Waiting for opponent move");
-            }
-            mainController.startNewGame();
-        });
+    /**
+     * Reports the message loaded in the tokenizer as invalid and closes the connection.
+     */
+    private void rejectServerMessage() {
+        Log.error("Invalid server msg -> close connection {}", tokenizer.toString());
+        mainController.displayError("Invalid server message");
+        close();
+    }
 
-        commandHandlers.put("MOVE", () -> {
-            System.out.println("RCV: MOVE");
-            int status = Integer.parseInt(parts[1]);
-            if (UNACCEPTABLE_MOVE_CODES.contains(status)) {
-                mainController.displayNotification("Invalid move, try again");
-                System.out.println("Invalid move: " + status);
+    private void handleGameStatus() {
+        Log.trace("RCV: GAME_STATUS");
+        mainController.gameEnded(tokenizer.nextString());
+    }
+
+    private void handleLogin() {
+        Log.trace("RCV: LOGIN_OK");
+        mainController.loggedIn(tokenizer.nextString());
+        boolean binary = tokenizer.hasNext() && tokenizer.nextEquals(BinaryProtocol.LOGIN_OPTION);
+        synchronized (pendingMessages) {
+            if (!awaitingLoginReply) {
                 return;
             }
-            mainController.setMyTurn(false);
-            mainController.refreshGameBoard(Integer.parseInt(parts[2]), Integer.parseInt(parts[3]),
-                    mainController.getModel().getLocalPlayer());
-            mainController.displayNotification("Waiting for opponent move");
-            mainController.refreshHeader();
-        });
+            if (binary) {
+                // The server reads frames from here on, the rest of this read is framed as well
+                transport.switchToBinary();
+                binaryActive = true;
+            } else {
+                transport.endFramingNegotiation();
+            }
+            awaitingLoginReply = false;
+            flushPending(transport);
+        }
+    }
 
-        commandHandlers.put("OPP_MOVE", () -> {
-            System.out.println("RCV: OPP_MOVE");
-            int toX = Integer.parseInt(parts[1]);
-            int toY = Integer.parseInt(parts[2]);
-            mainController.setMyTurn(true);
-            mainController.refreshGameBoard(toX, toY, mainController.getModel().getRemotePlayer());
-            mainController.displayNotification("Your turn!");
-            mainController.refreshHeader();
-        });
+    private void handleJoinGame() {
+        Log.trace("RCV: JOIN_GAME");
+        mainController.joinedGame(tokenizer.nextChar());
+    }
 
-        commandHandlers.put("PING", () -> {
-            System.out.println("RCV: PING");
-            this.timestampLastPing = System.currentTimeMillis();
-            this.pendingConnectionMessage = true;
-            writerStream.println("PONG;\n");
-        });
+    private void handleStartGame() {
+        Log.trace("RCV: GAME_STARTED");
+        String remoteName = tokenizer.nextString();
+        char remoteToken = tokenizer.nextChar();
+        boolean myTurn = tokenizer.nextChar() == '1';
+        int boardSize = tokenizer.hasNext() ? tokenizer.nextInt() : GameView.DEFAULT_BOARD_SIZE;
+        mainController.gameStarted(remoteName, remoteToken, myTurn, boardSize);
+    }
 
-        commandHandlers.put("OPP_DISCONNECTED", () -> {
-            System.out.println("RCV: OPP_DISCONNECTED");
-            mainController.setMyTurn(false);
-            mainController.refreshGameView();
-            new Thread(() -> mainController.notifyDisconnection()).start();
-        });
+    private void handleMove() {
+        int status = tokenizer.nextInt();
+        if (isUnacceptableMove(status)) {
+            onMoveRejected(status);
+            return;
+        }
+        onMoveAccepted(tokenizer.nextInt(), tokenizer.nextInt());
+    }
 
-        commandHandlers.put("RECONNECT", () -> {
-            System.out.println("RCV: RECONNECT");
-            mainController.setMyTurn(parts[2].equals(mainController.getModel().getLocalPlayer().getName()));
-            mainController.getModel().updateBoard(parts[1]);
-            mainController.getModel().setRemotePlayer(parts[3], parts[4].charAt(0));
-            mainController.refreshGameView();
-            mainController.refreshHeader();
-        });
+    private void onMoveRejected(int status) {
+        Log.trace("RCV: MOVE");
+        recordMoveRoundTrip();
+        metrics.recordInvalidMove(status);
+        mainController.moveRejected(status);
+        Log.debug("Invalid move: {}", status);
+    }
 
-        // Process the command using the map
-        Runnable commandHandler = commandHandlers.get(parts[0]);
-        if (commandHandler != null) {
-            commandHandler.run();
-        } else {
-            System.out.println("Invalid server msg -> close connection" + response);
-            mainController.displayError("Invalid server message");
-            System.exit(0);
+    private void onMoveAccepted(int toX, int toY) {
+        Log.trace("RCV: MOVE");
+        recordMoveRoundTrip();
+        mainController.moveAccepted(toX, toY);
+    }
+
+    private void handleOppMove() {
+        onOppMove(tokenizer.nextInt(), tokenizer.nextInt());
+    }
+
+    private void onOppMove(int toX, int toY) {
+        Log.trace("RCV: OPP_MOVE");
+        metrics.recordOppMoveReceived();
+        mainController.opponentMoved(toX, toY);
+    }
+
+    private void onPing() {
+        Log.trace("RCV: PING");
+        watchdog.touch();
+        long now = System.nanoTime();
+        if (lastPingNanos != 0) {
+            long interval = now - lastPingNanos;
+            metrics.recordPingInterval(interval, lastPingInterval);
+            lastPingInterval = interval;
         }
+        lastPingNanos = now;
+        if (!binaryActive || !sendFrame(BinaryProtocol.frame(transport.frameBuffer(), BinaryProtocol.OP_PONG))) {
+            sendOrQueue("PONG;");
+        }
+    }
+
+    /**
+     * Records the round trip of the move the server just answered.
+     */
+    private void recordMoveRoundTrip() {
+        long sent = moveSentNanos;
+        if (sent != 0) {
+            moveSentNanos = 0;
+            metrics.recordMoveRoundTrip(System.nanoTime() - sent);
+        }
+    }
+
+    private void handleOppDisconnected() {
+        Log.trace("RCV: OPP_DISCONNECTED");
+        mainController.opponentDisconnected();
+    }
+
+    private void handleReconnect() {
+        Log.trace("RCV: RECONNECT");
+        // The board is copied, the controller may apply it on another thread
+        String board = tokenizer.nextString();
+        String playerOnTurn = tokenizer.nextString();
+        String remoteName = tokenizer.nextString();
+        char remoteToken = tokenizer.nextChar();
+        int sequence = tokenizer.hasNext() ? tokenizer.nextInt() : -1;
+        GameModel.checkSyncField(board);
+        mainController.boardSynced(board, sequence, playerOnTurn, remoteName, remoteToken);
+    }
+
+    /**
+     * Checks a MOVE status against {@link #UNACCEPTABLE_MOVE_CODES} without boxing.
+     *
+     * @param status The status code sent by the server.
+     * @return true if the move was rejected.
+     */
+    public static boolean isUnacceptableMove(int status) {
+        return status == ERR_GAME_NOT_FOUND
+                || status == ERR_NOT_MY_TURN
+                || status == ERR_INVALID_MOVE
+                || status == ERR_FIELD_OCCUPIED;
     }
 
 }
@@ -0,0 +1,171 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A single I/O thread that serves any number of {@link NioTransport} sessions through one selector.
+ */
+public final class NioEventLoop implements Runnable {
+
+    /**
+     * Callback of a channel registered with the loop.
+     */
+    interface Handler {
+        /**
+         * Called on the loop thread when the channel is ready for the operations in the key.
+         *
+         * @param key The selection key of the channel.
+         */
+        void handle(SelectionKey key);
+
+        /**
+         * Called on the loop thread when {@link #handle} threw; the loop keeps serving the other
+         * channels. By default the key is cancelled and the channel closed.
+         *
+         * @param key   The selection key of the channel.
+         * @param cause The exception thrown by the handler.
+         */
+        default void failed(SelectionKey key, RuntimeException cause) {
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                Log.error("Channel close");
+            }
+        }
+    }
+
+    /**
+     * The loop shared by all sessions of this process, created on first use.
+     */
+    private static NioEventLoop sharedLoop;
+
+    /**
+     * The selector watching all registered channels.
+     */
+    private final Selector selector;
+
+    /**
+     * Tasks submitted from other threads, run by the loop before the next select.
+     */
+    private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The thread running the loop.
+     */
+    private final Thread loopThread;
+
+    /**
+     * Opens the selector and starts the loop thread.
+     *
+     * @param name The name of the loop thread.
+     * @throws IOException If the selector cannot be opened.
+     */
+    public NioEventLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.loopThread = new Thread(this, name);
+        this.loopThread.setDaemon(true);
+        this.loopThread.start();
+    }
+
+    /**
+     * Gets the loop shared by all sessions of this process.
+     *
+     * @return The shared loop.
+     */
+    public static synchronized NioEventLoop shared() {
+        if (sharedLoop == null) {
+            try {
+                sharedLoop = new NioEventLoop("reversi-nio");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return sharedLoop;
+    }
+
+    /**
+     * Checks if the caller runs on the loop thread.
+     *
+     * @return true if called from the loop thread.
+     */
+    public boolean inLoop() {
+        return Thread.currentThread() == loopThread;
+    }
+
+    /**
+     * Runs the task on the loop thread.
+     *
+     * @param task The task to run.
+     */
+    public void execute(Runnable task) {
+        if (inLoop()) {
+            task.run();
+            return;
+        }
+        pendingTasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Gets the selector. It may only be used from the loop thread.
+     *
+     * @return The selector of this loop.
+     */
+    Selector selector() {
+        return selector;
+    }
+
+    /**
+     * Passes a ready key to its handler and shuts only that channel down if the handler throws.
+     */
+    private static void dispatch(SelectionKey key) {
+        Handler handler = (Handler) key.attachment();
+        try {
+            handler.handle(key);
+        } catch (RuntimeException e) {
+            Log.error("Channel handler failed: {}", e.toString());
+            try {
+                handler.failed(key, e);
+            } catch (RuntimeException again) {
+                Log.error("Channel failure handling failed: {}", again.toString());
+                key.cancel();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                Log.error("Selector failure");
+                return;
+            }
+
+            Runnable task;
+            while ((task = pendingTasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // One session's bug must not stop the thread serving all the others
+                    Log.error("Loop task failed: {}", e.toString());
+                }
+            }
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (key.isValid()) {
+                    dispatch(key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,437 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking transport on a {@link SocketChannel}. Reads and writes go through direct buffers
+ * and are performed by a shared {@link NioEventLoop}, so one I/O thread serves many sessions.
+ * While the framing is negotiated, text lines are decoded one at a time, so the connection can
+ * switch to the {@link BinaryProtocol} framing after any line without losing the bytes behind it.
+ */
+public class NioTransport implements ClientTransport, NioEventLoop.Handler {
+
+    /**
+     * Size of the direct read and write buffers.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Number of frame buffers the transport owns and reuses.
+     */
+    private static final int SPARE_FRAMES = 64;
+
+    /**
+     * The loop performing the I/O of this session.
+     */
+    private final NioEventLoop loop;
+
+    /**
+     * The connected channel.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * The receiver of incoming lines and errors.
+     */
+    private final Listener listener;
+
+    /**
+     * Bytes received from the channel and not yet decoded; grows for binary frames larger than it.
+     */
+    private ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Bytes prepared for the channel and not yet written.
+     */
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Decodes the received bytes into the line framer.
+     */
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+
+    /**
+     * Splits the decoded characters into lines.
+     */
+    private final LineFramer framer = new LineFramer();
+
+    /**
+     * Splits the received bytes into frames once the binary framing is on.
+     */
+    private final BinaryFramer frames = new BinaryFramer();
+
+    /**
+     * Set once both directions use the {@link BinaryProtocol} framing.
+     */
+    private volatile boolean binary;
+
+    /**
+     * Set while the peer may switch to the binary framing after any line.
+     */
+    private volatile boolean negotiating;
+
+    /**
+     * Encoded messages waiting for the loop to write them.
+     */
+    private final BlockingQueue<ByteBuffer> outbound = new ArrayBlockingQueue<>(OUTBOUND_CAPACITY);
+
+    /**
+     * Backing storage of the frame buffers owned by this transport; a written buffer is recycled
+     * only if it is a slice of this array.
+     */
+    private final byte[] frameStorage = new byte[SPARE_FRAMES * BinaryProtocol.FIELD_FRAME_BYTES];
+
+    /**
+     * Owned frame buffers that are not in use, handed out by {@link #frameBuffer()}.
+     */
+    private final BlockingQueue<ByteBuffer> spareFrames = new ArrayBlockingQueue<>(SPARE_FRAMES);
+
+    /**
+     * Set while a write is pending on the loop, so a burst of sends wakes the selector only once.
+     */
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+    /**
+     * The selection key of the channel, set once registered.
+     */
+    private SelectionKey key;
+
+    /**
+     * Set when the connection broke or was closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Connects to the server and registers the channel with the loop.
+     *
+     * @param loop          The loop performing the I/O.
+     * @param serverAddress The server IP address.
+     * @param port          The server port.
+     * @param listener      The receiver of incoming lines and errors.
+     * @throws IOException If the connection cannot be established.
+     */
+    public NioTransport(NioEventLoop loop, String serverAddress, int port, Listener listener) throws IOException {
+        this(loop, SocketChannel.open(new InetSocketAddress(serverAddress, port)), listener);
+    }
+
+    /**
+     * Wraps an already connected channel, e.g. one accepted by a server, and registers it with the loop.
+     *
+     * @param loop     The loop performing the I/O.
+     * @param channel  The connected channel.
+     * @param listener The receiver of incoming lines and errors.
+     * @throws IOException If the channel cannot be switched to non-blocking mode.
+     */
+    NioTransport(NioEventLoop loop, SocketChannel channel, Listener listener) throws IOException {
+        this.loop = loop;
+        this.listener = listener;
+        this.channel = channel;
+        this.channel.configureBlocking(false);
+        this.writeBuffer.flip();
+        for (int i = 0; i < SPARE_FRAMES; i++) {
+            spareFrames.add(ByteBuffer.wrap(frameStorage, i * BinaryProtocol.FIELD_FRAME_BYTES,
+                    BinaryProtocol.FIELD_FRAME_BYTES).slice());
+        }
+
+        loop.execute(() -> {
+            try {
+                key = channel.register(loop.selector(), SelectionKey.OP_READ, this);
+                if (!outbound.isEmpty()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            } catch (ClosedChannelException e) {
+                fail(e);
+            }
+        });
+    }
+
+    @Override
+    public void send(String message) {
+        enqueue(binary
+                ? BinaryProtocol.text(message)
+                : ByteBuffer.wrap((message + "\n").getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public void sendFrame(ByteBuffer frame) {
+        enqueue(frame);
+    }
+
+    @Override
+    public ByteBuffer frameBuffer() {
+        ByteBuffer spare = spareFrames.poll();
+        // While all owned buffers are queued, a new one is used once and left to the collector
+        return spare != null ? spare : ByteBuffer.allocate(BinaryProtocol.FIELD_FRAME_BYTES);
+    }
+
+    @Override
+    public boolean supportsBinary() {
+        return true;
+    }
+
+    @Override
+    public void beginFramingNegotiation() {
+        negotiating = true;
+    }
+
+    @Override
+    public void endFramingNegotiation() {
+        negotiating = false;
+    }
+
+    @Override
+    public void switchToBinary() {
+        if (!negotiating && !binary) {
+            throw new IllegalStateException("Framing switch outside of the negotiation");
+        }
+        binary = true;
+        negotiating = false;
+    }
+
+    /**
+     * Queues encoded bytes and wakes the loop for the first message of a burst.
+     *
+     * @param encoded The bytes to write, from position to limit.
+     */
+    private void enqueue(ByteBuffer encoded) {
+        if (closed) {
+            return;
+        }
+        try {
+            // The loop thread cannot wait for itself to drain the queue
+            boolean queued = loop.inLoop()
+                    ? outbound.offer(encoded)
+                    : outbound.offer(encoded, SEND_TIMEOUT, TimeUnit.MILLISECONDS);
+            if (!queued) {
+                loop.execute(() -> fail(new IOException("Outbound queue full")));
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (writeScheduled.compareAndSet(false, true)) {
+            loop.execute(this::requestWrite);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * Closes the connection. Messages queued before, such as a final LOGOUT, are written first
+     * as far as the socket buffer takes them; a caller outside the loop waits up to
+     * {@link #SEND_TIMEOUT} for that.
+     */
+    @Override
+    public void close() {
+        shutDown(true);
+    }
+
+    /**
+     * Cancels the registration and closes the channel on the loop thread.
+     *
+     * @param drain Whether to write what is still queued first.
+     */
+    private void shutDown(boolean drain) {
+        closed = true;
+        CountDownLatch done = new CountDownLatch(1);
+        loop.execute(() -> {
+            if (drain && key != null && key.isValid()) {
+                try {
+                    write();
+                } catch (IOException e) {
+                    Log.debug("Messages queued before closing were not sent: {}", e.toString());
+                }
+            }
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                Log.error("Channel close");
+            }
+            done.countDown();
+        });
+        if (drain && !loop.inLoop()) {
+            try {
+                done.await(SEND_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void handle(SelectionKey key) {
+        try {
+            if (key.isReadable()) {
+                read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                write();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void failed(SelectionKey key, RuntimeException cause) {
+        fail(new IOException("Message handling failed: " + cause, cause));
+    }
+
+    /**
+     * Reads what is available and passes complete lines or frames to the listener.
+     */
+    private void read() throws IOException {
+        int read = channel.read(readBuffer);
+        if (read == -1) {
+            throw new IOException("Connection closed by server");
+        }
+        readBuffer.flip();
+        if (negotiating) {
+            readLines();
+        }
+        if (!binary) {
+            decode();
+        }
+        if (binary) {
+            frames.drain(readBuffer, listener);
+        }
+        readBuffer.compact();
+        if (!readBuffer.hasRemaining()) {
+            // A frame larger than the buffer is still incomplete
+            ByteBuffer larger = ByteBuffer.allocateDirect(readBuffer.capacity() * 2);
+            readBuffer.flip();
+            larger.put(readBuffer);
+            readBuffer = larger;
+        }
+    }
+
+    /**
+     * Decodes all received bytes and passes complete lines to the listener.
+     */
+    private void decode() throws IOException {
+        CoderResult result;
+        do {
+            result = decoder.decode(readBuffer, framer.buffer(), false);
+            framer.drain(listener);
+        } while (result.isOverflow());
+        if (result.isError()) {
+            result.throwException();
+        }
+    }
+
+    /**
+     * Decodes the received bytes line by line until they run out or the negotiation ends.
+     * A line feed byte never occurs inside a multi-byte UTF-8 sequence, so the bytes can be cut
+     * at it before decoding.
+     */
+    private void readLines() throws IOException {
+        int limit = readBuffer.limit();
+        while (negotiating && readBuffer.hasRemaining()) {
+            int lineEnd = readBuffer.position();
+            while (lineEnd < limit && readBuffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            boolean complete = lineEnd < limit;
+            readBuffer.limit(complete ? lineEnd + 1 : limit);
+            CoderResult result;
+            do {
+                result = decoder.decode(readBuffer, framer.buffer(), false);
+                framer.drain(listener);
+            } while (result.isOverflow());
+            readBuffer.limit(limit);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (!complete) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Moves queued messages into the direct buffer and writes as much as the channel accepts.
+     */
+    private void write() throws IOException {
+        while (true) {
+            if (!writeBuffer.hasRemaining()) {
+                writeBuffer.clear();
+                fillWriteBuffer();
+                writeBuffer.flip();
+                if (!writeBuffer.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                    writeScheduled.set(false);
+                    if (!outbound.isEmpty() && writeScheduled.compareAndSet(false, true)) {
+                        // A message arrived after the queue was drained, keep writing
+                        continue;
+                    }
+                    return;
+                }
+            }
+            channel.write(writeBuffer);
+            if (writeBuffer.hasRemaining()) {
+                // The socket buffer is full, wait for the next write readiness
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Copies queued messages into the write buffer until it is full.
+     */
+    private void fillWriteBuffer() {
+        ByteBuffer message;
+        while ((message = outbound.peek()) != null) {
+            int count = Math.min(message.remaining(), writeBuffer.remaining());
+            int limit = message.limit();
+            message.limit(message.position() + count);
+            writeBuffer.put(message);
+            message.limit(limit);
+            if (message.hasRemaining()) {
+                return;
+            }
+            outbound.poll();
+            if (message.hasArray() && message.array() == frameStorage) {
+                spareFrames.offer(message);
+            }
+        }
+    }
+
+    /**
+     * Enables write readiness so the loop flushes the queued messages.
+     */
+    private void requestWrite() {
+        if (key != null && key.isValid()) {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Closes the session after an I/O error and notifies the listener once.
+     */
+    private void fail(IOException cause) {
+        if (closed) {
+            return;
+        }
+        shutDown(false);
+        listener.onDisconnect(cause);
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * Board storage for sizes beyond a single bitboard.
+ * <p>
+ * Every cell takes two bits, 32 cells are packed into one {@code long} and every row starts
+ * on a word boundary, so a 256x256 board needs 16 KiB. Flips are computed by walking the
+ * eight directions over the packed cells without allocating.
+ */
+public final class PackedBoard implements Board {
+
+    /**
+     * Code of an empty cell.
+     */
+    private static final int EMPTY = 0;
+
+    /**
+     * Code of a red stone.
+     */
+    private static final int RED = 1;
+
+    /**
+     * Code of a blue stone.
+     */
+    private static final int BLUE = 2;
+
+    /**
+     * Number of cells stored in one word.
+     */
+    private static final int CELLS_PER_WORD = 32;
+
+    /**
+     * Column steps of the eight directions.
+     */
+    private static final int[] DIRECTION_X = {1, -1, 0, 0, 1, -1, 1, -1};
+
+    /**
+     * Row steps of the eight directions.
+     */
+    private static final int[] DIRECTION_Y = {0, 0, 1, -1, 1, 1, -1, -1};
+
+    /**
+     * Side length of the board.
+     */
+    private final int size;
+
+    /**
+     * Number of words used by one row.
+     */
+    private final int wordsPerRow;
+
+    /**
+     * The packed cells, row after row.
+     */
+    private final long[] cells;
+
+    /**
+     * {@link Zobrist} hash of the stones.
+     */
+    private long hash;
+
+    /**
+     * Creates an empty packed board.
+     *
+     * @param size The side length of the board.
+     */
+    public PackedBoard(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Unsupported board size: " + size);
+        }
+        this.size = size;
+        this.wordsPerRow = (size + CELLS_PER_WORD - 1) / CELLS_PER_WORD;
+        this.cells = new long[wordsPerRow * size];
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public char get(int x, int y) {
+        return token(code(x, y));
+    }
+
+    @Override
+    public void set(int x, int y, char token) {
+        setCode(x, y, token == 'R' ? RED : token == 'B' ? BLUE : EMPTY);
+    }
+
+    @Override
+    public void clear() {
+        java.util.Arrays.fill(cells, 0L);
+        hash = 0L;
+    }
+
+    @Override
+    public long getHash() {
+        return hash;
+    }
+
+    @Override
+    public int placeStone(int x, int y, char token) {
+        return placeStone(x, y, token, null, 0);
+    }
+
+    @Override
+    public int placeStone(int x, int y, char token, long[] record, int offset) {
+        int own = token == 'R' ? RED : BLUE;
+        int opponent = own == RED ? BLUE : RED;
+        setCode(x, y, own);
+        if (record != null) {
+            java.util.Arrays.fill(record, offset, offset + getUndoRecordWords(), 0L);
+        }
+
+        int flipped = 0;
+        for (int dir = 0; dir < DIRECTION_X.length; dir++) {
+            int dx = DIRECTION_X[dir];
+            int dy = DIRECTION_Y[dir];
+            int newX = x + dx;
+            int newY = y + dy;
+            int run = 0;
+
+            // Move in the specified direction over the opponent's stones
+            while (isWithinBounds(newX, newY) && code(newX, newY) == opponent) {
+                newX += dx;
+                newY += dy;
+                run++;
+            }
+
+            // If a player's stone closes the run, flip it back towards the move
+            if (run > 0 && isWithinBounds(newX, newY) && code(newX, newY) == own) {
+                for (int i = 0; i < run; i++) {
+                    newX -= dx;
+                    newY -= dy;
+                    setCode(newX, newY, own);
+                    if (record != null) {
+                        int cell = newY * size + newX;
+                        record[offset + (cell >>> 6)] |= 1L << cell;
+                    }
+                }
+                flipped += run;
+            }
+        }
+        return flipped;
+    }
+
+    @Override
+    public void undoStone(int x, int y, long[] record, int offset) {
+        int opponent = code(x, y) == RED ? BLUE : RED;
+        for (int word = 0; word < getUndoRecordWords(); word++) {
+            for (long rest = record[offset + word]; rest != 0; rest &= rest - 1) {
+                int cell = word * 64 + Long.numberOfTrailingZeros(rest);
+                setCode(cell % size, cell / size, opponent);
+            }
+        }
+        setCode(x, y, EMPTY);
+    }
+
+    @Override
+    public boolean isLegalMove(int x, int y, char token) {
+        if (code(x, y) != EMPTY) {
+            return false;
+        }
+        int own = token == 'R' ? RED : BLUE;
+        int opponent = own == RED ? BLUE : RED;
+        for (int dir = 0; dir < DIRECTION_X.length; dir++) {
+            int dx = DIRECTION_X[dir];
+            int dy = DIRECTION_Y[dir];
+            int newX = x + dx;
+            int newY = y + dy;
+            int run = 0;
+            while (isWithinBounds(newX, newY) && code(newX, newY) == opponent) {
+                newX += dx;
+                newY += dy;
+                run++;
+            }
+            if (run > 0 && isWithinBounds(newX, newY) && code(newX, newY) == own) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int collectLegalMoves(char token, long[] legalCells) {
+        java.util.Arrays.fill(legalCells, 0L);
+        int count = 0;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (isLegalMove(x, y, token)) {
+                    int index = y * size + x;
+                    legalCells[index >>> 6] |= 1L << index;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of bytes used by the packed cells.
+     *
+     * @return The size of the cell storage in bytes.
+     */
+    public long getStorageBytes() {
+        return (long) cells.length * Long.BYTES;
+    }
+
+    /**
+     * Reads the two-bit code of a cell.
+     */
+    private int code(int x, int y) {
+        long word = cells[y * wordsPerRow + x / CELLS_PER_WORD];
+        return (int) (word >>> ((x % CELLS_PER_WORD) * 2)) & 3;
+    }
+
+    /**
+     * Writes the two-bit code of a cell and updates the hash.
+     */
+    private void setCode(int x, int y, int code) {
+        int cell = y * size + x;
+        hash ^= Zobrist.stone(token(code(x, y)), cell) ^ Zobrist.stone(token(code), cell);
+        int index = y * wordsPerRow + x / CELLS_PER_WORD;
+        int shift = (x % CELLS_PER_WORD) * 2;
+        cells[index] = (cells[index] & ~(3L << shift)) | ((long) code << shift);
+    }
+
+    /**
+     * Converts a two-bit code to its token.
+     */
+    private static char token(int code) {
+        switch (code) {
+            case RED:
+                return 'R';
+            case BLUE:
+                return 'B';
+            default:
+                return ' ';
+        }
+    }
+
+    /**
+     * Checks if the given coordinates are within the bounds of the board.
+     */
+    private boolean isWithinBounds(int x, int y) {
+        return x >= 0 && x < size && y >= 0 && y < size;
+    }
+}
@@ -0,0 +1,314 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the positions reachable from a position to a fixed depth ("perft"), to verify the flip
+ * rules of the boards and to measure the speed of move generation.
+ * <p>
+ * A pass counts as a ply; a finished game is a leaf whatever depth remains. Subtrees near the
+ * root are split across a fork/join pool, each with its own copy of the model; below the split
+ * plies a task walks its subtree with {@link GameModel#makeMove} and {@link GameModel#undoMove()}.
+ * <p>
+ * {@code --verify} compares the counts of the 8x8 start position with the published ones, and the
+ * counts of the bitboard with those of the packed board, whose flip loop is the original char-grid
+ * algorithm, on the 4x4, 6x6 and 8x8 start positions.
+ */
+public final class Perft {
+
+    /**
+     * Leaf counts of the 8x8 start position for depths 1 to 9.
+     */
+    static final long[] KNOWN_COUNTS = {4, 12, 56, 244, 1396, 8200, 55092, 390216, 3005288};
+
+    /**
+     * Plies from the root whose moves are searched as separate tasks.
+     */
+    private static final int SPLIT_PLIES = 2;
+
+    /**
+     * Subtrees shallower than this are not split, the copy of the model would dominate.
+     */
+    private static final int MIN_SPLIT_DEPTH = 4;
+
+    /**
+     * Deepest comparison of bitboard and packed board in {@code --verify}.
+     */
+    private static final int CROSS_CHECK_DEPTH = 6;
+
+    /**
+     * Board sizes compared in {@code --verify}.
+     */
+    private static final int[] CROSS_CHECK_SIZES = {4, 6, 8};
+
+    private Perft() {
+    }
+
+    /**
+     * Counts the leaves below a position.
+     *
+     * @param model The position; it is not changed.
+     * @param token The token of the player to move.
+     * @param depth The number of plies to walk.
+     * @param pool  The pool splitting the subtrees.
+     * @return The number of leaves.
+     */
+    public static long count(GameModel model, char token, int depth, ForkJoinPool pool) {
+        return pool.invoke(new PerftTask(copy(model), token, depth, false, 0));
+    }
+
+    /**
+     * Creates a model holding the start position of a board, the first player being red.
+     *
+     * @param size The side length of the board.
+     * @return The model.
+     */
+    public static GameModel startPosition(int size) {
+        GameModel model = new GameModel();
+        model.setLocalPlayer(new Player("first", 'R'));
+        model.setRemotePlayer("second", 'B');
+        model.setBoardSize(size);
+        model.resetBoard(true);
+        return model;
+    }
+
+    /**
+     * Copies the stones of a model into a new model on the same kind of board.
+     */
+    private static GameModel copy(GameModel model) {
+        GameModel copy = new GameModel();
+        copy.setBoardSize(model.getBoardSize());
+        copyStones(model.getBoard(), copy.getBoard());
+        return copy;
+    }
+
+    /**
+     * Copies all cells of one board into another of the same size.
+     */
+    private static void copyStones(Board from, Board to) {
+        for (int y = 0; y < from.getSize(); y++) {
+            for (int x = 0; x < from.getSize(); x++) {
+                to.set(x, y, from.get(x, y));
+            }
+        }
+    }
+
+    /**
+     * Counts the leaves below one position; near the root the moves become separate tasks.
+     */
+    private static final class PerftTask extends RecursiveTask<Long> {
+        /**
+         * Version of the serialized form.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The position, owned by this task.
+         */
+        private final GameModel model;
+
+        /**
+         * Token of the player to move.
+         */
+        private final char token;
+
+        /**
+         * Remaining plies.
+         */
+        private final int depth;
+
+        /**
+         * Indicates if the previous player had to pass.
+         */
+        private final boolean passed;
+
+        /**
+         * Distance from the root.
+         */
+        private final int ply;
+
+        /**
+         * Legal moves of every remaining ply, reused by the sequential walk.
+         */
+        private long[][] legalByPly;
+
+        /**
+         * Creates a task counting the leaves below a position.
+         */
+        PerftTask(GameModel model, char token, int depth, boolean passed, int ply) {
+            this.model = model;
+            this.token = token;
+            this.depth = depth;
+            this.passed = passed;
+            this.ply = ply;
+        }
+
+        @Override
+        protected Long compute() {
+            legalByPly = new long[depth + 1][model.getBoard().getUndoRecordWords()];
+            if (ply >= SPLIT_PLIES || depth < MIN_SPLIT_DEPTH) {
+                return walk(token, depth, passed);
+            }
+            long[] legal = legalByPly[depth];
+            int count = model.getBoard().collectLegalMoves(token, legal);
+            char other = token == 'R' ? 'B' : 'R';
+            if (count == 0) {
+                return passed ? 1L : new PerftTask(model, other, depth - 1, true, ply + 1).invoke();
+            }
+            int size = model.getBoardSize();
+            List<PerftTask> children = new ArrayList<>(count);
+            for (int word = 0; word < legal.length; word++) {
+                for (long rest = legal[word]; rest != 0; rest &= rest - 1) {
+                    int cell = word * 64 + Long.numberOfTrailingZeros(rest);
+                    GameModel child = copy(model);
+                    child.makeMove(cell % size, cell / size, token);
+                    children.add(new PerftTask(child, other, depth - 1, false, ply + 1));
+                }
+            }
+            long leaves = 0;
+            for (PerftTask child : invokeAll(children)) {
+                leaves += child.join();
+            }
+            return leaves;
+        }
+
+        /**
+         * Sequential walk with make/unmake; the last ply is counted without making its moves.
+         */
+        private long walk(char token, int depth, boolean passed) {
+            if (depth == 0) {
+                return 1;
+            }
+            long[] legal = legalByPly[depth];
+            int count = model.getBoard().collectLegalMoves(token, legal);
+            char other = token == 'R' ? 'B' : 'R';
+            if (count == 0) {
+                return passed || depth == 1 ? 1 : walk(other, depth - 1, true);
+            }
+            if (depth == 1) {
+                return count;
+            }
+            int size = model.getBoardSize();
+            long leaves = 0;
+            for (int word = 0; word < legal.length; word++) {
+                for (long rest = legal[word]; rest != 0; rest &= rest - 1) {
+                    int cell = word * 64 + Long.numberOfTrailingZeros(rest);
+                    model.makeMove(cell % size, cell / size, token);
+                    leaves += walk(other, depth - 1, false);
+                    model.undoMove();
+                }
+            }
+            return leaves;
+        }
+    }
+
+    /**
+     * Counts the leaves of the same start position on a bitboard and on a packed board.
+     *
+     * @return The two counts.
+     */
+    private static long[] crossCheck(int size, int depth, ForkJoinPool pool) {
+        GameModel start = startPosition(size);
+        // The model picks the bitboard for this size, the packed board is filled in directly
+        PackedBoard packed = new PackedBoard(size);
+        copyStones(start.getBoard(), packed);
+        return new long[]{count(start, 'R', depth, pool), walkPacked(packed, 'R', depth, false)};
+    }
+
+    /**
+     * Sequential perft directly on a packed board, taking moves back through the board's own undo record.
+     */
+    private static long walkPacked(PackedBoard board, char token, int depth, boolean passed) {
+        if (depth == 0) {
+            return 1;
+        }
+        int size = board.getSize();
+        long[] legal = new long[board.getUndoRecordWords()];
+        int count = board.collectLegalMoves(token, legal);
+        char other = token == 'R' ? 'B' : 'R';
+        if (count == 0) {
+            return passed ? 1 : walkPacked(board, other, depth - 1, true);
+        }
+        long[] record = new long[board.getUndoRecordWords()];
+        long leaves = 0;
+        for (int word = 0; word < legal.length; word++) {
+            for (long rest = legal[word]; rest != 0; rest &= rest - 1) {
+                int cell = word * 64 + Long.numberOfTrailingZeros(rest);
+                board.placeStone(cell % size, cell / size, token, record, 0);
+                leaves += walkPacked(board, other, depth - 1, false);
+                board.undoStone(cell % size, cell / size, record, 0);
+            }
+        }
+        return leaves;
+    }
+
+    /**
+     * Checks the known counts and the agreement of both board implementations.
+     *
+     * @return true if every count matched.
+     */
+    static boolean verify(ForkJoinPool pool) {
+        boolean ok = true;
+        GameModel start = startPosition(BitBoard.MAX_SIZE);
+        for (int depth = 1; depth <= KNOWN_COUNTS.length; depth++) {
+            long leaves = count(start, 'R', depth, pool);
+            boolean match = leaves == KNOWN_COUNTS[depth - 1];
+            ok &= match;
+            System.out.printf("8x8 depth %d: %d leaves, expected %d %s%n",
+                    depth, leaves, KNOWN_COUNTS[depth - 1], match ? "OK" : "MISMATCH");
+        }
+        for (int size : CROSS_CHECK_SIZES) {
+            for (int depth = 1; depth <= CROSS_CHECK_DEPTH; depth++) {
+                long[] counts = crossCheck(size, depth, pool);
+                boolean match = counts[0] == counts[1];
+                ok &= match;
+                System.out.printf("%dx%d depth %d: bitboard %d, packed board %d %s%n",
+                        size, size, depth, counts[0], counts[1], match ? "OK" : "MISMATCH");
+            }
+        }
+        return ok;
+    }
+
+    /**
+     * Entry point: {@code Perft <depth> [board [token]]} or {@code Perft --verify}. The board is a
+     * string in the format of {@link GameModel#updateBoard(String)}, the token the player to move
+     * ('R' by default); without a board the 8x8 start position is used.
+     *
+     * @param args The command line arguments.
+     */
+    public static void main(String[] args) {
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            if (args.length > 0 && args[0].equals("--verify")) {
+                boolean ok = verify(pool);
+                System.out.println(ok ? "All perft counts match" : "Perft counts differ");
+                if (!ok) {
+                    System.exit(1);
+                }
+                return;
+            }
+            if (args.length < 1) {
+                System.err.println("Usage: Perft <depth> [board [token]] | Perft --verify");
+                return;
+            }
+            int maxDepth = Integer.parseInt(args[0]);
+            GameModel model = startPosition(BitBoard.MAX_SIZE);
+            if (args.length > 1) {
+                model.updateBoard(args[1]);
+            }
+            char token = args.length > 2 ? args[2].charAt(0) : 'R';
+            System.out.printf("%dx%d board, %c to move, %d threads%n",
+                    model.getBoardSize(), model.getBoardSize(), token, pool.getParallelism());
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                long start = System.nanoTime();
+                long leaves = count(model, token, depth, pool);
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("depth %2d: %,15d leaves %10.1f ms %,15.0f leaves/s%n",
+                        depth, leaves, elapsed / 1e6, leaves * 1e9 / Math.max(1, elapsed));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
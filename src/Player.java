@@ -0,0 +1,70 @@
+/**
+ * Represents a player in the game.
+ */
+class Player {
+    /**
+     * The character token representing the player.
+     */
+    char playerToken;
+
+    /**
+     * The name of the player.
+     */
+    private String name;
+
+    /**
+     * Constructs a Player with the specified name.
+     *
+     * @param name The name of the player.
+     */
+    public Player(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Constructs a Player with the specified name and token.
+     *
+     * @param name The name of the player.
+     * @param playerToken The character token representing the player.
+     */
+    public Player(String name, char playerToken) {
+        this.name = name;
+        this.playerToken = playerToken;
+    }
+
+    /**
+     * Gets the name of the player.
+     *
+     * @return The name of the player.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Sets the name of the player.
+     *
+     * @param name The new name of the player.
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the character token representing the player.
+     *
+     * @return The character token representing the player.
+     */
+    public char getPlayerToken() {
+        return this.playerToken;
+    }
+
+    /**
+     * Sets the character token representing the player.
+     *
+     * @param playerToken The new character token representing the player.
+     */
+    public void setPlayerToken(char playerToken) {
+        this.playerToken = playerToken;
+    }
+}
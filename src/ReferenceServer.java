@@ -0,0 +1,716 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embeddable Reversi server speaking the same line protocol as {@link NetworkClient}.
+ * <p>
+ * It serves as a test fixture and as the target of client-side load benchmarks. All sessions are
+ * handled by one {@link NioEventLoop}, and every piece of game state is only touched by that thread,
+ * so no locking is needed. Players are matched in order of their JOIN_GAME requests.
+ * <p>
+ * Usage: {@code ReferenceServer [port] [boardSize]}
+ */
+public class ReferenceServer {
+
+    /**
+     * Status sent with an accepted MOVE.
+     */
+    public static final int MOVE_OK = 0;
+
+    /**
+     * Interval between two PING messages in milliseconds.
+     */
+    public static final long PING_INTERVAL = 2000;
+
+    /**
+     * Time a player may stay silent before the session is dropped, in milliseconds.
+     */
+    public static final long PONG_TIMEOUT = NetworkClient.CONNECTION_ZOMBIE_TIMEOUT;
+
+    /**
+     * Time a disconnected player has to log in again before the opponent wins, in milliseconds.
+     */
+    public static final long RECONNECT_WINDOW = 60000;
+
+    /**
+     * Loop running the I/O and the game logic.
+     */
+    private final NioEventLoop loop;
+
+    /**
+     * Side length of the boards of new games.
+     */
+    private final int boardSize;
+
+    /**
+     * Schedules the periodic PING and timeout checks.
+     */
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reference-server-ticker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * All connected sessions.
+     */
+    private final Set<Session> sessions = new HashSet<>();
+
+    /**
+     * Games waiting for a disconnected player, keyed by that player's name.
+     */
+    private final Map<String, Game> heldGames = new HashMap<>();
+
+    /**
+     * Names of disconnected players whose opponent did not want to wait.
+     */
+    private final Set<String> abandonedPlayers = new HashSet<>();
+
+    /**
+     * The accepting channel.
+     */
+    private ServerSocketChannel serverChannel;
+
+    /**
+     * The player waiting for an opponent, if any.
+     */
+    private Session waitingPlayer;
+
+    /**
+     * Creates a server with its own I/O thread.
+     *
+     * @param boardSize The side length of the boards.
+     * @throws IOException If the selector cannot be opened.
+     */
+    public ReferenceServer(int boardSize) throws IOException {
+        this.loop = new NioEventLoop("reference-server");
+        this.boardSize = boardSize;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int boardSize = args.length > 1 ? Integer.parseInt(args[1]) : GameView.DEFAULT_BOARD_SIZE;
+        ReferenceServer server = new ReferenceServer(boardSize);
+        System.out.println("Reference server listening on port " + server.start(port));
+
+        // The I/O thread is a daemon, keep the process alive until it is killed
+        Thread.currentThread().join();
+    }
+
+    /**
+     * Binds the server and starts accepting players.
+     *
+     * @param port The port to listen on, 0 picks a free one.
+     * @return The port the server listens on.
+     * @throws IOException If the port cannot be bound.
+     */
+    public int start(int port) throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        serverChannel.configureBlocking(false);
+        loop.execute(() -> {
+            try {
+                serverChannel.register(loop.selector(), SelectionKey.OP_ACCEPT, (NioEventLoop.Handler) key -> accept());
+            } catch (IOException e) {
+                Log.error("Server register");
+            }
+        });
+        ticker.scheduleAtFixedRate(() -> loop.execute(this::tick), PING_INTERVAL, PING_INTERVAL, TimeUnit.MILLISECONDS);
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Stops accepting players and closes all sessions.
+     */
+    public void stop() {
+        ticker.shutdownNow();
+        loop.execute(() -> {
+            try {
+                serverChannel.close();
+            } catch (IOException e) {
+                Log.error("Server close");
+            }
+            for (Session session : new ArrayList<>(sessions)) {
+                session.transport.close();
+            }
+            sessions.clear();
+        });
+    }
+
+    /**
+     * Accepts all pending connections.
+     */
+    private void accept() {
+        try {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                Session session = new Session();
+                session.transport = new NioTransport(loop, channel, session);
+                // The framing may switch after the first LOGIN
+                session.transport.beginFramingNegotiation();
+                sessions.add(session);
+            }
+        } catch (IOException e) {
+            Log.error("Server accept");
+        }
+    }
+
+    /**
+     * Pings every session, drops silent ones and ends games whose reconnect window expired.
+     */
+    private void tick() {
+        long now = System.currentTimeMillis();
+        for (Session session : new ArrayList<>(sessions)) {
+            if (now - session.lastPong > PONG_TIMEOUT) {
+                session.transport.close();
+                disconnect(session);
+            } else {
+                session.sendPing();
+            }
+        }
+
+        Iterator<Map.Entry<String, Game>> held = heldGames.entrySet().iterator();
+        while (held.hasNext()) {
+            Game game = held.next().getValue();
+            if (now - game.heldSince > RECONNECT_WINDOW) {
+                held.remove();
+                int remaining = game.players[0] != null ? 0 : 1;
+                if (game.players[remaining] != null) {
+                    finish(game, "GAME_STATUS;" + game.names[remaining]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Handles one line received from a session.
+     */
+    private void handleLine(Session session, MessageTokenizer tokenizer) {
+        tokenizer.skip();
+        if (tokenizer.fieldEquals("PONG")) {
+            session.lastPong = System.currentTimeMillis();
+        } else if (tokenizer.fieldEquals("MOVE")) {
+            handleMove(session, tokenizer.nextInt(), tokenizer.nextInt());
+        } else if (tokenizer.fieldEquals("LOGIN")) {
+            String name = tokenizer.nextString();
+            int knownSequence = -1;
+            boolean compactSync = false;
+            boolean binary = false;
+            while (tokenizer.hasNext()) {
+                CharSequence option = tokenizer.nextSequence();
+                if (tokenizer.fieldEquals(BinaryProtocol.LOGIN_OPTION)) {
+                    binary = true;
+                } else {
+                    compactSync = true;
+                    knownSequence = Integer.parseInt(option, 0, option.length(), 10);
+                }
+            }
+            handleLogin(session, name, compactSync, knownSequence, binary);
+        } else if (tokenizer.fieldEquals("JOIN_GAME")) {
+            handleJoin(session);
+        } else if (tokenizer.fieldEquals("RESYNC")) {
+            if (session.game != null && !session.game.finished) {
+                sync(session.game, session.slot, true);
+            }
+        } else if (tokenizer.fieldEquals("WAIT_REPLY")) {
+            handleWaitReply(session, tokenizer.nextEquals("WAIT"));
+        } else if (tokenizer.fieldEquals("LOGOUT")) {
+            session.transport.close();
+            disconnect(session);
+        } else if (!tokenizer.fieldEquals("")) {
+            Log.error("Unknown message {}", tokenizer.toString());
+            session.transport.close();
+            disconnect(session);
+        }
+    }
+
+    /**
+     * Logs a player in and resumes a held game of the same name.
+     *
+     * @param compactSync   Set if the client understands compact and delta board syncs.
+     * @param knownSequence The move sequence number of the client's board, -1 if unknown.
+     * @param binary        Set if the client asked for the {@link BinaryProtocol} framing.
+     */
+    private void handleLogin(Session session, String name, boolean compactSync, int knownSequence,
+                             boolean binary) {
+        boolean firstLogin = session.name == null;
+        Session stale = findPlayingSession(name, session);
+        if (stale != null) {
+            // The player reconnected before the old connection was noticed as broken
+            stale.transport.close();
+            disconnect(stale);
+        }
+        session.name = name;
+        session.compactSync = compactSync;
+        session.knownSequence = knownSequence;
+        if (binary && firstLogin) {
+            session.send("LOGIN;" + name + ";" + BinaryProtocol.LOGIN_OPTION);
+            // Called from the session's onLine, so the bytes after this LOGIN are read as frames
+            session.transport.switchToBinary();
+            session.binary = true;
+        } else {
+            session.send("LOGIN;" + name);
+            session.transport.endFramingNegotiation();
+        }
+
+        if (abandonedPlayers.remove(name)) {
+            session.send("GAME_STATUS;" + NetworkClient.STATUS_MSG_OPPONENT_LEFT);
+            return;
+        }
+        Game game = heldGames.remove(name);
+        if (game == null) {
+            game = findDisconnectedGame(name);
+        }
+        if (game != null) {
+            int slot = game.names[0].equals(name) && game.players[0] == null ? 0 : 1;
+            game.players[slot] = session;
+            session.game = game;
+            session.slot = slot;
+            syncBoth(game);
+        }
+    }
+
+    /**
+     * Looks for another session of this name that is still in a running game.
+     */
+    private Session findPlayingSession(String name, Session except) {
+        for (Session other : sessions) {
+            if (other != except && name.equals(other.name) && other.game != null && !other.game.finished) {
+                return other;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Looks for a running game where a player of this name dropped out and no decision was made yet.
+     */
+    private Game findDisconnectedGame(String name) {
+        for (Session other : sessions) {
+            Game game = other.game;
+            if (game != null && !game.finished) {
+                int slot = 1 - other.slot;
+                if (game.players[slot] == null && game.names[slot].equals(name)) {
+                    return game;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Puts a player into the queue or starts a game with the waiting one.
+     */
+    private void handleJoin(Session session) {
+        if (session.name == null || session.game != null || session == waitingPlayer) {
+            return;
+        }
+        if (waitingPlayer == null) {
+            waitingPlayer = session;
+            session.send("JOIN_GAME;R");
+            return;
+        }
+
+        Session first = waitingPlayer;
+        waitingPlayer = null;
+        session.send("JOIN_GAME;B");
+
+        Game game = new Game(Board.create(boardSize), first, session);
+        int center = boardSize / 2;
+        game.board.set(center - 1, center - 1, 'R');
+        game.board.set(center, center - 1, 'B');
+        game.board.set(center - 1, center, 'B');
+        game.board.set(center, center, 'R');
+
+        first.send("START_GAME;" + session.name + ";B;1;" + boardSize);
+        session.send("START_GAME;" + first.name + ";R;0;" + boardSize);
+        first.knownSequence = 0;
+        session.knownSequence = 0;
+    }
+
+    /**
+     * Validates and applies a move, then hands the turn over, keeps it on a pass or ends the game.
+     */
+    private void handleMove(Session session, int x, int y) {
+        Game game = session.game;
+        if (game == null || game.finished) {
+            session.sendMoveResult(NetworkClient.ERR_GAME_NOT_FOUND, x, y);
+            return;
+        }
+        if (game.turn != session.slot || game.players[1 - session.slot] == null) {
+            session.sendMoveResult(NetworkClient.ERR_NOT_MY_TURN, x, y);
+            return;
+        }
+        if (x < 0 || y < 0 || x >= game.board.getSize() || y >= game.board.getSize()) {
+            session.sendMoveResult(NetworkClient.ERR_INVALID_MOVE, x, y);
+            return;
+        }
+        if (game.board.get(x, y) != ' ') {
+            session.sendMoveResult(NetworkClient.ERR_FIELD_OCCUPIED, x, y);
+            return;
+        }
+        char token = Game.TOKENS[session.slot];
+        if (!game.board.isLegalMove(x, y, token)) {
+            session.sendMoveResult(NetworkClient.ERR_INVALID_MOVE, x, y);
+            return;
+        }
+
+        game.board.placeStone(x, y, token);
+        game.record(y * game.board.getSize() + x, token);
+        Session opponent = game.players[1 - session.slot];
+        session.sendMoveResult(MOVE_OK, x, y);
+        opponent.sendOppMove(x, y);
+        session.knownSequence = game.sequence;
+        opponent.knownSequence = game.sequence;
+
+        if (hasLegalMove(game.board, Game.TOKENS[opponent.slot])) {
+            game.turn = opponent.slot;
+        } else if (hasLegalMove(game.board, token)) {
+            // The opponent has to pass, the turn stays with the mover
+            syncBoth(game);
+        } else {
+            int red = count(game.board, 'R');
+            int blue = count(game.board, 'B');
+            finish(game, "GAME_STATUS;" + (red == blue ? NetworkClient.STATUS_MSG_DRAW
+                    : game.names[red > blue ? 0 : 1]));
+        }
+    }
+
+    /**
+     * Handles the remaining player's decision about a disconnected opponent.
+     */
+    private void handleWaitReply(Session session, boolean wait) {
+        Game game = session.game;
+        if (game == null || game.finished) {
+            return;
+        }
+        int missing = 1 - session.slot;
+        if (game.players[missing] != null) {
+            return;
+        }
+        if (wait) {
+            game.heldSince = System.currentTimeMillis();
+            heldGames.put(game.names[missing], game);
+        } else {
+            abandonedPlayers.add(game.names[missing]);
+            finish(game, "GAME_STATUS;" + game.names[session.slot]);
+        }
+    }
+
+    /**
+     * Removes a session and informs the opponent of a running game.
+     */
+    private void disconnect(Session session) {
+        if (!sessions.remove(session)) {
+            return;
+        }
+        if (waitingPlayer == session) {
+            waitingPlayer = null;
+        }
+        Game game = session.game;
+        if (game == null || game.finished) {
+            return;
+        }
+        game.players[session.slot] = null;
+        Session opponent = game.players[1 - session.slot];
+        if (opponent != null) {
+            opponent.send("OPP_DISCONNECTED");
+        } else {
+            // Both players are gone, nobody is left to wait
+            game.finished = true;
+            heldGames.values().remove(game);
+        }
+    }
+
+    /**
+     * Sends the final status to the connected players and releases them for new games.
+     */
+    private void finish(Game game, String status) {
+        game.finished = true;
+        for (Session player : game.players) {
+            if (player != null) {
+                player.send(status);
+                player.game = null;
+            }
+        }
+    }
+
+    /**
+     * Sends the board, the turn and the opponent to both players.
+     */
+    private void syncBoth(Game game) {
+        for (int slot = 0; slot < 2; slot++) {
+            if (game.players[slot] != null) {
+                sync(game, slot, false);
+            }
+        }
+    }
+
+    /**
+     * Sends the board, the turn and the opponent to one player. Clients that announced compact
+     * syncs get the moves since their known sequence number if that is shorter than a compact
+     * snapshot, others get the plain board.
+     *
+     * @param snapshot Set to send a snapshot even if a delta would do, e.g. after a RESYNC.
+     */
+    private void sync(Game game, int slot, boolean snapshot) {
+        Session player = game.players[slot];
+        StringBuilder message = new StringBuilder("RECONNECT;");
+        if (!player.compactSync) {
+            BoardCodec.appendPlain(game.board, message);
+        } else {
+            int start = message.length();
+            boolean deltaPossible = !snapshot
+                    && player.knownSequence >= 0 && player.knownSequence <= game.sequence;
+            if (deltaPossible) {
+                BoardCodec.appendDelta(game.moveLog, player.knownSequence, game.sequence, message);
+            }
+            int cells = game.board.getSize() * game.board.getSize();
+            if (!deltaPossible || message.length() - start > 1 + (cells + 11) / 12 * 4) {
+                message.setLength(start);
+                BoardCodec.appendSnapshot(game.board, message);
+            }
+        }
+        message.append(';').append(game.names[game.turn])
+                .append(';').append(game.names[1 - slot])
+                .append(';').append(Game.TOKENS[1 - slot]);
+        if (player.compactSync) {
+            message.append(';').append(game.sequence);
+            player.knownSequence = game.sequence;
+        }
+        player.send(message.toString());
+    }
+
+    /**
+     * Checks if the player has at least one legal move.
+     */
+    private static boolean hasLegalMove(Board board, char token) {
+        for (int y = 0; y < board.getSize(); y++) {
+            for (int x = 0; x < board.getSize(); x++) {
+                if (board.isLegalMove(x, y, token)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the stones of one player.
+     */
+    private static int count(Board board, char token) {
+        int stones = 0;
+        for (int y = 0; y < board.getSize(); y++) {
+            for (int x = 0; x < board.getSize(); x++) {
+                if (board.get(x, y) == token) {
+                    stones++;
+                }
+            }
+        }
+        return stones;
+    }
+
+    /**
+     * A connected player.
+     */
+    private class Session implements ClientTransport.Listener {
+        /**
+         * Reused for every line of this session.
+         */
+        private final MessageTokenizer tokenizer = new MessageTokenizer();
+
+        /**
+         * The connection of the player.
+         */
+        private NioTransport transport;
+
+        /**
+         * The login name, null until LOGIN.
+         */
+        private String name;
+
+        /**
+         * The game the player takes part in, if any.
+         */
+        private Game game;
+
+        /**
+         * Index of the player in {@link Game#players}.
+         */
+        private int slot;
+
+        /**
+         * Set if the client announced compact and delta board syncs at login.
+         */
+        private boolean compactSync;
+
+        /**
+         * Move sequence number of the client's board, -1 if unknown.
+         */
+        private int knownSequence = -1;
+
+        /**
+         * Set once the session uses the {@link BinaryProtocol} framing.
+         */
+        private boolean binary;
+
+        /**
+         * Time of the last PONG, or of the connection.
+         */
+        private long lastPong = System.currentTimeMillis();
+
+        /**
+         * Sends one message to the player.
+         */
+        private void send(String message) {
+            transport.send(message);
+        }
+
+        /**
+         * Sends the answer to a move, with its coordinates if it was accepted.
+         */
+        private void sendMoveResult(int status, int x, int y) {
+            if (binary) {
+                transport.sendFrame(status == MOVE_OK
+                        ? BinaryProtocol.frame(BinaryProtocol.OP_MOVE_RESULT, status, x, y)
+                        : BinaryProtocol.frame(BinaryProtocol.OP_MOVE_RESULT, status));
+            } else {
+                send(status == MOVE_OK ? "MOVE;" + status + ";" + x + ";" + y : "MOVE;" + status);
+            }
+        }
+
+        /**
+         * Sends the move of the opponent.
+         */
+        private void sendOppMove(int x, int y) {
+            if (binary) {
+                transport.sendFrame(BinaryProtocol.frame(BinaryProtocol.OP_OPP_MOVE, x, y));
+            } else {
+                send("OPP_MOVE;" + x + ";" + y);
+            }
+        }
+
+        /**
+         * Sends a keep-alive request.
+         */
+        private void sendPing() {
+            if (binary) {
+                transport.sendFrame(BinaryProtocol.frame(BinaryProtocol.OP_PING));
+            } else {
+                send("PING");
+            }
+        }
+
+        @Override
+        public void onLine(char[] buffer, int offset, int count) {
+            try {
+                handleLine(this, tokenizer.reset(buffer, offset, count));
+            } catch (NumberFormatException e) {
+                send("MOVE;" + NetworkClient.ERR_INVALID_MOVE);
+            }
+        }
+
+        @Override
+        public void onFrame(int opcode, ByteBuffer payload) {
+            if (opcode == BinaryProtocol.OP_MOVE) {
+                handleMove(this, BinaryProtocol.getInt(payload), BinaryProtocol.getInt(payload));
+            } else if (opcode == BinaryProtocol.OP_PONG) {
+                lastPong = System.currentTimeMillis();
+            } else {
+                ClientTransport.Listener.super.onFrame(opcode, payload);
+            }
+        }
+
+        @Override
+        public void onDisconnect(IOException cause) {
+            disconnect(this);
+        }
+    }
+
+    /**
+     * A game between two sessions.
+     */
+    private static class Game {
+        /**
+         * Tokens of the first and the second player.
+         */
+        private static final char[] TOKENS = {'R', 'B'};
+
+        /**
+         * The stones of the game.
+         */
+        private final Board board;
+
+        /**
+         * The players, null while one is disconnected.
+         */
+        private final Session[] players = new Session[2];
+
+        /**
+         * The names of the players, kept for reconnects.
+         */
+        private final String[] names = new String[2];
+
+        /**
+         * Index of the player to move.
+         */
+        private int turn;
+
+        /**
+         * Set once the result was sent.
+         */
+        private boolean finished;
+
+        /**
+         * Time the remaining player decided to wait for the opponent.
+         */
+        private long heldSince;
+
+        /**
+         * The moves of the game in order, see {@link BoardCodec#logEntry(int, char)}.
+         */
+        private int[] moveLog = new int[64];
+
+        /**
+         * Number of moves in {@link #moveLog}.
+         */
+        private int sequence;
+
+        Game(Board board, Session first, Session second) {
+            this.board = board;
+            List<Session> both = List.of(first, second);
+            for (int slot = 0; slot < 2; slot++) {
+                Session player = both.get(slot);
+                players[slot] = player;
+                names[slot] = player.name;
+                player.game = this;
+                player.slot = slot;
+            }
+        }
+
+        /**
+         * Appends a move to the log.
+         */
+        void record(int cell, char token) {
+            if (sequence == moveLog.length) {
+                moveLog = Arrays.copyOf(moveLog, sequence * 2);
+            }
+            moveLog[sequence++] = BoardCodec.logEntry(cell, token);
+        }
+    }
+}
@@ -0,0 +1,852 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Alpha-beta search over bitboard positions, used for move hints and bots.
+ * <p>
+ * The search deepens iteratively until the time budget or the depth limit is reached and orders
+ * moves by the previous iteration and by square class (corners first, squares next to corners last).
+ * Work is split across a fork/join pool in the "young brothers wait" style: the first move of a
+ * node is searched alone to establish a bound, then its siblings are searched in parallel.
+ * Searches run on the engine's own pool, so callers on the network listener or the EDT never block.
+ * <p>
+ * Positions reached by different move orders are searched once: every node looks up its
+ * {@link Zobrist} hash in a {@link TranspositionTable} shared by all workers, returns a stored
+ * score that is deep enough, and otherwise tries the stored best move first.
+ * <p>
+ * With a {@link Tablebase}, positions of the 4x4 board are answered from the table without searching.
+ */
+public class SearchEngine {
+
+    /**
+     * Base score of a won game; the final disc difference is added to it.
+     */
+    public static final int WIN_SCORE = 10000;
+
+    /**
+     * Bound larger than any score.
+     */
+    private static final int INFINITY = 1_000_000;
+
+    /**
+     * Nodes this close to the root split their children across the pool; deeper nodes search
+     * sequentially, where a shared bound would arrive too late to prune anything.
+     */
+    private static final int SPLIT_PLIES = 1;
+
+    /**
+     * Nodes with less remaining depth than this never split, the task overhead would dominate.
+     */
+    private static final int MIN_SPLIT_DEPTH = 3;
+
+    /**
+     * Number of nodes between two checks of the deadline.
+     */
+    private static final int DEADLINE_CHECK_INTERVAL = 4096;
+
+    /**
+     * Weight of a corner in the evaluation.
+     */
+    private static final int CORNER_WEIGHT = 25;
+
+    /**
+     * Weight of a square next to a corner in the evaluation (negative: it gives the corner away).
+     */
+    private static final int DANGER_WEIGHT = -8;
+
+    /**
+     * Weight of one move of mobility difference in the evaluation.
+     */
+    private static final int MOBILITY_WEIGHT = 3;
+
+    /**
+     * Result of a transposition table lookup that does not decide the node.
+     */
+    private static final int NO_SCORE = Integer.MIN_VALUE;
+
+    /**
+     * Number of engines created, names their transposition tables over JMX.
+     */
+    private static final AtomicInteger ENGINE_COUNT = new AtomicInteger();
+
+    /**
+     * The pool running the searches.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Results of earlier nodes, kept across searches.
+     */
+    private final TranspositionTable table;
+
+    /**
+     * Perfect play of the 4x4 board, null to search every position.
+     */
+    private volatile Tablebase tablebase;
+
+    /**
+     * Creates an engine using the given number of worker threads.
+     *
+     * @param parallelism The number of threads to search with.
+     */
+    public SearchEngine(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.table = new TranspositionTable(Integer.getInteger("reversi.hashEntries",
+                TranspositionTable.DEFAULT_ENTRIES));
+        table.register("engine-" + ENGINE_COUNT.incrementAndGet());
+    }
+
+    /**
+     * Creates an engine using all available cores.
+     */
+    public SearchEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Answers 4x4 positions from a tablebase instead of searching them.
+     *
+     * @param tablebase The table, null to search every position.
+     */
+    public void useTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Gets the transposition table of the engine.
+     *
+     * @return The table shared by all searches of this engine.
+     */
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    /**
+     * Analyses the current position of the model in the background.
+     * The position is copied before this method returns, so the model may change meanwhile.
+     *
+     * @param model      The model holding the position; boards larger than 8x8 are not supported.
+     * @param token      The token of the player to move.
+     * @param maxDepth   The depth limit of the iterative deepening.
+     * @param timeMillis The time budget in milliseconds.
+     * @return A future completed with the result of the deepest finished iteration.
+     */
+    public CompletableFuture<Result> analyze(GameModel model, char token, int maxDepth, long timeMillis) {
+        if (!(model.getBoard() instanceof BitBoard)) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Search supports boards up to " + BitBoard.MAX_SIZE));
+        }
+        BitBoard board = (BitBoard) model.getBoard();
+        long own = board.getStones(token);
+        long opponent = board.getStones(token == 'R' ? 'B' : 'R');
+        long validMask = board.getValidMask();
+        long hash = token == 'R' ? board.getHash() : board.getHash() ^ Zobrist.SIDE_TO_MOVE;
+        Result known = lookUp(own, opponent, validMask);
+        if (known != null) {
+            return CompletableFuture.completedFuture(known);
+        }
+        return CompletableFuture.supplyAsync(
+                () -> iterate(own, opponent, hash, token == 'R', validMask, maxDepth, timeMillis), pool);
+    }
+
+    /**
+     * Searches a position and waits for the result. The player to move counts as red in the
+     * transposition table.
+     *
+     * @param own        Stones of the player to move.
+     * @param opponent   Stones of the other player.
+     * @param validMask  Mask of the cells that exist on the board.
+     * @param maxDepth   The depth limit of the iterative deepening.
+     * @param timeMillis The time budget in milliseconds.
+     * @return The result of the deepest finished iteration.
+     */
+    public Result search(long own, long opponent, long validMask, int maxDepth, long timeMillis) {
+        Result known = lookUp(own, opponent, validMask);
+        if (known != null) {
+            return known;
+        }
+        // Tasks forked outside of a worker would run on the common pool, so the search starts inside ours
+        long hash = Zobrist.hash(own, opponent);
+        return pool.submit(() -> iterate(own, opponent, hash, true, validMask, maxDepth, timeMillis)).join();
+    }
+
+    /**
+     * Reads a position from the tablebase.
+     *
+     * @return The perfect move and the exact score, null if the position is not in the table.
+     */
+    private Result lookUp(long own, long opponent, long validMask) {
+        Tablebase table = tablebase;
+        if (table == null || validMask != BitBoard.validMask(Tablebase.SIZE)) {
+            return null;
+        }
+        long start = System.nanoTime();
+        int slot = table.find(own, opponent);
+        if (slot < 0) {
+            return null;
+        }
+        int move = table.getBestMove(slot);
+        int depth = Long.bitCount(validMask & ~(own | opponent));
+        return new Result(move == Tablebase.PASS ? -1 : move % BitBoard.MAX_SIZE,
+                move == Tablebase.PASS ? -1 : move / BitBoard.MAX_SIZE,
+                Search.exactScore(table.getScore(slot)), depth, 1, System.nanoTime() - start);
+    }
+
+    /**
+     * Runs the iterative deepening; must be called on a worker of the engine's pool.
+     */
+    private Result iterate(long own, long opponent, long hash, boolean red, long validMask, int maxDepth,
+                          long timeMillis) {
+        long start = System.nanoTime();
+        table.newSearch();
+        Search search = new Search(table, validMask, start + timeMillis * 1_000_000L, pool.getParallelism() > 1);
+
+        long moves = BitBoard.legalMoves(own, opponent, validMask);
+        int moveCount = Long.bitCount(moves);
+        int[] rootMoves = new int[moveCount];
+        int[] rootScores = new int[moveCount];
+        for (int i = 0; i < moveCount; i++) {
+            rootMoves[i] = search.nextOrdered(moves, i);
+        }
+
+        Result result = new Result(-1, -1, 0, 0, 0, 0);
+        for (int depth = 1; depth <= maxDepth && moveCount > 0; depth++) {
+            search.splitDepth = Math.max(MIN_SPLIT_DEPTH, depth - SPLIT_PLIES);
+            int bestScore = searchRoot(search, own, opponent, hash, red, depth, rootMoves, rootScores);
+            if (search.aborted) {
+                break;
+            }
+            sortByScore(rootMoves, rootScores);
+            int bestMove = rootMoves[0];
+            result = new Result(bestMove % BitBoard.MAX_SIZE, bestMove / BitBoard.MAX_SIZE, bestScore, depth,
+                    search.nodes.sum(), System.nanoTime() - start);
+            if (Math.abs(bestScore) >= WIN_SCORE) {
+                // The game is solved, deeper iterations cannot change the outcome
+                break;
+            }
+        }
+        return new Result(result.getX(), result.getY(), result.getScore(), result.getDepth(),
+                search.nodes.sum(), System.nanoTime() - start);
+    }
+
+    /**
+     * Searches all root moves of one iteration: the first one alone, the rest in parallel.
+     *
+     * @return The best score, scores of the individual moves are stored in rootScores.
+     */
+    private int searchRoot(Search search, long own, long opponent, long hash, boolean red, int depth,
+                           int[] rootMoves, int[] rootScores) {
+        NodeTask first = search.child(own, opponent, hash, red, rootMoves[0], depth, -INFINITY, INFINITY, null);
+        first.invoke();
+        rootScores[0] = -first.score;
+        SplitPoint root = new SplitPoint(rootScores[0]);
+
+        NodeTask[] siblings = new NodeTask[rootMoves.length - 1];
+        // Forked in reverse, so the local worker pops the best-ordered siblings first
+        for (int i = rootMoves.length - 1; i >= 1; i--) {
+            siblings[i - 1] = search.child(own, opponent, hash, red, rootMoves[i], depth, -INFINITY, INFINITY, root);
+            siblings[i - 1].fork();
+        }
+        int best = rootScores[0];
+        for (int i = 0; i < siblings.length; i++) {
+            siblings[i].join();
+            rootScores[i + 1] = -siblings[i].score;
+            best = Math.max(best, rootScores[i + 1]);
+        }
+        return best;
+    }
+
+    /**
+     * Sorts the root moves by descending score, keeping the order of equal scores.
+     */
+    private static void sortByScore(int[] moves, int[] scores) {
+        for (int i = 1; i < moves.length; i++) {
+            int move = moves[i];
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            scores[j + 1] = score;
+        }
+    }
+
+    /**
+     * Stops the worker threads of the engine.
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+        table.unregister();
+    }
+
+    /**
+     * Outcome of a search.
+     */
+    public static final class Result {
+        /**
+         * The x-coordinate of the best move.
+         */
+        private final int x;
+
+        /**
+         * The y-coordinate of the best move.
+         */
+        private final int y;
+
+        /**
+         * The score of the best move.
+         */
+        private final int score;
+
+        /**
+         * The depth of the deepest finished iteration.
+         */
+        private final int depth;
+
+        /**
+         * The number of positions visited.
+         */
+        private final long nodes;
+
+        /**
+         * The wall-clock time of the search.
+         */
+        private final long elapsedNanos;
+
+        /**
+         * Creates a result.
+         */
+        Result(int x, int y, int score, int depth, long nodes, long elapsedNanos) {
+            this.x = x;
+            this.y = y;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return The x-coordinate of the best move, -1 if the player has to pass.
+         */
+        public int getX() {
+            return x;
+        }
+
+        /**
+         * @return The y-coordinate of the best move, -1 if the player has to pass.
+         */
+        public int getY() {
+            return y;
+        }
+
+        /**
+         * @return The score from the point of view of the player to move.
+         */
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * @return The depth of the deepest finished iteration.
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * @return The number of positions visited.
+         */
+        public long getNodes() {
+            return nodes;
+        }
+
+        /**
+         * @return The wall-clock time of the search in nanoseconds.
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return The search speed in nodes per second.
+         */
+        public double getNodesPerSecond() {
+            return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "move " + x + ";" + y + " score " + score + " depth " + depth
+                    + " nodes " + nodes + String.format(" (%.0f nodes/s)", getNodesPerSecond());
+        }
+    }
+
+    /**
+     * State shared by all tasks of one search.
+     */
+    private static final class Search {
+        /**
+         * Results of earlier nodes.
+         */
+        private final TranspositionTable table;
+
+        /**
+         * Mask of the cells that exist on the board.
+         */
+        private final long validMask;
+
+        /**
+         * Mask of the four corners.
+         */
+        private final long corners;
+
+        /**
+         * Mask of the squares next to the corners.
+         */
+        private final long dangerSquares;
+
+        /**
+         * Time after which the search is aborted.
+         */
+        private final long deadlineNanos;
+
+        /**
+         * Indicates if nodes may split their children across the pool.
+         */
+        private final boolean parallel;
+
+        /**
+         * Nodes with at least this much remaining depth split; set for every iteration.
+         */
+        private int splitDepth;
+
+        /**
+         * Positions visited by all tasks.
+         */
+        private final LongAdder nodes = new LongAdder();
+
+        /**
+         * Set once the deadline passed; results of the running iteration are discarded.
+         */
+        private volatile boolean aborted;
+
+        /**
+         * Creates the state of one search.
+         */
+        Search(TranspositionTable table, long validMask, long deadlineNanos, boolean parallel) {
+            this.table = table;
+            this.validMask = validMask;
+            this.parallel = parallel;
+            this.deadlineNanos = deadlineNanos;
+            int size = Long.numberOfTrailingZeros(~validMask);
+            int last = size - 1;
+            this.corners = BitBoard.bit(0, 0) | BitBoard.bit(last, 0) | BitBoard.bit(0, last) | BitBoard.bit(last, last);
+            this.dangerSquares = size < 4 ? 0L
+                    : (BitBoard.bit(1, 0) | BitBoard.bit(0, 1) | BitBoard.bit(1, 1)
+                    | BitBoard.bit(last - 1, 0) | BitBoard.bit(last, 1) | BitBoard.bit(last - 1, 1)
+                    | BitBoard.bit(0, last - 1) | BitBoard.bit(1, last) | BitBoard.bit(1, last - 1)
+                    | BitBoard.bit(last, last - 1) | BitBoard.bit(last - 1, last) | BitBoard.bit(last - 1, last - 1));
+        }
+
+        /**
+         * Creates the task searching the position after a move, from the opponent's point of view.
+         */
+        NodeTask child(long own, long opponent, long hash, boolean red, int move, int depth, int alpha, int beta,
+                       SplitPoint parent) {
+            long bit = 1L << move;
+            long flips = BitBoard.computeFlips(own, opponent, bit, validMask);
+            return new NodeTask(this, opponent & ~flips, own | bit | flips,
+                    hash ^ Zobrist.move(red, bit, flips) ^ Zobrist.SIDE_TO_MOVE, !red,
+                    depth - 1, alpha, beta, false, parent, move);
+        }
+
+        /**
+         * Gets the score of a stored result if it is deep enough and decides the window.
+         *
+         * @return The score, {@link #NO_SCORE} if the node has to be searched.
+         */
+        static int cutoff(long entry, int depth, int alpha, int beta) {
+            if (entry == TranspositionTable.MISS || TranspositionTable.depth(entry) < depth) {
+                return NO_SCORE;
+            }
+            int score = TranspositionTable.score(entry);
+            switch (TranspositionTable.bound(entry)) {
+                case TranspositionTable.EXACT:
+                    return score;
+                case TranspositionTable.LOWER:
+                    return score >= beta ? score : NO_SCORE;
+                default:
+                    return score <= alpha ? score : NO_SCORE;
+            }
+        }
+
+        /**
+         * Stores the result of a node searched with the window (alpha, beta), unless the search was aborted
+         * and the score is meaningless.
+         */
+        void store(long hash, int depth, int alpha, int beta, int score, int move) {
+            if (aborted) {
+                return;
+            }
+            int bound = score <= alpha ? TranspositionTable.UPPER
+                    : score >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            table.store(hash, score, depth, bound, move);
+        }
+
+        /**
+         * Picks the n-th move in order: corners, then ordinary squares, then squares next to corners.
+         */
+        int nextOrdered(long moves, int n) {
+            for (int group = 0; group < 3; group++) {
+                long candidates = orderGroup(moves, group);
+                int count = Long.bitCount(candidates);
+                if (n < count) {
+                    for (int i = 0; i < n; i++) {
+                        candidates &= candidates - 1;
+                    }
+                    return Long.numberOfTrailingZeros(candidates);
+                }
+                n -= count;
+            }
+            throw new IllegalArgumentException("Move index out of range");
+        }
+
+        /**
+         * Splits the moves into ordering groups: 0 = corners, 1 = ordinary squares, 2 = next to corners.
+         */
+        long orderGroup(long moves, int group) {
+            switch (group) {
+                case 0:
+                    return moves & corners;
+                case 1:
+                    return moves & ~corners & ~dangerSquares;
+                default:
+                    return moves & dangerSquares;
+            }
+        }
+
+        /**
+         * Checks the deadline and marks the search as aborted when it passed.
+         */
+        boolean timeUp() {
+            if (!aborted && System.nanoTime() > deadlineNanos) {
+                aborted = true;
+            }
+            return aborted;
+        }
+
+        /**
+         * Static evaluation from the point of view of the player to move.
+         */
+        int evaluate(long own, long opponent, long ownMoves) {
+            long opponentMoves = BitBoard.legalMoves(opponent, own, validMask);
+            return Long.bitCount(own) - Long.bitCount(opponent)
+                    + CORNER_WEIGHT * (Long.bitCount(own & corners) - Long.bitCount(opponent & corners))
+                    + DANGER_WEIGHT * (Long.bitCount(own & dangerSquares & ~nextToOwnCorner(own))
+                    - Long.bitCount(opponent & dangerSquares & ~nextToOwnCorner(opponent)))
+                    + MOBILITY_WEIGHT * (Long.bitCount(ownMoves) - Long.bitCount(opponentMoves));
+        }
+
+        /**
+         * Squares next to corners are only dangerous while the corner is still free;
+         * approximated by clearing all of them once the player holds any corner.
+         */
+        private long nextToOwnCorner(long stones) {
+            return (stones & corners) != 0 ? dangerSquares : 0L;
+        }
+
+        /**
+         * Exact score of a finished game.
+         */
+        static int finalScore(long own, long opponent) {
+            return exactScore(Long.bitCount(own) - Long.bitCount(opponent));
+        }
+
+        /**
+         * Score of a game ending with the given disc difference.
+         */
+        static int exactScore(int difference) {
+            if (difference > 0) {
+                return WIN_SCORE + difference;
+            }
+            if (difference < 0) {
+                return -WIN_SCORE + difference;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * A node whose children are searched in parallel. Children read the best score found so far
+     * when they start, so siblings that start late still search with a narrow window.
+     */
+    private static final class SplitPoint {
+        /**
+         * Best score of the node found so far.
+         */
+        private volatile int bound;
+
+        /**
+         * Creates a split point with the score of the first child.
+         */
+        SplitPoint(int bound) {
+            this.bound = bound;
+        }
+
+        /**
+         * Raises the bound if a child found a better score.
+         */
+        synchronized void raise(int score) {
+            if (score > bound) {
+                bound = score;
+            }
+        }
+    }
+
+    /**
+     * Computes the negamax score of one position within an alpha-beta window. The score is left in
+     * {@link #score} instead of being returned, so no Integer is boxed per task; the siblings of a
+     * split are chained through {@link #next} and {@link #previous} instead of held in arrays.
+     */
+    private static final class NodeTask extends RecursiveAction {
+        /**
+         * Version of the serialized form.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * State shared by the whole search.
+         */
+        private final Search search;
+
+        /**
+         * Stones of the player to move.
+         */
+        private final long own;
+
+        /**
+         * Stones of the other player.
+         */
+        private final long opponent;
+
+        /**
+         * Zobrist hash of the position including the side to move.
+         */
+        private final long hash;
+
+        /**
+         * Indicates if the player to move is red.
+         */
+        private final boolean red;
+
+        /**
+         * Remaining depth.
+         */
+        private final int depth;
+
+        /**
+         * Lower bound of the window.
+         */
+        private final int alpha;
+
+        /**
+         * Upper bound of the window.
+         */
+        private final int beta;
+
+        /**
+         * Indicates if the previous player had to pass.
+         */
+        private final boolean passed;
+
+        /**
+         * The parallel node this task is a child of, null when searched alone.
+         */
+        private final SplitPoint parent;
+
+        /**
+         * The move leading to this position, the bit index; -1 for the root.
+         */
+        private final int move;
+
+        /**
+         * The next sibling in move order, null for the last one.
+         */
+        private NodeTask next;
+
+        /**
+         * The previous sibling in move order, null for the first one.
+         */
+        private NodeTask previous;
+
+        /**
+         * Positions visited by this task.
+         */
+        private long nodes;
+
+        /**
+         * The negamax score, from the point of view of the player to move; valid once the task completed.
+         */
+        private int score;
+
+        /**
+         * Creates a task searching one position.
+         */
+        NodeTask(Search search, long own, long opponent, long hash, boolean red, int depth, int alpha, int beta,
+                 boolean passed, SplitPoint parent, int move) {
+            this.search = search;
+            this.own = own;
+            this.opponent = opponent;
+            this.hash = hash;
+            this.red = red;
+            this.depth = depth;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.passed = passed;
+            this.parent = parent;
+            this.move = move;
+        }
+
+        @Override
+        protected void compute() {
+            // A sibling may have raised the parent's bound since this task was forked; the window stays
+            // one point wider, so a move scoring as well as the bound returns its exact score
+            int windowBeta = parent == null ? beta : Math.min(beta, -parent.bound + 1);
+            int score;
+            if (alpha >= windowBeta) {
+                score = windowBeta;
+            } else if (search.parallel && depth >= search.splitDepth) {
+                score = splitSearch(windowBeta);
+            } else {
+                score = negamax(own, opponent, hash, red, depth, alpha, windowBeta, passed);
+            }
+            if (parent != null) {
+                parent.raise(-score);
+            }
+            search.nodes.add(nodes);
+            this.score = score;
+        }
+
+        /**
+         * Searches the first child alone, then forks its siblings with the improved bound.
+         * The stored best move, if any, is the first child; the others follow by square class.
+         */
+        private int splitSearch(int beta) {
+            nodes++;
+            long moves = BitBoard.legalMoves(own, opponent, search.validMask);
+            if (moves == 0) {
+                return negamax(own, opponent, hash, red, depth, alpha, beta, passed);
+            }
+            long entry = search.table.probe(hash);
+            int known = Search.cutoff(entry, depth, alpha, beta);
+            if (known != NO_SCORE) {
+                return known;
+            }
+            int hashMove = entry == TranspositionTable.MISS ? -1 : TranspositionTable.move(entry);
+            long hashBit = hashMove >= 0 ? moves & (1L << hashMove) : 0L;
+            int firstMove = hashBit != 0 ? hashMove : search.nextOrdered(moves, 0);
+
+            NodeTask first = search.child(own, opponent, hash, red, firstMove, depth, -beta, -alpha, null);
+            first.invoke();
+            int best = -first.score;
+            int bestMove = firstMove;
+            long siblingMoves = moves & ~(1L << firstMove);
+            if (best < beta && siblingMoves != 0) {
+                SplitPoint split = new SplitPoint(Math.max(alpha, best));
+                // The stored best move goes first as group -1, the square classes follow without it
+                NodeTask head = null;
+                NodeTask tail = null;
+                for (int group = -1; group < 3; group++) {
+                    long candidates = group < 0 ? hashBit & siblingMoves
+                            : search.orderGroup(siblingMoves, group) & ~hashBit;
+                    for (long rest = candidates; rest != 0; rest &= rest - 1) {
+                        NodeTask sibling = search.child(own, opponent, hash, red, Long.numberOfTrailingZeros(rest),
+                                depth, -beta, -alpha, split);
+                        if (head == null) {
+                            head = sibling;
+                        } else {
+                            tail.next = sibling;
+                            sibling.previous = tail;
+                        }
+                        tail = sibling;
+                    }
+                }
+                // Forked in reverse, so the local worker pops the best-ordered siblings first
+                for (NodeTask sibling = tail; sibling != null; sibling = sibling.previous) {
+                    sibling.fork();
+                }
+                for (NodeTask sibling = head; sibling != null; sibling = sibling.next) {
+                    sibling.join();
+                    if (-sibling.score > best) {
+                        best = -sibling.score;
+                        bestMove = sibling.move;
+                    }
+                }
+            }
+            search.store(hash, depth, alpha, beta, best, bestMove);
+            return best;
+        }
+
+        /**
+         * Sequential negamax with alpha-beta pruning; passes do not consume depth.
+         * Nodes with remaining depth consult the transposition table before and update it after the search.
+         */
+        private int negamax(long own, long opponent, long hash, boolean red, int depth, int alpha, int beta,
+                            boolean passed) {
+            if ((++nodes % DEADLINE_CHECK_INTERVAL) == 0 && search.timeUp() || search.aborted) {
+                return 0;
+            }
+            long moves = BitBoard.legalMoves(own, opponent, search.validMask);
+            if (moves == 0) {
+                if (passed) {
+                    return Search.finalScore(own, opponent);
+                }
+                return -negamax(opponent, own, hash ^ Zobrist.SIDE_TO_MOVE, !red, depth, -beta, -alpha, true);
+            }
+            if (depth == 0) {
+                return search.evaluate(own, opponent, moves);
+            }
+            long entry = search.table.probe(hash);
+            int known = Search.cutoff(entry, depth, alpha, beta);
+            if (known != NO_SCORE) {
+                return known;
+            }
+
+            // The stored best move goes first as group -1, the square classes follow without it
+            long hashMove = entry == TranspositionTable.MISS || TranspositionTable.move(entry) < 0 ? 0L
+                    : moves & (1L << TranspositionTable.move(entry));
+            int windowAlpha = alpha;
+            int best = -INFINITY;
+            long bestBit = 0L;
+            scan:
+            for (int group = -1; group < 3; group++) {
+                long candidates = group < 0 ? hashMove : search.orderGroup(moves, group) & ~hashMove;
+                for (long rest = candidates; rest != 0; rest &= rest - 1) {
+                    long bit = rest & -rest;
+                    long flips = BitBoard.computeFlips(own, opponent, bit, search.validMask);
+                    int score = -negamax(opponent & ~flips, own | bit | flips,
+                            hash ^ Zobrist.move(red, bit, flips) ^ Zobrist.SIDE_TO_MOVE, !red,
+                            depth - 1, -beta, -alpha, false);
+                    if (score > best) {
+                        best = score;
+                        bestBit = bit;
+                        if (score > alpha) {
+                            alpha = score;
+                            if (alpha >= beta) {
+                                break scan;
+                            }
+                        }
+                    }
+                }
+            }
+            search.store(hash, depth, windowAlpha, beta, best, Long.numberOfTrailingZeros(bestBit));
+            return best;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * Commands the server can send to the client, identified by the first field of a message.
+ */
+public enum ServerCommand {
+    GAME_STATUS,
+    LOGIN,
+    JOIN_GAME,
+    START_GAME,
+    MOVE,
+    OPP_MOVE,
+    PING,
+    OPP_DISCONNECTED,
+    RECONNECT;
+
+    /**
+     * All commands, cached so that lookups do not copy {@link #values()}.
+     */
+    private static final ServerCommand[] COMMANDS = values();
+
+    /**
+     * Reads the command field of a message.
+     *
+     * @param tokenizer The tokenizer positioned at the start of a message.
+     * @return The matching command, or null if the keyword is unknown.
+     */
+    public static ServerCommand read(MessageTokenizer tokenizer) {
+        tokenizer.skip();
+        for (ServerCommand command : COMMANDS) {
+            if (tokenizer.fieldEquals(command.name())) {
+                return command;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,208 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking transport: one socket, a listener thread for incoming lines and a writer thread that
+ * drains a bounded outbound queue, so all messages queued meanwhile leave in a single flush.
+ */
+public class SocketTransport implements ClientTransport {
+
+    /**
+     * Size of the writer's buffer in characters.
+     */
+    private static final int WRITE_BUFFER_SIZE = 8192;
+
+    /**
+     * The client socket used for communication.
+     */
+    private final Socket networkSocket;
+
+    /**
+     * A reader for receiving data from the server.
+     */
+    private final BufferedReader readerStream;
+
+    /**
+     * A buffered writer for sending data to the server, only used by the writer thread.
+     */
+    private final Writer writerStream;
+
+    /**
+     * Messages waiting for the writer thread.
+     */
+    private final BlockingQueue<String> outbound = new ArrayBlockingQueue<>(OUTBOUND_CAPACITY);
+
+    /**
+     * The receiver of incoming lines and errors.
+     */
+    private final Listener listener;
+
+    /**
+     * The thread draining the outbound queue.
+     */
+    private final Thread writerThread;
+
+    /**
+     * Set when the connection was closed on purpose or broke.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Connects to the server and starts the listener and writer threads.
+     *
+     * @param serverAddress The server IP address.
+     * @param port          The server port.
+     * @param listener      The receiver of incoming lines and errors.
+     * @throws IOException If an I/O error occurs when opening the socket.
+     */
+    public SocketTransport(String serverAddress, int port, Listener listener) throws IOException {
+        this.networkSocket = new Socket(serverAddress, port);
+        this.readerStream = new BufferedReader(
+                new InputStreamReader(networkSocket.getInputStream(), StandardCharsets.UTF_8));
+        this.writerStream = new BufferedWriter(
+                new OutputStreamWriter(networkSocket.getOutputStream(), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        this.listener = listener;
+
+        new Thread(this::listenToServer).start();
+        this.writerThread = new Thread(this::writeToServer);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    @Override
+    public void send(String message) {
+        if (closed) {
+            return;
+        }
+        try {
+            if (!outbound.offer(message, SEND_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                fail(new IOException("Outbound queue full for " + SEND_TIMEOUT + " ms"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * Closes the connection. Messages queued before, such as a final LOGOUT, are still written
+     * if the writer manages within {@link #SEND_TIMEOUT}; the socket is closed either way.
+     */
+    @Override
+    public void close() {
+        shutDown(true);
+    }
+
+    /**
+     * Stops the writer and closes the socket.
+     *
+     * @param drain Whether to wait for the writer to send what is still queued.
+     */
+    private void shutDown(boolean drain) {
+        closed = true;
+        writerThread.interrupt();
+        if (drain && Thread.currentThread() != writerThread) {
+            try {
+                writerThread.join(SEND_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            networkSocket.close();
+        } catch (IOException e) {
+            Log.error("Socket close");
+        }
+    }
+
+    /**
+     * Continuously listens to the server's messages and passes them to the listener.
+     * Lines are framed in a reusable buffer instead of being read as separate strings.
+     */
+    private void listenToServer() {
+        LineFramer framer = new LineFramer();
+        try {
+            while (true) {
+                CharBuffer buffer = framer.buffer();
+                int read = readerStream.read(buffer.array(), buffer.position(), buffer.remaining());
+                if (read == -1) {
+                    throw new IOException("Connection closed by server");
+                }
+                buffer.position(buffer.position() + read);
+                framer.drain(listener);
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (RuntimeException e) {
+            Log.error("Message handling failed: {}", e.toString());
+            fail(new IOException("Message handling failed: " + e, e));
+        }
+    }
+
+    /**
+     * Waits for queued messages and writes everything queued so far with one flush.
+     * Once closed, writes what is left in the queue and stops.
+     */
+    private void writeToServer() {
+        try {
+            while (!closed) {
+                String message = outbound.take();
+                // Gives a sender in the middle of a burst the chance to queue the rest before the flush
+                Thread.yield();
+                writeQueued(message);
+            }
+        } catch (InterruptedException e) {
+            // Closed on purpose, the rest of the queue still goes out
+        } catch (IOException e) {
+            fail(e);
+            return;
+        }
+        try {
+            writeQueued(outbound.poll());
+        } catch (IOException e) {
+            Log.debug("Messages queued before closing were not sent: {}", e.toString());
+        }
+    }
+
+    /**
+     * Writes a message and everything queued behind it with one flush.
+     *
+     * @param message The first message, null if only the queue is to be written.
+     * @throws IOException If the socket cannot be written.
+     */
+    private void writeQueued(String message) throws IOException {
+        if (message == null) {
+            return;
+        }
+        do {
+            writerStream.write(message);
+            writerStream.write('\n');
+        } while ((message = outbound.poll()) != null);
+        writerStream.flush();
+    }
+
+    /**
+     * Closes the connection after an error and notifies the listener once.
+     */
+    private synchronized void fail(IOException cause) {
+        if (closed) {
+            return;
+        }
+        shutDown(false);
+        listener.onDisconnect(cause);
+    }
+}
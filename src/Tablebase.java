@@ -0,0 +1,326 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Perfect play for every position reachable on the 4x4 board, read from a memory-mapped file.
+ * <p>
+ * Positions are seen from the player to move: the key holds that player's stones in the upper
+ * 16 bits and the opponent's in the lower 16, one bit per cell of the 4x4 board in row order,
+ * so the table does not depend on the colours. The file holds a header (magic, version, board
+ * size, entry count), a directory, the keys in ascending order, then one byte per key with the
+ * final disc difference under perfect play and one with the best move. The directory holds the
+ * index of the first key of every {@value #DIRECTORY_BITS} bit key prefix.
+ * <p>
+ * A lookup reads the key range of its prefix from the directory and searches it binary, with
+ * absolute reads of the mapped file: it allocates nothing and may run on any number of threads
+ * at once. The directory cuts the search from 16 probes over the whole table to about 4.
+ * <p>
+ * Usage: {@code Tablebase <file>} solves the 4x4 board and writes the table.
+ */
+public final class Tablebase {
+
+    /**
+     * The side length of the solved board.
+     */
+    public static final int SIZE = 4;
+
+    /**
+     * The best move of a position where the player to move has to pass or the game is over.
+     */
+    public static final int PASS = -1;
+
+    /**
+     * Magic number at the start of the file, "RVTB".
+     */
+    private static final int MAGIC = 0x52565442;
+
+    /**
+     * Version of the file layout.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Length of the file header.
+     */
+    private static final int HEADER_BYTES = 16;
+
+    /**
+     * Number of leading key bits resolved by the directory.
+     */
+    private static final int DIRECTORY_BITS = 12;
+
+    /**
+     * Number of directory entries, one more than the prefixes to hold the end of the last range.
+     */
+    private static final int DIRECTORY_SIZE = (1 << DIRECTORY_BITS) + 1;
+
+    /**
+     * Offset of the keys in the file.
+     */
+    private static final int KEYS_OFFSET = HEADER_BYTES + DIRECTORY_SIZE * Integer.BYTES;
+
+    /**
+     * Mask of the cells of the 4x4 board in the {@link BitBoard} layout.
+     */
+    private static final long VALID_MASK = BitBoard.validMask(SIZE);
+
+    /**
+     * The mapped file.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Number of positions in the table.
+     */
+    private final int count;
+
+    /**
+     * Offset of the scores in {@link #buffer}.
+     */
+    private final int scoresOffset;
+
+    /**
+     * Offset of the best moves in {@link #buffer}.
+     */
+    private final int movesOffset;
+
+    private Tablebase(MappedByteBuffer buffer, int count) {
+        this.buffer = buffer;
+        this.count = count;
+        this.scoresOffset = KEYS_OFFSET + count * Integer.BYTES;
+        this.movesOffset = scoresOffset + count;
+    }
+
+    /**
+     * Maps a table written by {@link #write}.
+     *
+     * @param file The table file.
+     * @return The table.
+     * @throws IOException If the file cannot be read or is not a 4x4 table.
+     */
+    public static Tablebase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                    || buffer.getInt(8) != SIZE) {
+                throw new IOException("Not a " + SIZE + "x" + SIZE + " tablebase");
+            }
+            int count = buffer.getInt(12);
+            if (buffer.limit() != KEYS_OFFSET + (long) count * (Integer.BYTES + 2)) {
+                throw new IOException("Tablebase is truncated");
+            }
+            return new Tablebase(buffer, count);
+        }
+    }
+
+    /**
+     * Maps the table named by the system property {@code reversi.tablebase}.
+     *
+     * @return The table, or null if the property is not set or the table cannot be read.
+     */
+    public static Tablebase openConfigured() {
+        String file = System.getProperty("reversi.tablebase", "");
+        if (file.isEmpty()) {
+            return null;
+        }
+        try {
+            return open(Paths.get(file));
+        } catch (NoSuchFileException e) {
+            Log.info("Tablebase {} not found, hints use the search", file);
+        } catch (IOException e) {
+            Log.error("Tablebase {} cannot be read: {}", file, e.toString());
+        }
+        return null;
+    }
+
+    /**
+     * Gets the number of positions in the table.
+     *
+     * @return The entry count.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Finds a position.
+     *
+     * @param own      Stones of the player to move, in the {@link BitBoard} layout.
+     * @param opponent Stones of the other player.
+     * @return The slot of the position, or -1 if it cannot be reached from the starting position.
+     */
+    public int find(long own, long opponent) {
+        int key = key(own, opponent);
+        int prefix = prefix(key);
+        int low = buffer.getInt(HEADER_BYTES + prefix * Integer.BYTES);
+        int high = buffer.getInt(HEADER_BYTES + (prefix + 1) * Integer.BYTES) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int probe = buffer.getInt(KEYS_OFFSET + mid * Integer.BYTES);
+            if (probe < key) {
+                low = mid + 1;
+            } else if (probe > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the outcome of a position under perfect play by both players.
+     *
+     * @param slot The slot returned by {@link #find}.
+     * @return The final disc difference from the point of view of the player to move.
+     */
+    public int getScore(int slot) {
+        return buffer.get(scoresOffset + slot);
+    }
+
+    /**
+     * Gets the best move of a position.
+     *
+     * @param slot The slot returned by {@link #find}.
+     * @return The bit index {@code y * 8 + x} of the move, {@link #PASS} if there is no legal move.
+     */
+    public int getBestMove(int slot) {
+        return buffer.get(movesOffset + slot);
+    }
+
+    /**
+     * Packs a position into a table key.
+     */
+    private static int key(long own, long opponent) {
+        return compress(own) << 16 | compress(opponent);
+    }
+
+    /**
+     * Gets the directory entry of a key; the prefixes ascend with the signed order of the keys.
+     */
+    private static int prefix(int key) {
+        return (key ^ Integer.MIN_VALUE) >>> (Integer.SIZE - DIRECTORY_BITS);
+    }
+
+    /**
+     * Moves the four rows of a 4x4 {@link BitBoard} mask next to each other.
+     */
+    private static int compress(long stones) {
+        return (int) (stones & 0xF | stones >>> 4 & 0xF0 | stones >>> 8 & 0xF00 | stones >>> 12 & 0xF000);
+    }
+
+    /**
+     * Solves every position reachable from the starting position.
+     *
+     * @return The packed entries by key: the score in the upper bits, the best move in the low byte.
+     */
+    static Map<Integer, Integer> solve() {
+        Map<Integer, Integer> entries = new HashMap<>();
+        int center = SIZE / 2;
+        // The first player owns the diagonal through the top left centre cell, as in GameModel.resetBoard
+        long own = BitBoard.bit(center - 1, center - 1) | BitBoard.bit(center, center);
+        long opponent = BitBoard.bit(center, center - 1) | BitBoard.bit(center - 1, center);
+        solve(own, opponent, entries);
+        return entries;
+    }
+
+    /**
+     * Negamax over the whole game tree, each position is solved once.
+     *
+     * @return The final disc difference under perfect play.
+     */
+    private static int solve(long own, long opponent, Map<Integer, Integer> entries) {
+        int key = key(own, opponent);
+        Integer known = entries.get(key);
+        if (known != null) {
+            return known >> 8;
+        }
+        int best;
+        int bestMove = PASS;
+        long moves = BitBoard.legalMoves(own, opponent, VALID_MASK);
+        if (moves == 0) {
+            if (BitBoard.legalMoves(opponent, own, VALID_MASK) == 0) {
+                best = Long.bitCount(own) - Long.bitCount(opponent);
+            } else {
+                best = -solve(opponent, own, entries);
+            }
+        } else {
+            best = Integer.MIN_VALUE;
+            for (long rest = moves; rest != 0; rest &= rest - 1) {
+                long bit = rest & -rest;
+                long flips = BitBoard.computeFlips(own, opponent, bit, VALID_MASK);
+                int score = -solve(opponent & ~flips, own | bit | flips, entries);
+                if (score > best) {
+                    best = score;
+                    bestMove = Long.numberOfTrailingZeros(bit);
+                }
+            }
+        }
+        entries.put(key, best << 8 | bestMove & 0xFF);
+        return best;
+    }
+
+    /**
+     * Writes solved entries in the file layout read by {@link #open}.
+     *
+     * @param entries The entries returned by {@link #solve()}.
+     * @param file    The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    static void write(Map<Integer, Integer> entries, Path file) throws IOException {
+        int[] keys = entries.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        int[] values = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = entries.get(keys[i]);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(KEYS_OFFSET + keys.length * (Integer.BYTES + 2));
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(SIZE).putInt(keys.length);
+        int next = 0;
+        for (int prefix = 0; prefix < DIRECTORY_SIZE; prefix++) {
+            while (next < keys.length && prefix(keys[next]) < prefix) {
+                next++;
+            }
+            buffer.putInt(next);
+        }
+        for (int key : keys) {
+            buffer.putInt(key);
+        }
+        for (int value : values) {
+            buffer.put((byte) (value >> 8));
+        }
+        for (int value : values) {
+            buffer.put((byte) value);
+        }
+        Files.write(file, buffer.array());
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: Tablebase <file>");
+            return;
+        }
+        Path file = Paths.get(args[0]);
+        long start = System.nanoTime();
+        Map<Integer, Integer> entries = solve();
+        long solved = System.nanoTime();
+        write(entries, file);
+        long written = System.nanoTime();
+        Tablebase table = open(file);
+        int center = SIZE / 2;
+        int root = table.find(BitBoard.bit(center - 1, center - 1) | BitBoard.bit(center, center),
+                BitBoard.bit(center, center - 1) | BitBoard.bit(center - 1, center));
+        System.out.printf("%d positions solved in %.1f ms, written in %.1f ms, %d bytes%n", entries.size(),
+                (solved - start) / 1e6, (written - solved) / 1e6, Files.size(file));
+        System.out.printf("Starting position: disc difference %+d for the first player under perfect play%n",
+                table.getScore(root));
+    }
+}
@@ -0,0 +1,500 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Offline match between two engine settings, played on {@link GameModel}s without network or Swing.
+ * <p>
+ * Every core plays one game at a time with its own pair of single-threaded {@link SearchEngine}s.
+ * Each game starts from a random opening of a few plies, and every opening is played twice with
+ * the colours swapped, so that an unbalanced opening favours neither side. The players have
+ * chess-style clocks: a base time and an increment per move; a player whose clock runs out loses.
+ * <p>
+ * Every finished game is appended to the results file as one line and flushed. A run that is
+ * stopped can be resumed with the same arguments: finished games are read back and skipped, the
+ * games that were running are played again. With the system property {@code reversi.records} set,
+ * the games are also appended to that game log.
+ * <p>
+ * Usage: {@code Tournament <results> [games] [playerA] [playerB] [openingPlies] [boardSize]},
+ * a player being {@code <maxDepth>:<baseMillis>+<incrementMillis>}, e.g. {@code 64:0+50} for
+ * 50 ms per move.
+ */
+public class Tournament {
+
+    /**
+     * Settings of player A when none are given.
+     */
+    private static final String DEFAULT_PLAYER = "64:2000+20";
+
+    /**
+     * Random plies played before the engines take over when not given.
+     */
+    private static final int DEFAULT_OPENING_PLIES = 6;
+
+    /**
+     * Seed of the opening of every pair of games, mixed with the pair number.
+     */
+    private static final long OPENING_SEED = 0x2545F4914F6CDD1DL;
+
+    /**
+     * Number of progress reports over the whole tournament.
+     */
+    private static final int PROGRESS_REPORTS = 20;
+
+    /**
+     * Quantile of the normal distribution for the 95% error bars.
+     */
+    private static final double Z_95 = 1.959964;
+
+    /**
+     * Settings of one player.
+     *
+     * @param maxDepth        The depth limit of the search.
+     * @param baseMillis      The time on the clock at the start, 0 for a fixed time per move.
+     * @param incrementMillis The time added after every move.
+     */
+    private record Contestant(int maxDepth, long baseMillis, long incrementMillis) {
+
+        /**
+         * Parses {@code <maxDepth>:<baseMillis>+<incrementMillis>}.
+         */
+        static Contestant parse(String spec) {
+            int colon = spec.indexOf(':');
+            int plus = spec.indexOf('+', colon);
+            if (colon < 0 || plus < 0) {
+                throw new IllegalArgumentException("Player must be <maxDepth>:<baseMillis>+<incrementMillis>: " + spec);
+            }
+            return new Contestant(Integer.parseInt(spec.substring(0, colon)),
+                    Long.parseLong(spec.substring(colon + 1, plus)), Long.parseLong(spec.substring(plus + 1)));
+        }
+
+        @Override
+        public String toString() {
+            return maxDepth + ":" + baseMillis + "+" + incrementMillis;
+        }
+    }
+
+    /**
+     * Outcome of one game.
+     *
+     * @param game        The game number.
+     * @param aRed        Indicates if player A had red, i.e. moved first.
+     * @param score       The score of player A: 1, 0.5 or 0.
+     * @param discs       The final disc difference from A's point of view.
+     * @param moves       The number of stones placed by the engines.
+     * @param aMillis     The thinking time of player A in milliseconds.
+     * @param bMillis     The thinking time of player B in milliseconds.
+     * @param timeForfeit Indicates if the game was lost on time.
+     */
+    private record Outcome(int game, boolean aRed, double score, int discs, int moves, long aMillis,
+                           long bMillis, boolean timeForfeit) {
+
+        /**
+         * Formats the outcome as a line of the results file.
+         */
+        String toLine() {
+            return game + "," + (aRed ? "A" : "B") + "," + score + "," + discs + "," + moves + ","
+                    + aMillis + "," + bMillis + "," + (timeForfeit ? "time" : "end");
+        }
+
+        /**
+         * Parses a line of the results file.
+         */
+        static Outcome parse(String line) {
+            String[] fields = line.split(",");
+            if (fields.length != 8) {
+                throw new IllegalArgumentException("Expected 8 fields: " + line);
+            }
+            return new Outcome(Integer.parseInt(fields[0]), fields[1].equals("A"), Double.parseDouble(fields[2]),
+                    Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), Long.parseLong(fields[5]),
+                    Long.parseLong(fields[6]), fields[7].equals("time"));
+        }
+    }
+
+    /**
+     * Running totals from player A's point of view.
+     */
+    private static final class Standings {
+        int wins;
+        int draws;
+        int losses;
+        int timeForfeits;
+
+        /**
+         * Adds a finished game.
+         */
+        synchronized void add(Outcome outcome) {
+            if (outcome.score() == 1) {
+                wins++;
+            } else if (outcome.score() == 0) {
+                losses++;
+            } else {
+                draws++;
+            }
+            if (outcome.timeForfeit()) {
+                timeForfeits++;
+            }
+        }
+
+        /**
+         * Formats the result and the Elo difference of A over B with its 95% error bar.
+         */
+        synchronized String format() {
+            int games = wins + draws + losses;
+            if (games == 0) {
+                return "no games";
+            }
+            double mean = (wins + 0.5 * draws) / games;
+            double variance = (wins * Math.pow(1 - mean, 2) + draws * Math.pow(0.5 - mean, 2)
+                    + losses * Math.pow(mean, 2)) / games;
+            double margin = Z_95 * Math.sqrt(variance / games);
+            double elo = elo(mean);
+            double errorBar = (elo(Math.min(1, mean + margin)) - elo(Math.max(0, mean - margin))) / 2;
+            return String.format("%d games: +%d =%d -%d (%d on time), score %.1f%%, Elo A-B %+.1f +/- %.1f",
+                    games, wins, draws, losses, timeForfeits, mean * 100, elo, errorBar);
+        }
+
+        /**
+         * Converts a score fraction into an Elo difference, clamped for a clean sweep.
+         */
+        private static double elo(double score) {
+            double clamped = Math.min(Math.max(score, 1e-3), 1 - 1e-3);
+            return -400 * Math.log10(1 / clamped - 1);
+        }
+    }
+
+    /**
+     * Board size of the games.
+     */
+    private final int boardSize;
+
+    /**
+     * Number of games to play in total.
+     */
+    private final int games;
+
+    /**
+     * Settings of player A.
+     */
+    private final Contestant playerA;
+
+    /**
+     * Settings of player B.
+     */
+    private final Contestant playerB;
+
+    /**
+     * Random plies before the engines take over.
+     */
+    private final int openingPlies;
+
+    /**
+     * Games finished in earlier runs.
+     */
+    private final BitSet finished = new BitSet();
+
+    /**
+     * Results of all finished games.
+     */
+    private final Standings standings = new Standings();
+
+    /**
+     * Next game number handed to a worker.
+     */
+    private final AtomicInteger nextGame = new AtomicInteger();
+
+    /**
+     * Games finished in this run.
+     */
+    private final AtomicInteger playedNow = new AtomicInteger();
+
+    /**
+     * Stones placed by the engines in this run.
+     */
+    private final AtomicInteger movesNow = new AtomicInteger();
+
+    /**
+     * The results file, appended to by all workers.
+     */
+    private BufferedWriter results;
+
+    /**
+     * Game log of the finished games, null if none is configured.
+     */
+    private GameRecordStore records;
+
+    /**
+     * Creates a tournament.
+     */
+    Tournament(int boardSize, int games, Contestant playerA, Contestant playerB, int openingPlies) {
+        this.boardSize = boardSize;
+        this.games = games;
+        this.playerA = playerA;
+        this.playerB = playerB;
+        this.openingPlies = openingPlies;
+    }
+
+    /**
+     * Describes the settings; written as the first line of the results file, a resumed run must match it.
+     * The number of games is left out, so a finished tournament can be extended.
+     */
+    private String header() {
+        return "# reversi tournament size=" + boardSize + " A=" + playerA + " B=" + playerB
+                + " openingPlies=" + openingPlies;
+    }
+
+    /**
+     * Reads the games of an earlier run and opens the results file for appending.
+     * An incomplete last line, left by a run that was killed while writing, is cut off.
+     */
+    private void openResults(Path file) throws IOException {
+        if (Files.exists(file) && Files.size(file) > 0) {
+            String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            int validEnd = content.lastIndexOf('\n') + 1;
+            if (validEnd < content.length()) {
+                Log.error("Results {}: cutting an incomplete last line", file);
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(content.substring(0, validEnd).getBytes(StandardCharsets.UTF_8).length);
+                }
+            }
+            List<String> lines = List.of(content.substring(0, validEnd).split("\n"));
+            if (lines.isEmpty() || !lines.get(0).equals(header())) {
+                throw new IOException("Results " + file + " belong to another tournament: "
+                        + (lines.isEmpty() ? "" : lines.get(0)));
+            }
+            for (String line : lines.subList(1, lines.size())) {
+                Outcome outcome = Outcome.parse(line);
+                if (outcome.game() < games && !finished.get(outcome.game())) {
+                    finished.set(outcome.game());
+                    standings.add(outcome);
+                }
+            }
+            results = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        } else {
+            results = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            results.write(header());
+            results.newLine();
+            results.flush();
+        }
+    }
+
+    /**
+     * Plays the missing games on all cores and prints the standings and the throughput.
+     */
+    void run(Path file) throws IOException, InterruptedException {
+        openResults(file);
+        records = GameRecordStore.openConfigured();
+        int resumed = finished.cardinality();
+        if (resumed > 0) {
+            System.out.println("Resuming after " + resumed + " finished games: " + standings.format());
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long cpuStart = os.getProcessCpuTime();
+        long start = System.nanoTime();
+
+        List<Thread> workers = new ArrayList<>(cores);
+        for (int i = 0; i < cores; i++) {
+            Thread worker = new Thread(this::playGames, "tournament-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double cpuSeconds = (os.getProcessCpuTime() - cpuStart) / 1e9;
+        results.close();
+        if (records != null) {
+            records.close();
+        }
+        System.out.println("A=" + playerA + " vs B=" + playerB + ", " + boardSize + "x" + boardSize
+                + ", " + openingPlies + " opening plies");
+        System.out.println(standings.format());
+        System.out.printf("Played %d games in %.1f s on %d cores: %.2f games/s, %.0f moves/s, CPU efficiency %.0f%%%n",
+                playedNow.get(), seconds, cores, playedNow.get() / seconds, movesNow.get() / seconds,
+                100 * cpuSeconds / (seconds * cores));
+    }
+
+    /**
+     * Worker loop: takes the next unfinished game until all are played.
+     */
+    private void playGames() {
+        SearchEngine engineA = new SearchEngine(1);
+        SearchEngine engineB = new SearchEngine(1);
+        engineA.useTablebase(Tablebase.openConfigured());
+        engineB.useTablebase(Tablebase.openConfigured());
+        int reportEvery = Math.max(1, games / PROGRESS_REPORTS);
+        try {
+            for (int game = nextGame.getAndIncrement(); game < games; game = nextGame.getAndIncrement()) {
+                if (finished.get(game)) {
+                    continue;
+                }
+                Outcome outcome = play(game, engineA, engineB);
+                standings.add(outcome);
+                movesNow.addAndGet(outcome.moves());
+                synchronized (this) {
+                    results.write(outcome.toLine());
+                    results.newLine();
+                    results.flush();
+                }
+                if (playedNow.incrementAndGet() % reportEvery == 0) {
+                    System.out.println(standings.format());
+                }
+            }
+        } catch (IOException e) {
+            Log.error("Results cannot be written: {}", e.toString());
+        } finally {
+            engineA.shutdown();
+            engineB.shutdown();
+        }
+    }
+
+    /**
+     * Plays one game: the random opening of its pair, then the engines with their clocks.
+     */
+    private Outcome play(int game, SearchEngine engineA, SearchEngine engineB) throws IOException {
+        boolean aRed = game % 2 == 0;
+        GameModel model = new GameModel();
+        model.setLocalPlayer(new Player("A", aRed ? 'R' : 'B'));
+        model.setRemotePlayer("B", aRed ? 'B' : 'R');
+        model.setBoardSize(boardSize);
+        model.resetBoard(aRed);
+        GameRecord record = aRed ? new GameRecord(boardSize, "A", 'R', "B", 'B')
+                : new GameRecord(boardSize, "B", 'R', "A", 'B');
+
+        char token = 'R';
+        Random random = new Random(OPENING_SEED ^ (game / 2));
+        for (int ply = 0; ply < openingPlies && !isOver(model); ply++) {
+            if (model.getLegalMoveCount(token) > 0) {
+                int pick = random.nextInt(model.getLegalMoveCount(token));
+                int cell = nthLegalMove(model, token, pick);
+                model.placeStoneAndUpdate(cell % boardSize, cell / boardSize, token);
+                record.addMove(cell % boardSize, cell / boardSize, token);
+            }
+            token = token == 'R' ? 'B' : 'R';
+        }
+
+        long[] clocks = {playerA.baseMillis(), playerB.baseMillis()};
+        long[] thinking = new long[2];
+        int moves = 0;
+        while (!isOver(model)) {
+            if (model.getLegalMoveCount(token) > 0) {
+                int side = (token == 'R') == aRed ? 0 : 1;
+                Contestant contestant = side == 0 ? playerA : playerB;
+                BitBoard board = (BitBoard) model.getBoard();
+                long own = board.getStones(token);
+                long opponent = board.getStones(token == 'R' ? 'B' : 'R');
+                int empties = Long.bitCount(board.getValidMask() & ~(own | opponent));
+                // Spread the clock over the own moves still to come, the increment is always available
+                long budget = clocks[side] / Math.max(1, (empties + 1) / 2) + contestant.incrementMillis();
+
+                long start = System.nanoTime();
+                SearchEngine.Result result = (side == 0 ? engineA : engineB)
+                        .search(own, opponent, board.getValidMask(), contestant.maxDepth(), Math.max(1, budget));
+                long millis = (System.nanoTime() - start) / 1_000_000L;
+                thinking[side] += millis;
+                if (contestant.baseMillis() > 0) {
+                    clocks[side] += contestant.incrementMillis() - millis;
+                    if (clocks[side] < 0) {
+                        return finish(game, aRed, side == 0 ? 0 : 1, model, moves, thinking, true, record);
+                    }
+                }
+                // A search stopped before its first iteration finished has no move, any legal one will do
+                int cell = result.getX() >= 0 ? result.getY() * boardSize + result.getX()
+                        : nthLegalMove(model, token, 0);
+                model.placeStoneAndUpdate(cell % boardSize, cell / boardSize, token);
+                record.addMove(cell % boardSize, cell / boardSize, token);
+                moves++;
+            }
+            token = token == 'R' ? 'B' : 'R';
+        }
+        int aDiscs = discDifference(model, aRed ? 'R' : 'B');
+        return finish(game, aRed, aDiscs > 0 ? 1 : aDiscs < 0 ? 0 : 0.5, model, moves, thinking, false, record);
+    }
+
+    /**
+     * Builds the outcome and appends the game to the game log.
+     */
+    private Outcome finish(int game, boolean aRed, double score, GameModel model, int moves, long[] thinking,
+                           boolean timeForfeit, GameRecord record) throws IOException {
+        if (records != null) {
+            records.append(record);
+        }
+        return new Outcome(game, aRed, score, discDifference(model, aRed ? 'R' : 'B'), moves, thinking[0],
+                thinking[1], timeForfeit);
+    }
+
+    /**
+     * Checks if neither player can move.
+     */
+    private static boolean isOver(GameModel model) {
+        return model.getLegalMoveCount('R') == 0 && model.getLegalMoveCount('B') == 0;
+    }
+
+    /**
+     * Finds the n-th legal move of a player in cell order.
+     *
+     * @return The cell index {@code y * size + x}.
+     */
+    private static int nthLegalMove(GameModel model, char token, int n) {
+        int size = model.getBoardSize();
+        for (int cell = 0; cell < size * size; cell++) {
+            if (model.isLegalMove(cell % size, cell / size, token) && n-- == 0) {
+                return cell;
+            }
+        }
+        throw new IllegalArgumentException("Move index out of range");
+    }
+
+    /**
+     * Counts the stones of a player minus those of the other.
+     */
+    private static int discDifference(GameModel model, char token) {
+        int difference = 0;
+        for (int y = 0; y < model.getBoardSize(); y++) {
+            for (int x = 0; x < model.getBoardSize(); x++) {
+                char cell = model.getCell(x, y);
+                if (cell == token) {
+                    difference++;
+                } else if (cell == 'R' || cell == 'B') {
+                    difference--;
+                }
+            }
+        }
+        return difference;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: Tournament <results> [games] [playerA] [playerB] [openingPlies] [boardSize]"
+                    + ", player = <maxDepth>:<baseMillis>+<incrementMillis>");
+            return;
+        }
+        Path file = Paths.get(args[0]);
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        Contestant playerA = Contestant.parse(args.length > 2 ? args[2] : DEFAULT_PLAYER);
+        Contestant playerB = Contestant.parse(args.length > 3 ? args[3] : playerA.toString());
+        int openingPlies = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_OPENING_PLIES;
+        int boardSize = args.length > 5 ? Integer.parseInt(args[5]) : BitBoard.MAX_SIZE;
+        if (boardSize > BitBoard.MAX_SIZE) {
+            System.err.println("The engine supports boards up to " + BitBoard.MAX_SIZE);
+            return;
+        }
+        new Tournament(boardSize, games, playerA, playerB, openingPlies).run(file);
+    }
+}
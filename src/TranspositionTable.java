@@ -0,0 +1,308 @@
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size table of search results keyed by {@link Zobrist} hash, shared by all threads of a
+ * search without locks.
+ * <p>
+ * The entries live off-heap in a direct buffer of 16 bytes each: the packed result and the hash
+ * XORed with it. Both words are read and written with single atomic 64-bit accesses but not
+ * together, so a reader may see a half-written entry; the XOR check then fails and the entry
+ * counts as a miss (lockless hashing). Every hash has one slot; a result replaces the slot unless
+ * it holds a deeper result of a different position from the same search.
+ * <p>
+ * A result packs the score (32 bits), the remaining depth (8), the bound type (2), the best move
+ * (7, the bit index plus one) and the search generation (8).
+ */
+public final class TranspositionTable implements TranspositionTableMXBean {
+
+    /**
+     * The stored score is exact.
+     */
+    public static final int EXACT = 0;
+
+    /**
+     * The real score is at least the stored score (the search failed high).
+     */
+    public static final int LOWER = 1;
+
+    /**
+     * The real score is at most the stored score (the search failed low).
+     */
+    public static final int UPPER = 2;
+
+    /**
+     * Result of {@link #probe} when the position is not in the table.
+     */
+    public static final long MISS = 0L;
+
+    /**
+     * Number of entries of a table created by a {@link SearchEngine}, 16 MB.
+     */
+    public static final int DEFAULT_ENTRIES = 1 << 20;
+
+    /**
+     * Length of an entry in bytes.
+     */
+    private static final int ENTRY_BYTES = 16;
+
+    /**
+     * Number of entries read by {@link #getOccupancy()}.
+     */
+    private static final int OCCUPANCY_SAMPLE = 4096;
+
+    /**
+     * Marks a written result, so that no stored result is {@link #MISS}.
+     */
+    private static final long VALID = 1L << 57;
+
+    /**
+     * Atomic 64-bit access to the entry buffer.
+     */
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.nativeOrder());
+
+    /**
+     * The entries.
+     */
+    private final ByteBuffer entries;
+
+    /**
+     * Number of entries minus one; the capacity is a power of two.
+     */
+    private final int mask;
+
+    /**
+     * Number of the running search, stored with every result to age out old entries.
+     */
+    private volatile int generation;
+
+    /**
+     * Number of lookups.
+     */
+    private final LongAdder probes = new LongAdder();
+
+    /**
+     * Number of lookups that found their position.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Number of results written.
+     */
+    private final LongAdder stores = new LongAdder();
+
+    /**
+     * Name the table is registered under, null if it is not registered.
+     */
+    private ObjectName objectName;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param capacity The number of entries, rounded down to a power of two.
+     */
+    public TranspositionTable(int capacity) {
+        int entryCount = Integer.highestOneBit(Math.max(1, Math.min(capacity, Integer.MAX_VALUE / ENTRY_BYTES)));
+        this.entries = ByteBuffer.allocateDirect(entryCount * ENTRY_BYTES).order(ByteOrder.nativeOrder());
+        this.mask = entryCount - 1;
+    }
+
+    /**
+     * Starts a new search: results of earlier searches may be replaced by shallower ones.
+     */
+    public void newSearch() {
+        generation++;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param hash The hash of the position including the side to move.
+     * @return The packed result, {@link #MISS} if the position is not stored.
+     */
+    public long probe(long hash) {
+        probes.increment();
+        int offset = (int) (hash & mask) * ENTRY_BYTES;
+        long check = (long) LONGS.getOpaque(entries, offset);
+        long data = (long) LONGS.getOpaque(entries, offset + Long.BYTES);
+        if (data == MISS || (check ^ data) != hash) {
+            return MISS;
+        }
+        hits.increment();
+        return data;
+    }
+
+    /**
+     * Stores the result of a search.
+     *
+     * @param hash  The hash of the position including the side to move.
+     * @param score The score from the point of view of the player to move.
+     * @param depth The remaining depth the score was searched with.
+     * @param bound {@link #EXACT}, {@link #LOWER} or {@link #UPPER}.
+     * @param move  The bit index of the best move, -1 if there is none.
+     */
+    public void store(long hash, int score, int depth, int bound, int move) {
+        int offset = (int) (hash & mask) * ENTRY_BYTES;
+        int currentGeneration = generation & 0xFF;
+        long old = (long) LONGS.getOpaque(entries, offset + Long.BYTES);
+        if (old != MISS && generation(old) == currentGeneration && depth(old) > depth
+                && ((long) LONGS.getOpaque(entries, offset) ^ old) != hash) {
+            // A deeper result of another position from this search is worth more
+            return;
+        }
+        long data = (score & 0xFFFFFFFFL)
+                | (long) Math.min(depth, 0xFF) << 32
+                | (long) bound << 40
+                | (long) (move + 1) << 42
+                | (long) currentGeneration << 49
+                | VALID;
+        LONGS.setOpaque(entries, offset + Long.BYTES, data);
+        LONGS.setOpaque(entries, offset, hash ^ data);
+        stores.increment();
+    }
+
+    /**
+     * Gets the score of a result.
+     *
+     * @param data A result returned by {@link #probe}.
+     * @return The score from the point of view of the player to move.
+     */
+    public static int score(long data) {
+        return (int) data;
+    }
+
+    /**
+     * Gets the depth of a result.
+     *
+     * @param data A result returned by {@link #probe}.
+     * @return The remaining depth the score was searched with.
+     */
+    public static int depth(long data) {
+        return (int) (data >>> 32) & 0xFF;
+    }
+
+    /**
+     * Gets the bound type of a result.
+     *
+     * @param data A result returned by {@link #probe}.
+     * @return {@link #EXACT}, {@link #LOWER} or {@link #UPPER}.
+     */
+    public static int bound(long data) {
+        return (int) (data >>> 40) & 0x3;
+    }
+
+    /**
+     * Gets the best move of a result.
+     *
+     * @param data A result returned by {@link #probe}.
+     * @return The bit index of the move, -1 if there is none.
+     */
+    public static int move(long data) {
+        return ((int) (data >>> 42) & 0x7F) - 1;
+    }
+
+    /**
+     * Gets the search generation of a result.
+     */
+    private static int generation(long data) {
+        return (int) (data >>> 49) & 0xFF;
+    }
+
+    /**
+     * Removes all entries, so that the next search starts from an empty table.
+     */
+    public void clear() {
+        for (int offset = 0; offset < entries.capacity(); offset += Long.BYTES) {
+            LONGS.setOpaque(entries, offset, MISS);
+        }
+    }
+
+    @Override
+    public long getCapacity() {
+        return mask + 1L;
+    }
+
+    @Override
+    public long getMemoryBytes() {
+        return entries.capacity();
+    }
+
+    @Override
+    public double getOccupancy() {
+        int sample = Math.min(OCCUPANCY_SAMPLE, mask + 1);
+        int currentGeneration = generation & 0xFF;
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = (long) LONGS.getOpaque(entries, i * ENTRY_BYTES + Long.BYTES);
+            if (data != MISS && generation(data) == currentGeneration) {
+                used++;
+            }
+        }
+        return (double) used / sample;
+    }
+
+    @Override
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        long probeCount = probes.sum();
+        return probeCount == 0 ? 0 : (double) hits.sum() / probeCount;
+    }
+
+    @Override
+    public long getStores() {
+        return stores.sum();
+    }
+
+    @Override
+    public void reset() {
+        probes.reset();
+        hits.reset();
+        stores.reset();
+    }
+
+    /**
+     * Registers the table on the platform MBean server; the table keeps working if that fails.
+     *
+     * @param name The name of the owner, unique within the process.
+     */
+    public synchronized void register(String name) {
+        try {
+            objectName = new ObjectName("reversi:type=TranspositionTable,name=" + name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (JMException e) {
+            objectName = null;
+            Log.error("Could not register the transposition table over JMX: {}", e.toString());
+        }
+    }
+
+    /**
+     * Removes the table from the platform MBean server.
+     */
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            Log.error("Could not unregister the transposition table: {}", e.toString());
+        }
+        objectName = null;
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Management interface of a {@link TranspositionTable}, registered as
+ * {@code reversi:type=TranspositionTable,name=<engine>}.
+ */
+public interface TranspositionTableMXBean {
+
+    /**
+     * Gets the number of entries the table holds.
+     *
+     * @return The capacity in entries.
+     */
+    long getCapacity();
+
+    /**
+     * Gets the off-heap memory used by the entries.
+     *
+     * @return The size in bytes.
+     */
+    long getMemoryBytes();
+
+    /**
+     * Gets the share of sampled entries written by the current search.
+     *
+     * @return A value between 0 and 1.
+     */
+    double getOccupancy();
+
+    /**
+     * Gets the number of lookups since the last reset.
+     *
+     * @return The probe count.
+     */
+    long getProbes();
+
+    /**
+     * Gets the number of lookups that found their position.
+     *
+     * @return The hit count.
+     */
+    long getHits();
+
+    /**
+     * Gets the share of lookups that found their position.
+     *
+     * @return A value between 0 and 1, 0 before the first lookup.
+     */
+    double getHitRate();
+
+    /**
+     * Gets the number of entries written since the last reset.
+     *
+     * @return The store count.
+     */
+    long getStores();
+
+    /**
+     * Clears the counters; the entries are kept.
+     */
+    void reset();
+}
@@ -0,0 +1,186 @@
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Carries view updates from the network and watchdog threads to the Swing event dispatch thread.
+ * <p>
+ * State that only needs its latest value shown - the board, the header and the status text - is
+ * marked dirty and rendered once per flush, however many messages changed it meanwhile. Screen
+ * changes and dialogs are queued as actions and run in order. A flush runs at most once per
+ * {@link #FRAME_MILLIS}, so a burst of messages costs one repaint instead of one per message.
+ * <p>
+ * All posting methods may be called from any thread and return immediately.
+ */
+public class UiUpdateChannel {
+
+    /**
+     * Shortest time between two flushes in milliseconds, about one frame at 60 Hz.
+     */
+    public static final int FRAME_MILLIS = 16;
+
+    /**
+     * Renders the board from the model, called on the EDT.
+     */
+    private final Runnable boardRenderer;
+
+    /**
+     * Renders the header from the model, called on the EDT.
+     */
+    private final Runnable headerRenderer;
+
+    /**
+     * Shows a status text, called on the EDT.
+     */
+    private final Consumer<String> statusRenderer;
+
+    /**
+     * Screen changes and dialogs waiting for the next flush, in posting order.
+     */
+    private final Queue<Runnable> actions = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Set while a flush is scheduled and has not started yet.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * The latest status text not shown yet, null if there is none.
+     */
+    private final AtomicReference<String> pendingStatus = new AtomicReference<>();
+
+    /**
+     * Set when the board has to be rendered again.
+     */
+    private volatile boolean boardDirty;
+
+    /**
+     * Set when the header has to be rendered again.
+     */
+    private volatile boolean headerDirty;
+
+    /**
+     * Delays a flush that would come sooner than a frame after the previous one.
+     */
+    private final Timer frameTimer;
+
+    /**
+     * Start of the previous flush, only accessed on the EDT.
+     */
+    private long lastFlushNanos;
+
+    /**
+     * Creates a channel rendering through the given callbacks.
+     *
+     * @param boardRenderer  Renders the board from the model.
+     * @param headerRenderer Renders the header from the model.
+     * @param statusRenderer Shows a status text.
+     */
+    public UiUpdateChannel(Runnable boardRenderer, Runnable headerRenderer,
+                           Consumer<String> statusRenderer) {
+        this.boardRenderer = boardRenderer;
+        this.headerRenderer = headerRenderer;
+        this.statusRenderer = statusRenderer;
+        this.frameTimer = new Timer(FRAME_MILLIS, e -> flush());
+        this.frameTimer.setRepeats(false);
+        this.lastFlushNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(FRAME_MILLIS);
+    }
+
+    /**
+     * Marks the board as changed.
+     */
+    public void boardChanged() {
+        boardDirty = true;
+        schedule();
+    }
+
+    /**
+     * Marks the header as changed.
+     */
+    public void headerChanged() {
+        headerDirty = true;
+        schedule();
+    }
+
+    /**
+     * Shows a status text; a text posted before the next flush replaces it.
+     *
+     * @param text The text to show.
+     */
+    public void showStatus(String text) {
+        pendingStatus.set(text);
+        schedule();
+    }
+
+    /**
+     * Queues a screen change or dialog. Actions run on the EDT in posting order, after the
+     * state posted before them has been rendered.
+     *
+     * @param action The action to run.
+     */
+    public void post(Runnable action) {
+        actions.add(action);
+        schedule();
+    }
+
+    /**
+     * Schedules a flush unless one is pending already.
+     */
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::flushOnNextFrame);
+        }
+    }
+
+    /**
+     * Flushes now or, if the previous flush was less than a frame ago, when the frame is over.
+     */
+    private void flushOnNextFrame() {
+        long wait = TimeUnit.MILLISECONDS.toNanos(FRAME_MILLIS) - (System.nanoTime() - lastFlushNanos);
+        if (wait > 0) {
+            frameTimer.setInitialDelay((int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait)));
+            frameTimer.restart();
+        } else {
+            flush();
+        }
+    }
+
+    /**
+     * Renders the dirty state and runs the queued actions, on the EDT.
+     */
+    private void flush() {
+        // Cleared first, so that anything posted from now on schedules another flush
+        scheduled.set(false);
+        lastFlushNanos = System.nanoTime();
+        renderDirtyState();
+        Runnable action;
+        while ((action = actions.poll()) != null) {
+            // A modal dialog keeps dispatching events, so a nested flush may run meanwhile
+            action.run();
+            renderDirtyState();
+        }
+    }
+
+    /**
+     * Renders the parts marked dirty since the last render.
+     */
+    private void renderDirtyState() {
+        String status = pendingStatus.getAndSet(null);
+        if (status != null) {
+            statusRenderer.accept(status);
+        }
+        if (headerDirty) {
+            headerDirty = false;
+            headerRenderer.run();
+        }
+        if (boardDirty) {
+            boardDirty = false;
+            boardRenderer.run();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Zobrist keys of Reversi positions.
+ * <p>
+ * Every cell index and colour has a fixed pseudo-random 64-bit key; the hash of a position is
+ * the XOR of the keys of its stones, and {@link #SIDE_TO_MOVE} is added when blue is to move.
+ * Placing or flipping a stone changes the hash by one XOR, so boards and searches keep it up to
+ * date incrementally. Flipping a stone XORs {@link #flip(int)}, the keys of both colours at once.
+ * <p>
+ * Cell indices are those of the board: {@code y * 8 + x} on a {@link BitBoard},
+ * {@code y * size + x} on a {@link PackedBoard}. Hashes are only compared between boards of
+ * the same size.
+ */
+public final class Zobrist {
+
+    /**
+     * Key added to the hash when blue is to move.
+     */
+    public static final long SIDE_TO_MOVE = mix(-1L);
+
+    /**
+     * Number of cells whose keys are kept in tables; the keys of larger boards are computed.
+     */
+    private static final int TABLE_CELLS = 64 * 64;
+
+    /**
+     * Keys of red stones by cell index.
+     */
+    private static final long[] RED = new long[TABLE_CELLS];
+
+    /**
+     * Keys of blue stones by cell index.
+     */
+    private static final long[] BLUE = new long[TABLE_CELLS];
+
+    /**
+     * Keys of both colours XORed, by cell index.
+     */
+    private static final long[] FLIP = new long[TABLE_CELLS];
+
+    static {
+        for (int index = 0; index < TABLE_CELLS; index++) {
+            RED[index] = mix(2L * index);
+            BLUE[index] = mix(2L * index + 1);
+            FLIP[index] = RED[index] ^ BLUE[index];
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Gets the key of a stone.
+     *
+     * @param token 'R', 'B' or any other character for an empty cell.
+     * @param index The cell index.
+     * @return The key, 0 for an empty cell.
+     */
+    public static long stone(char token, int index) {
+        if (token == 'R') {
+            return index < TABLE_CELLS ? RED[index] : mix(2L * index);
+        }
+        if (token == 'B') {
+            return index < TABLE_CELLS ? BLUE[index] : mix(2L * index + 1);
+        }
+        return 0L;
+    }
+
+    /**
+     * Gets the change of the hash when the stone on a cell changes colour.
+     *
+     * @param index The cell index.
+     * @return The keys of both colours XORed.
+     */
+    public static long flip(int index) {
+        return index < TABLE_CELLS ? FLIP[index] : mix(2L * index) ^ mix(2L * index + 1);
+    }
+
+    /**
+     * Computes the change of a bitboard hash caused by a move, without the side to move.
+     *
+     * @param red   true if red makes the move.
+     * @param move  Single-bit mask of the target cell.
+     * @param flips Mask of the stones flipped by the move.
+     * @return The value to XOR into the hash.
+     */
+    public static long move(boolean red, long move, long flips) {
+        int index = Long.numberOfTrailingZeros(move);
+        long change = red ? RED[index] : BLUE[index];
+        for (long rest = flips; rest != 0; rest &= rest - 1) {
+            change ^= FLIP[Long.numberOfTrailingZeros(rest)];
+        }
+        return change;
+    }
+
+    /**
+     * Computes the hash of a bitboard position from scratch, without the side to move.
+     *
+     * @param red  The red stones.
+     * @param blue The blue stones.
+     * @return The hash.
+     */
+    public static long hash(long red, long blue) {
+        long hash = 0L;
+        for (long rest = red; rest != 0; rest &= rest - 1) {
+            hash ^= RED[Long.numberOfTrailingZeros(rest)];
+        }
+        for (long rest = blue; rest != 0; rest &= rest - 1) {
+            hash ^= BLUE[Long.numberOfTrailingZeros(rest)];
+        }
+        return hash;
+    }
+
+    /**
+     * The SplitMix64 finaliser, spreading consecutive numbers over all 64 bits.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}